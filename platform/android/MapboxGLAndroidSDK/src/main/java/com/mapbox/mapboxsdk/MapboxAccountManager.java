@@ -1,13 +1,13 @@
 package com.mapbox.mapboxsdk;
 
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.text.TextUtils;
 
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 import com.mapbox.mapboxsdk.exceptions.InvalidAccessTokenException;
 import com.mapbox.mapboxsdk.exceptions.MapboxAccountManagerNotStartedException;
+import com.mapbox.mapboxsdk.http.HttpClientConfig;
+import com.mapbox.mapboxsdk.http.HttpClientManager;
 import com.mapbox.mapboxsdk.net.ConnectivityReceiver;
 import com.mapbox.mapboxsdk.telemetry.MapboxEventManager;
 
@@ -40,7 +40,23 @@ public class MapboxAccountManager {
      * @return MapboxAccountManager instance for app
      */
     public static MapboxAccountManager start(Context context, String accessToken) {
+        return start(context, accessToken, new HttpClientConfig.Builder().build());
+    }
+
+    /**
+     * Primary entry point to Mapbox for implementing developers that need to tune network behaviour.
+     * Must be configured in either Application.onCreate() or Launch Activity.onCreate()
+     *
+     * @param context          Context used to get Application Context
+     * @param accessToken      Mapbox Access Token.  You can get one on the Mapbox Web site.
+     * @param httpClientConfig Configuration of the HTTP client used to load map resources
+     * @return MapboxAccountManager instance for app
+     */
+    public static MapboxAccountManager start(Context context, String accessToken, HttpClientConfig httpClientConfig) {
         if (mapboxAccountManager == null) {
+            //Configure the http client shared by all map resource requests
+            HttpClientManager.getInstance().setConfig(httpClientConfig);
+
             //Create a new account manager
             mapboxAccountManager = new MapboxAccountManager(context, accessToken);
 
@@ -48,7 +64,11 @@ public class MapboxAccountManager {
             MapboxEventManager.getMapboxEventManager().initialize(context, accessToken);
 
             //Register a receiver to listen for connectivity updates
-            ConnectivityReceiver.instance(context);
+            ConnectivityReceiver connectivityReceiver = ConnectivityReceiver.instance(context);
+
+            //Park map requests while offline
+            connectivityReceiver.addListener(HttpClientManager.getInstance());
+            HttpClientManager.getInstance().onNetworkStateChanged(connectivityReceiver.isConnected());
         }
 
         return mapboxAccountManager;
@@ -92,13 +112,14 @@ public class MapboxAccountManager {
     /**
      * Determines whether we have an Internet connection available. Please do not rely on this
      * method in your apps, this method is used internally by the SDK.
+     * <p>
+     * The state is cached from connectivity broadcasts, so this does not query the ConnectivityManager.
+     * </p>
      *
      * @return true if there is an Internet connection, false otherwise
      */
     public boolean isConnected() {
-        ConnectivityManager cm = (ConnectivityManager) applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        return (activeNetwork != null && activeNetwork.isConnected());
+        return ConnectivityReceiver.instance(applicationContext).isConnected();
     }
 
     /**
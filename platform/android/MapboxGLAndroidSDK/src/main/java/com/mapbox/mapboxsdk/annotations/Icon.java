@@ -4,6 +4,8 @@ import android.graphics.Bitmap;
 
 import com.mapbox.mapboxsdk.maps.MapView;
 
+import java.util.Arrays;
+
 /**
  * Icon is the visual representation of a {@link Marker} on a {@link MapView}.
  *
@@ -12,6 +14,8 @@ import com.mapbox.mapboxsdk.maps.MapView;
 public class Icon {
     private Bitmap mBitmap;
     private String mId;
+    private int mBitmapHash;
+    private volatile boolean mBitmapHashed;
 
     Icon(String id, Bitmap bitmap) {
         mId = id;
@@ -26,6 +30,24 @@ public class Icon {
         return mBitmap;
     }
 
+    /**
+     * Returns a hash of the size and pixels of the bitmap, taken the first time it is asked for.
+     * <p>
+     * The map only asks for it when a different Icon instance reuses the id of an uploaded Icon,
+     * to tell whether it carries the same image, so creating Icons does not read their pixels.
+     * </p>
+     *
+     * @return the bitmap hash
+     */
+    public int getBitmapHash() {
+        if (!mBitmapHashed) {
+            // racing threads compute the same value
+            mBitmapHash = hashBitmap(mBitmap);
+            mBitmapHashed = true;
+        }
+        return mBitmapHash;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -49,4 +71,20 @@ public class Icon {
         }
         return result;
     }
+
+    private static int hashBitmap(Bitmap bitmap) {
+        if (bitmap == null) {
+            return 0;
+        }
+
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int result = 31 * width + height;
+        if (width > 0 && height > 0) {
+            int[] pixels = new int[width * height];
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            result = 31 * result + Arrays.hashCode(pixels);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,83 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.support.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of {@link Icon}s keyed by the source they were decoded from.
+ * <p>
+ * Icons without a bitmap are never cached, so a source that failed to decode is retried on the next request.
+ * </p>
+ */
+class IconCache {
+
+    static final int DEFAULT_MAX_SIZE = 64;
+
+    private final Map<String, Icon> mIcons = new LinkedHashMap<>(16, 0.75f, true);
+    private int mMaxSize;
+    private int mHitCount;
+    private int mMissCount;
+
+    IconCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    synchronized Icon get(@NonNull String key) {
+        Icon icon = mIcons.get(key);
+        if (icon != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return icon;
+    }
+
+    synchronized void put(@NonNull String key, Icon icon) {
+        if (icon == null || icon.getBitmap() == null || mMaxSize == 0) {
+            return;
+        }
+        mIcons.put(key, icon);
+        trim();
+    }
+
+    synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Icon cache size can't be negative");
+        }
+        mMaxSize = maxSize;
+        trim();
+    }
+
+    synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    synchronized int size() {
+        return mIcons.size();
+    }
+
+    synchronized void clear() {
+        mIcons.clear();
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    private void trim() {
+        Iterator<String> iterator = mIcons.keySet().iterator();
+        while (mIcons.size() > mMaxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
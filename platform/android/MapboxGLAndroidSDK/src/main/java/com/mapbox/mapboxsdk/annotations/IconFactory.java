@@ -24,6 +24,10 @@ import java.io.InputStream;
 
 /**
  * Factory for creating {@link Icon} objects.
+ * <p>
+ * The factory can be used from any thread, markers added asynchronously resolve their default icon on a
+ * background thread.
+ * </p>
  * @see Icon
  */
 public final class IconFactory {
@@ -37,6 +41,7 @@ public final class IconFactory {
     private BitmapFactory.Options mOptions;
 
     private int mNextId = 0;
+    private final IconCache mIconCache = new IconCache(IconCache.DEFAULT_MAX_SIZE);
 
     public static synchronized IconFactory getInstance(@NonNull Context context) {
         if (sInstance == null) {
@@ -66,7 +71,7 @@ public final class IconFactory {
         }
     }
 
-    public Icon fromBitmap(@NonNull Bitmap bitmap) {
+    public synchronized Icon fromBitmap(@NonNull Bitmap bitmap) {
         if (mNextId < 0) {
             throw new TooManyIconsException();
         }
@@ -95,7 +100,26 @@ public final class IconFactory {
         return fromBitmap(bitmap);
     }
 
+    /**
+     * Creates an {@link Icon} from a drawable resource.
+     * <p>
+     * Icons created from the same resource are cached, repeated calls return the same {@link Icon}.
+     * </p>
+     *
+     * @param resourceId the resource id of the drawable
+     * @return the icon
+     */
     public Icon fromResource(@DrawableRes int resourceId) {
+        String key = "resource:" + resourceId;
+        Icon icon = mIconCache.get(key);
+        if (icon == null) {
+            icon = createFromResource(resourceId);
+            mIconCache.put(key, icon);
+        }
+        return icon;
+    }
+
+    private Icon createFromResource(@DrawableRes int resourceId) {
         Drawable drawable = ContextCompat.getDrawable(mContext, resourceId);
         Bitmap bitmap;
         if (drawable instanceof BitmapDrawable) {
@@ -115,14 +139,14 @@ public final class IconFactory {
         return fromBitmap(bitmap);
     }
 
-    public Icon defaultMarker() {
+    public synchronized Icon defaultMarker() {
         if (mDefaultMarker == null) {
             mDefaultMarker = fromResource(R.drawable.default_marker);
         }
         return mDefaultMarker;
     }
 
-    public Icon defaultMarkerView() {
+    public synchronized Icon defaultMarkerView() {
         if (mDefaultMarkerView == null) {
             mDefaultMarkerView = fromResource(R.drawable.default_markerview);
         }
@@ -134,7 +158,26 @@ public final class IconFactory {
         return fromBitmap(bitmap);
     }
 
+    /**
+     * Creates an {@link Icon} from an asset.
+     * <p>
+     * Icons created from the same asset are cached, repeated calls return the same {@link Icon}.
+     * </p>
+     *
+     * @param assetName the name of the asset
+     * @return the icon, or null if the asset can't be opened
+     */
     public Icon fromAsset(@NonNull String assetName) {
+        String key = "asset:" + assetName + getDensityKey();
+        Icon icon = mIconCache.get(key);
+        if (icon == null) {
+            icon = createFromAsset(assetName);
+            mIconCache.put(key, icon);
+        }
+        return icon;
+    }
+
+    private Icon createFromAsset(@NonNull String assetName) {
         InputStream is;
         try {
             is = mContext.getAssets().open(assetName);
@@ -144,7 +187,26 @@ public final class IconFactory {
         return fromInputStream(is);
     }
 
+    /**
+     * Creates an {@link Icon} from an image file.
+     * <p>
+     * Icons created from the same path are cached, repeated calls return the same {@link Icon}.
+     * </p>
+     *
+     * @param absolutePath the absolute path of the image file
+     * @return the icon
+     */
     public Icon fromPath(@NonNull String absolutePath) {
+        String key = "path:" + absolutePath + getDensityKey();
+        Icon icon = mIconCache.get(key);
+        if (icon == null) {
+            icon = createFromPath(absolutePath);
+            mIconCache.put(key, icon);
+        }
+        return icon;
+    }
+
+    private Icon createFromPath(@NonNull String absolutePath) {
         Bitmap bitmap = BitmapFactory.decodeFile(absolutePath, mOptions);
         return fromBitmap(bitmap);
     }
@@ -159,6 +221,49 @@ public final class IconFactory {
         return fromInputStream(is);
     }
 
+    /**
+     * Sets the maximum number of icons kept in the cache of icons created from resources, assets and paths.
+     * The least recently requested icons are evicted first.
+     *
+     * @param maxSize the maximum number of cached icons, 0 disables the cache
+     */
+    public void setIconCacheSize(int maxSize) {
+        mIconCache.setMaxSize(maxSize);
+    }
+
+    public int getIconCacheSize() {
+        return mIconCache.getMaxSize();
+    }
+
+    /**
+     * Removes all cached icons and resets the cache statistics.
+     */
+    public void clearIconCache() {
+        mIconCache.clear();
+    }
+
+    /**
+     * Returns how many requests for an icon from a resource, asset or path were answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public int getIconCacheHitCount() {
+        return mIconCache.getHitCount();
+    }
+
+    /**
+     * Returns how many requests for an icon from a resource, asset or path had to decode a new bitmap.
+     *
+     * @return the number of cache misses
+     */
+    public int getIconCacheMissCount() {
+        return mIconCache.getMissCount();
+    }
+
+    private String getDensityKey() {
+        return "@" + mOptions.inDensity + "/" + mOptions.inTargetDensity + "/" + mOptions.inScreenDensity;
+    }
+
     public static Icon recreate(@NonNull String iconId, @NonNull Bitmap bitmap) {
         return new Icon(iconId, bitmap);
     }
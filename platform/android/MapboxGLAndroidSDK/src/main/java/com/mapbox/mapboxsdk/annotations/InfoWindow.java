@@ -3,6 +3,7 @@ package com.mapbox.mapboxsdk.annotations;
 import android.content.res.Resources;
 import android.graphics.PointF;
 import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -15,6 +16,7 @@ import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 /**
  * <p>
@@ -39,6 +41,10 @@ public class InfoWindow {
     @LayoutRes
     private int mLayoutRes;
 
+    // reused by update(MapboxMap, List) on every frame the camera changes, which only happens on the main thread
+    private static double[] sUpdateLatLngs = new double[0];
+    private static float[] sUpdateScreenLocations = new float[0];
+
     InfoWindow(MapView mapView, int layoutResId, MapboxMap mapboxMap) {
         mLayoutRes = layoutResId;
         View view = LayoutInflater.from(mapView.getContext()).inflate(layoutResId, mapView, false);
@@ -259,16 +265,68 @@ public class InfoWindow {
         View view = mView.get();
         if (mapboxMap != null && marker != null && view != null) {
             mCoordinates = mapboxMap.getProjection().toScreenLocation(marker.getPosition());
+            update(view, mCoordinates.x, mCoordinates.y);
+        }
+    }
 
-            if (view instanceof InfoWindowView) {
-                view.setX(mCoordinates.x + mViewWidthOffset - mMarkerWidthOffset);
+    /**
+     * Updates the position of a collection of InfoWindows.
+     * <p>
+     * The screen locations of all bound markers are calculated with a single call to
+     * {@link com.mapbox.mapboxsdk.maps.Projection#toScreenLocations(double[], float[])}.
+     * </p>
+     *
+     * @param mapboxMap   the map the InfoWindows are shown on
+     * @param infoWindows the InfoWindows to update
+     */
+    public static void update(@NonNull MapboxMap mapboxMap, @NonNull List<InfoWindow> infoWindows) {
+        int size = infoWindows.size();
+        if (size == 0) {
+            return;
+        } else if (size == 1) {
+            infoWindows.get(0).update();
+            return;
+        }
+
+        // the buffers only change size when info windows open or close
+        if (sUpdateLatLngs.length != size * 2) {
+            sUpdateLatLngs = new double[size * 2];
+            sUpdateScreenLocations = new float[size * 2];
+        }
+        double[] latLngs = sUpdateLatLngs;
+        float[] screenLocations = sUpdateScreenLocations;
+        for (int i = 0; i < size; i++) {
+            Marker marker = infoWindows.get(i).getBoundMarker();
+            if (marker != null) {
+                LatLng position = marker.getPosition();
+                latLngs[i * 2] = position.getLatitude();
+                latLngs[i * 2 + 1] = position.getLongitude();
             } else {
-                view.setX(mCoordinates.x - (view.getMeasuredWidth() / 2) - mMarkerWidthOffset);
+                latLngs[i * 2] = 0;
+                latLngs[i * 2 + 1] = 0;
+            }
+        }
+
+        mapboxMap.getProjection().toScreenLocations(latLngs, screenLocations);
+
+        for (int i = 0; i < size; i++) {
+            InfoWindow infoWindow = infoWindows.get(i);
+            View view = infoWindow.getView();
+            if (infoWindow.getBoundMarker() != null && view != null) {
+                infoWindow.update(view, screenLocations[i * 2], screenLocations[i * 2 + 1]);
             }
-            view.setY(mCoordinates.y + mMarkerHeightOffset);
         }
     }
 
+    private void update(View view, float x, float y) {
+        if (view instanceof InfoWindowView) {
+            view.setX(x + mViewWidthOffset - mMarkerWidthOffset);
+        } else {
+            view.setX(x - (view.getMeasuredWidth() / 2) - mMarkerWidthOffset);
+        }
+        view.setY(y + mMarkerHeightOffset);
+    }
+
     public View getView() {
         return mView != null ? mView.get() : null;
     }
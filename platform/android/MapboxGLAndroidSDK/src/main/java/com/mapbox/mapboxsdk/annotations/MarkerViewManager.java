@@ -1,7 +1,6 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import android.content.Context;
-import android.graphics.PointF;
 import android.graphics.RectF;
 import android.os.SystemClock;
 import android.support.annotation.NonNull;
@@ -13,16 +12,20 @@ import android.widget.ImageView;
 
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
+import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.Projection;
 import com.mapbox.mapboxsdk.utils.AnimatorUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Interface for interacting with ViewMarkers objects inside of a MapView.
@@ -39,6 +42,13 @@ public class MarkerViewManager {
     private long viewMarkerBoundsUpdateTime;
     private MapboxMap.OnMarkerViewClickListener onMarkerViewClickListener;
     private ImageMarkerViewAdapter defaultMarkerViewAdapter;
+    private float visibleRegionMargin;
+
+    // reused by update() on every frame the camera changes
+    private final List<MarkerView> updateMarkers = new ArrayList<>();
+    private final List<View> updateViews = new ArrayList<>();
+    private double[] updateLatLngs = new double[0];
+    private float[] updateScreenLocations = new float[0];
 
     /**
      * Creates an instance of MarkerViewManager.
@@ -110,31 +120,66 @@ public class MarkerViewManager {
      * If an item is View state is not visible and its related flag is set to visible,
      * The {@link MarkerView} will be animated to visible using alpha animation.
      * </p>
+     * <p>
+     * The screen locations of all MarkerViews are calculated with a single call to
+     * {@link Projection#toScreenLocations(double[], float[])}.
+     * </p>
      */
     public void update() {
-        for (final MarkerView marker : markerViewMap.keySet()) {
-            final View convertView = markerViewMap.get(marker);
-            if (convertView != null) {
-                PointF point = mapboxMap.getProjection().toScreenLocation(marker.getPosition());
-                if (marker.getOffsetX() == MapboxConstants.UNMEASURED) {
-                    // ensure view is measured first
-                    if (convertView.getWidth() == 0) {
-                        convertView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
-                    }
-                    if (convertView.getMeasuredWidth() != 0) {
-                        int x = (int) (marker.getAnchorU() * convertView.getMeasuredWidth());
-                        int y = (int) (marker.getAnchorV() * convertView.getMeasuredHeight());
-                        marker.setOffset(x, y);
-                    }
+        try {
+            for (Map.Entry<MarkerView, View> entry : markerViewMap.entrySet()) {
+                if (entry.getValue() != null) {
+                    updateMarkers.add(entry.getKey());
+                    updateViews.add(entry.getValue());
                 }
+            }
+            updatePositions(updateMarkers, updateViews);
+        } finally {
+            // don't hold on to the markers until the next frame, also when updating failed
+            updateMarkers.clear();
+            updateViews.clear();
+        }
+    }
 
-                convertView.setX(point.x - marker.getOffsetX());
-                convertView.setY(point.y - marker.getOffsetY());
+    private void updatePositions(List<MarkerView> markers, List<View> views) {
+        int size = markers.size();
+        if (size == 0) {
+            return;
+        }
 
-                // animate visibility
-                if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
-                    animateVisible(marker, true);
+        // the buffers only change size when MarkerViews enter or leave the viewport
+        if (updateLatLngs.length != size * 2) {
+            updateLatLngs = new double[size * 2];
+            updateScreenLocations = new float[size * 2];
+        }
+        for (int i = 0; i < size; i++) {
+            LatLng position = markers.get(i).getPosition();
+            updateLatLngs[i * 2] = position.getLatitude();
+            updateLatLngs[i * 2 + 1] = position.getLongitude();
+        }
+        mapboxMap.getProjection().toScreenLocations(updateLatLngs, updateScreenLocations);
+
+        for (int i = 0; i < size; i++) {
+            MarkerView marker = markers.get(i);
+            View convertView = views.get(i);
+            if (marker.getOffsetX() == MapboxConstants.UNMEASURED) {
+                // ensure view is measured first
+                if (convertView.getWidth() == 0) {
+                    convertView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
                 }
+                if (convertView.getMeasuredWidth() != 0) {
+                    int x = (int) (marker.getAnchorU() * convertView.getMeasuredWidth());
+                    int y = (int) (marker.getAnchorV() * convertView.getMeasuredHeight());
+                    marker.setOffset(x, y);
+                }
+            }
+
+            convertView.setX(updateScreenLocations[i * 2] - marker.getOffsetX());
+            convertView.setY(updateScreenLocations[i * 2 + 1] - marker.getOffsetY());
+
+            // animate visibility
+            if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
+                animateVisible(marker, true);
             }
         }
     }
@@ -293,19 +338,48 @@ public class MarkerViewManager {
      * @param marker the MarkerView to remove
      */
     public void removeMarkerView(MarkerView marker) {
-        final View viewHolder = markerViewMap.get(marker);
-        if (viewHolder != null && marker != null) {
-            for (final MapboxMap.MarkerViewAdapter<?> adapter : markerViewAdapters) {
-                if (adapter.getMarkerClass().equals(marker.getClass())) {
-                    if (adapter.prepareViewForReuse(marker, viewHolder)) {
-                        // reset offset for reuse
-                        marker.setOffset(-1, -1);
-                        adapter.releaseView(viewHolder);
-                    }
+        removeMarkerViews(Collections.singletonList(marker));
+    }
+
+    /**
+     * Removes multiple MarkerViews from the map, releasing their Views to the reuse pool of their adapters.
+     * <p>
+     * The adapters of each MarkerView class are looked up once for all MarkerViews of that class.
+     * </p>
+     *
+     * @param markers the MarkerViews to remove
+     */
+    public void removeMarkerViews(@NonNull List<MarkerView> markers) {
+        Map<Class<?>, List<MapboxMap.MarkerViewAdapter<?>>> adaptersByClass = new HashMap<>();
+        for (MarkerView marker : markers) {
+            final View viewHolder = markerViewMap.remove(marker);
+            if (viewHolder == null || marker == null) {
+                continue;
+            }
+
+            List<MapboxMap.MarkerViewAdapter<?>> adapters = adaptersByClass.get(marker.getClass());
+            if (adapters == null) {
+                adapters = getMarkerViewAdapters(marker.getClass());
+                adaptersByClass.put(marker.getClass(), adapters);
+            }
+            for (MapboxMap.MarkerViewAdapter<?> adapter : adapters) {
+                if (adapter.prepareViewForReuse(marker, viewHolder)) {
+                    // reset offset for reuse
+                    marker.setOffset(-1, -1);
+                    adapter.releaseView(viewHolder);
                 }
             }
         }
-        markerViewMap.remove(marker);
+    }
+
+    private List<MapboxMap.MarkerViewAdapter<?>> getMarkerViewAdapters(Class<?> markerClass) {
+        List<MapboxMap.MarkerViewAdapter<?>> adapters = new ArrayList<>(1);
+        for (MapboxMap.MarkerViewAdapter<?> adapter : markerViewAdapters) {
+            if (adapter.getMarkerClass().equals(markerClass)) {
+                adapters.add(adapter);
+            }
+        }
+        return adapters;
     }
 
     /**
@@ -345,6 +419,30 @@ public class MarkerViewManager {
         onMarkerViewClickListener = listener;
     }
 
+    /**
+     * Set the margin around the map view in which MarkerViews are kept.
+     * <p>
+     * Only MarkerViews positioned in the viewport get an Android View. A margin also inflates
+     * views for MarkerViews just outside of it, so that views larger than their anchor don't
+     * pop in at the edges and panning back doesn't rebind them. Defaults to 0.
+     * </p>
+     *
+     * @param margin the margin in pixels
+     */
+    public void setVisibleRegionMargin(float margin) {
+        visibleRegionMargin = Math.max(0, margin);
+        invalidateViewMarkersInVisibleRegion();
+    }
+
+    /**
+     * Get the margin around the map view in which MarkerViews are kept.
+     *
+     * @return the margin in pixels
+     */
+    public float getVisibleRegionMargin() {
+        return visibleRegionMargin;
+    }
+
     /**
      * Schedule that ViewMarkers found in the viewport are invalidated.
      * <p>
@@ -367,19 +465,21 @@ public class MarkerViewManager {
      * Invalidate the ViewMarkers found in the viewport.
      * <p>
      * This method will remove any markers that aren't in the viewport any more and will add new
-     * ones for each found Marker in the changed viewport.
+     * ones for each found Marker in the changed viewport, extended by the visible region margin.
      * </p>
      */
     public void invalidateViewMarkersInVisibleRegion() {
-        RectF mapViewRect = new RectF(0, 0, mapView.getWidth(), mapView.getHeight());
+        RectF mapViewRect = new RectF(-visibleRegionMargin, -visibleRegionMargin,
+                mapView.getWidth() + visibleRegionMargin, mapView.getHeight() + visibleRegionMargin);
         List<MarkerView> markers = mapView.getMarkerViewsInRect(mapViewRect);
+        Set<MarkerView> visibleMarkers = new HashSet<>(markers);
         View convertView;
 
         // remove old markers
         Iterator<MarkerView> iterator = markerViewMap.keySet().iterator();
         while (iterator.hasNext()) {
             MarkerView m = iterator.next();
-            if (!markers.contains(m)) {
+            if (!visibleMarkers.contains(m)) {
                 // remove marker
                 convertView = markerViewMap.get(m);
                 for (MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
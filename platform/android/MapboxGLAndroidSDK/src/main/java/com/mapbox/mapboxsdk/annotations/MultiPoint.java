@@ -12,6 +12,7 @@ public abstract class MultiPoint extends Annotation {
 
     private List<LatLng> points;
     private float alpha = 1.0f;
+    private float simplifyTolerance;
 
     protected MultiPoint() {
         super();
@@ -53,5 +54,26 @@ public abstract class MultiPoint extends Annotation {
         update();
     }
 
+    /**
+     * Returns the tolerance used to simplify the points before they are drawn.
+     *
+     * @return the tolerance in density-independent pixels, 0 if the points are drawn as is
+     */
+    public float getSimplifyTolerance() {
+        return simplifyTolerance;
+    }
+
+    /**
+     * Sets the tolerance used to simplify the points before they are drawn. Points that deviate less
+     * than the tolerance from the simplified shape at the current zoom level are left out, the shape
+     * is simplified again as the zoom level changes.
+     *
+     * @param tolerance the tolerance in density-independent pixels, 0 to draw the points as is
+     */
+    public void setSimplifyTolerance(float tolerance) {
+        this.simplifyTolerance = tolerance;
+        update();
+    }
+
     abstract void update();
 }
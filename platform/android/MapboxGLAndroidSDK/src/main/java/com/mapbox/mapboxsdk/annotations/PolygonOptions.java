@@ -33,6 +33,7 @@ public final class PolygonOptions implements Parcelable {
         alpha(in.readFloat());
         fillColor(in.readInt());
         strokeColor(in.readInt());
+        simplify(in.readFloat());
     }
 
     @Override
@@ -46,6 +47,7 @@ public final class PolygonOptions implements Parcelable {
         out.writeFloat(getAlpha());
         out.writeInt(getFillColor());
         out.writeInt(getStrokeColor());
+        out.writeFloat(getSimplifyTolerance());
     }
 
     private Polygon polygon;
@@ -121,6 +123,23 @@ public final class PolygonOptions implements Parcelable {
         return polygon.getStrokeColor();
     }
 
+    /**
+     * Simplifies the polygon before it is drawn, leaving out points that deviate less than the tolerance
+     * from the simplified shape at the current zoom level. Use this for shapes with many points, such as
+     * traced boundaries.
+     *
+     * @param tolerance the tolerance in density-independent pixels, 0 to draw the points as is
+     * @return PolygonOptions The builder used to build a Polygon
+     */
+    public PolygonOptions simplify(float tolerance) {
+        polygon.setSimplifyTolerance(tolerance);
+        return this;
+    }
+
+    public float getSimplifyTolerance() {
+        return polygon.getSimplifyTolerance();
+    }
+
     public List<LatLng> getPoints() {
         // the getter gives us a copy, which is the safe thing to do...
         return polygon.getPoints();
@@ -134,6 +153,7 @@ public final class PolygonOptions implements Parcelable {
         PolygonOptions polygon = (PolygonOptions) o;
 
         if (Float.compare(polygon.getAlpha(), getAlpha()) != 0) return false;
+        if (Float.compare(polygon.getSimplifyTolerance(), getSimplifyTolerance()) != 0) return false;
         if (getFillColor() != polygon.getFillColor()) return false;
         if (getStrokeColor() != polygon.getStrokeColor()) return false;
         return !(getPoints() != null ? !getPoints().equals(polygon.getPoints()) : polygon.getPoints() != null);
@@ -145,6 +165,7 @@ public final class PolygonOptions implements Parcelable {
         result = 31 * result + (getAlpha() != +0.0f ? Float.floatToIntBits(getAlpha()) : 0);
         result = 31 * result + getFillColor();
         result = 31 * result + getStrokeColor();
+        result = 31 * result + (getSimplifyTolerance() != +0.0f ? Float.floatToIntBits(getSimplifyTolerance()) : 0);
         result = 31 * result + (getPoints() != null ? getPoints().hashCode() : 0);
         return result;
     }
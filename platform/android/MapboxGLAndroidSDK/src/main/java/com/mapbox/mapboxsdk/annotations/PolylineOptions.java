@@ -33,6 +33,7 @@ public final class PolylineOptions implements Parcelable {
         alpha(in.readFloat());
         color(in.readInt());
         width(in.readFloat());
+        simplify(in.readFloat());
     }
 
     @Override
@@ -46,6 +47,7 @@ public final class PolylineOptions implements Parcelable {
         out.writeFloat(getAlpha());
         out.writeInt(getColor());
         out.writeFloat(getWidth());
+        out.writeFloat(getSimplifyTolerance());
     }
 
     private Polyline polyline;
@@ -120,6 +122,23 @@ public final class PolylineOptions implements Parcelable {
         return this;
     }
 
+    /**
+     * Simplifies the polyline before it is drawn, leaving out points that deviate less than the tolerance
+     * from the simplified shape at the current zoom level. Use this for shapes with many points, such as
+     * recorded tracks.
+     *
+     * @param tolerance the tolerance in density-independent pixels, 0 to draw the points as is
+     * @return PolylineOptions The builder used to build a Polyline
+     */
+    public PolylineOptions simplify(float tolerance) {
+        polyline.setSimplifyTolerance(tolerance);
+        return this;
+    }
+
+    public float getSimplifyTolerance() {
+        return polyline.getSimplifyTolerance();
+    }
+
     public List<LatLng> getPoints() {
         // the getter gives us a copy, which is the safe thing to do...
         return polyline.getPoints();
@@ -133,6 +152,7 @@ public final class PolylineOptions implements Parcelable {
         PolylineOptions polyline = (PolylineOptions) o;
 
         if (Float.compare(polyline.getAlpha(), getAlpha()) != 0) return false;
+        if (Float.compare(polyline.getSimplifyTolerance(), getSimplifyTolerance()) != 0) return false;
         if (getColor() != polyline.getColor()) return false;
         if (Float.compare(polyline.getWidth(), getWidth()) != 0) return false;
         return !(getPoints() != null ? !getPoints().equals(polyline.getPoints()) : polyline.getPoints() != null);
@@ -144,6 +164,7 @@ public final class PolylineOptions implements Parcelable {
         result = 31 * result + (getAlpha() != +0.0f ? Float.floatToIntBits(getAlpha()) : 0);
         result = 31 * result + getColor();
         result = 31 * result + (getWidth() != +0.0f ? Float.floatToIntBits(getWidth()) : 0);
+        result = 31 * result + (getSimplifyTolerance() != +0.0f ? Float.floatToIntBits(getSimplifyTolerance()) : 0);
         result = 31 * result + (getPoints() != null ? getPoints().hashCode() : 0);
         return result;
     }
@@ -9,9 +9,11 @@ import com.mapbox.mapboxsdk.maps.MapView;
 /**
  * <p>
  * A {@code IconBitmapChangedException} is thrown by {@link MapView} when a {@link Marker} is added
- * that has a {@link Icon} with a {@link Bitmap} that has been modified since the creation of the Icon.
+ * that has a {@link Icon} with a {@link Bitmap} that has been modified since the creation of the Icon,
+ * or whose Bitmap has a different size than the one of an Icon with the same id added before.
  * </p>
- * You cannot modify a {@code Icon} after it has been added to the map in a {@code Marker}
+ * You cannot modify a {@code Icon} after it has been added to the map in a {@code Marker}. An Icon that
+ * replaces the image of an id must keep its size.
  *
  * @see MapView
  * @see Icon
@@ -24,4 +26,10 @@ public class IconBitmapChangedException extends RuntimeException {
                 "after it has been added to the map in a Marker.");
     }
 
+    public IconBitmapChangedException(String iconId, int width, int height, int newWidth, int newHeight) {
+        super("The added Marker has an Icon with id " + iconId + " and a " + newWidth + "x" + newHeight
+                + " bitmap, but that id was added with a " + width + "x" + height + " bitmap. An Icon replacing"
+                + " the bitmap of an id must keep its size.");
+    }
+
 }
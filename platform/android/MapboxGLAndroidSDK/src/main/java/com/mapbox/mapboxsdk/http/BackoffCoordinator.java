@@ -0,0 +1,131 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.internal.http.HttpDate;
+
+/**
+ * Tracks hosts that answered with 429 Too Many Requests and until when no further
+ * requests should be sent to them.
+ * <p>
+ * The pause is taken from the Retry-After header, either delay seconds or an HTTP date,
+ * or from the x-rate-limit-reset header, an epoch time in seconds. A pause is only ever
+ * extended, never shortened by a later response.
+ * </p>
+ */
+class BackoffCoordinator {
+
+    static final long DEFAULT_BACKOFF = TimeUnit.SECONDS.toMillis(5);
+
+    // host to System.nanoTime() deadline
+    private final Map<String, Long> pausedUntil = new HashMap<>();
+    private long rateLimitedCount;
+    private long deferredCount;
+
+    /**
+     * Pauses a host after a 429 response.
+     *
+     * @param host  the rate limited host
+     * @param delay the pause in milliseconds
+     * @param now   the current System.nanoTime()
+     * @return the System.nanoTime() at which the host is available again
+     */
+    synchronized long pause(@NonNull String host, long delay, long now) {
+        rateLimitedCount++;
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay));
+        Long current = pausedUntil.get(host);
+        if (current != null && current - deadline > 0) {
+            return current;
+        }
+        pausedUntil.put(host, deadline);
+        return deadline;
+    }
+
+    synchronized boolean isPaused(@NonNull String host, long now) {
+        Long deadline = pausedUntil.get(host);
+        if (deadline == null) {
+            return false;
+        }
+        if (now - deadline >= 0) {
+            pausedUntil.remove(host);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if any host is paused, expired pauses are dropped.
+     *
+     * @param now the current System.nanoTime()
+     * @return true if a host is paused
+     */
+    synchronized boolean hasPausedHosts(long now) {
+        Iterator<Long> deadlines = pausedUntil.values().iterator();
+        while (deadlines.hasNext()) {
+            if (now - deadlines.next() >= 0) {
+                deadlines.remove();
+            }
+        }
+        return !pausedUntil.isEmpty();
+    }
+
+    synchronized void recordDeferred() {
+        deferredCount++;
+    }
+
+    /**
+     * Returns the amount of 429 responses received.
+     *
+     * @return the rate limited response count
+     */
+    synchronized long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    /**
+     * Returns the amount of requests that were held back because their host was paused,
+     * each of which would likely have been answered with 429 as well.
+     *
+     * @return the deferred request count
+     */
+    synchronized long getDeferredCount() {
+        return deferredCount;
+    }
+
+    /**
+     * Parses the pause a rate limited response asks for.
+     *
+     * @param retryAfter     the Retry-After header
+     * @param rateLimitReset the x-rate-limit-reset header
+     * @param now            the current System.currentTimeMillis()
+     * @return the pause in milliseconds
+     */
+    static long parseDelay(@Nullable String retryAfter, @Nullable String rateLimitReset, long now) {
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                Date date = HttpDate.parse(retryAfter);
+                if (date != null) {
+                    return Math.max(0, date.getTime() - now);
+                }
+            }
+        }
+
+        if (rateLimitReset != null) {
+            try {
+                return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(rateLimitReset.trim())) - now);
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+        }
+        return DEFAULT_BACKOFF;
+    }
+}
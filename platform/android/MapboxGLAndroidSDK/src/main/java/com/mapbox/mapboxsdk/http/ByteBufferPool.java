@@ -0,0 +1,107 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct ByteBuffers used to hand response bodies to native code without copying
+ * them into a Java heap array first.
+ * <p>
+ * Buffers are bucketed by power of two capacity. Bodies larger than the biggest bucket get
+ * an unpooled buffer that is left to the garbage collector once released.
+ * </p>
+ */
+class ByteBufferPool {
+
+    // 1 KB .. 1 MB
+    private static final int MIN_BUCKET_SHIFT = 10;
+    private static final int MAX_BUCKET_SHIFT = 20;
+
+    private final ArrayDeque<ByteBuffer>[] buckets;
+    private final long maxPooledBytes;
+    private long pooledBytes;
+
+    @SuppressWarnings("unchecked")
+    ByteBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.buckets = new ArrayDeque[MAX_BUCKET_SHIFT - MIN_BUCKET_SHIFT + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns a cleared direct buffer with a capacity of at least minCapacity.
+     *
+     * @param minCapacity the minimum capacity
+     * @return a direct buffer
+     */
+    ByteBuffer acquire(int minCapacity) {
+        int bucket = bucketFor(minCapacity);
+        if (bucket < 0) {
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+
+        synchronized (this) {
+            ByteBuffer buffer = buckets[bucket].pollFirst();
+            if (buffer != null) {
+                pooledBytes -= buffer.capacity();
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(1 << (bucket + MIN_BUCKET_SHIFT));
+    }
+
+    /**
+     * Returns a buffer to the pool, the caller must not use it afterwards.
+     *
+     * @param buffer the buffer to release
+     */
+    void release(@NonNull ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int bucket = bucketFor(capacity);
+        if (bucket < 0 || capacity != 1 << (bucket + MIN_BUCKET_SHIFT)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pooledBytes + capacity <= maxPooledBytes) {
+                buckets[bucket].addFirst(buffer);
+                pooledBytes += capacity;
+            }
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of source into a buffer of at least twice its capacity,
+     * releasing source.
+     *
+     * @param source the buffer to grow, in write mode
+     * @return a larger buffer in write mode containing the contents of source
+     */
+    ByteBuffer grow(@NonNull ByteBuffer source) {
+        ByteBuffer target = acquire(Math.max(source.capacity() * 2, 1 << MIN_BUCKET_SHIFT));
+        source.flip();
+        target.put(source);
+        release(source);
+        return target;
+    }
+
+    synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    private static int bucketFor(int capacity) {
+        int shift = MIN_BUCKET_SHIFT;
+        while (shift <= MAX_BUCKET_SHIFT) {
+            if (capacity <= 1 << shift) {
+                return shift - MIN_BUCKET_SHIFT;
+            }
+            shift++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * Shares a single network fetch between all HTTPRequest peers that ask for the same
+ * resource while a previous request for it is still in flight.
+ */
+class CallCoalescer {
+
+    private final Map<String, SharedCall> calls = new HashMap<>();
+    private final RequestScheduler scheduler;
+
+    CallCoalescer(@NonNull RequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Attaches a peer to the in-flight call for key, or schedules a new call if there is none.
+     *
+     * @param client   the client used to execute a new call
+     * @param key      the coalescing key, see {@link #key(Request)}
+     * @param request  the request to execute if no call is in flight
+     * @param peer     the peer that will receive the result
+     * @param kind     the resource kind, used for metrics
+     * @param priority the priority class of the peer
+     * @return the call the peer is attached to
+     */
+    SharedCall join(@NonNull OkHttpClient client, @NonNull String key, @NonNull Request request,
+                    @NonNull HTTPRequest peer, int kind, int priority) {
+        SharedCall call;
+        boolean created = false;
+        synchronized (this) {
+            call = calls.get(key);
+            if (call == null) {
+                call = new SharedCall(this, scheduler, client, key, request, kind, priority);
+                calls.put(key, call);
+                created = true;
+            }
+            call.addPeer(peer);
+        }
+
+        if (created) {
+            scheduler.submit(call);
+        } else {
+            // a call shared with more important peers must not wait behind its original class
+            scheduler.promote(call, priority);
+        }
+        return call;
+    }
+
+    /**
+     * Detaches a call that has completed or was cancelled, later joiners start a new call.
+     *
+     * @param call the call to detach
+     */
+    synchronized void remove(@NonNull SharedCall call) {
+        if (calls.get(call.getKey()) == call) {
+            calls.remove(call.getKey());
+        }
+    }
+
+    /**
+     * Get the amount of distinct calls currently in flight
+     *
+     * @return the amount of in-flight calls
+     */
+    synchronized int size() {
+        return calls.size();
+    }
+
+    /**
+     * Builds the coalescing key for a request. Conditional headers are part of the key
+     * because they change the response the server sends.
+     *
+     * @param request the request
+     * @return the coalescing key
+     */
+    static String key(@NonNull Request request) {
+        StringBuilder builder = new StringBuilder(String.valueOf(request.tag()));
+        String etag = request.header("If-None-Match");
+        if (etag != null) {
+            builder.append("\nIf-None-Match: ").append(etag);
+        }
+        String modified = request.header("If-Modified-Since");
+        if (modified != null) {
+            builder.append("\nIf-Modified-Since: ").append(modified);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The default {@link NetworkPolicy}.
+ * <p>
+ * Keeps high density tiles unless the link is poor, narrows non-visible requests to half
+ * of the slots on moderate links and a quarter on poor or metered links, and defers them
+ * behind the viewport on poor or metered links.
+ * </p>
+ */
+public class DefaultNetworkPolicy implements NetworkPolicy {
+
+    @Override
+    public boolean useHighDensityTiles(@NonNull NetworkQuality quality) {
+        return quality.getQualityClass() != NetworkQuality.QUALITY_POOR;
+    }
+
+    @Override
+    public int getNonVisibleRequestLimit(@NonNull NetworkQuality quality, int maxRequests) {
+        int limit = maxRequests;
+        switch (quality.getQualityClass()) {
+            case NetworkQuality.QUALITY_POOR:
+                limit = maxRequests / 4;
+                break;
+            case NetworkQuality.QUALITY_MODERATE:
+                limit = maxRequests / 2;
+                break;
+        }
+        if (quality.isMetered()) {
+            limit = Math.min(limit, maxRequests / 4);
+        }
+        return Math.max(1, limit);
+    }
+
+    @Override
+    public boolean deferNonVisibleRequests(@NonNull NetworkQuality quality) {
+        return quality.isMetered() || quality.getQualityClass() == NetworkQuality.QUALITY_POOR;
+    }
+}
@@ -4,34 +4,29 @@ package com.mapbox.mapboxsdk.http;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.os.Build;
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.mapbox.mapboxsdk.BuildConfig;
 import com.mapbox.mapboxsdk.MapboxAccountManager;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 
-import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.NoRouteToHostException;
 import java.net.ProtocolException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
 
 import javax.net.ssl.SSLException;
 
-import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.internal.Util;
 
-class HTTPRequest implements Callback {
+class HTTPRequest extends PeerLifecycle {
 
-    private static OkHttpClient mClient = new OkHttpClient();
     private static final String LOG_TAG = HTTPRequest.class.getName();
     private String USER_AGENT_STRING = null;
 
@@ -39,115 +34,132 @@ class HTTPRequest implements Callback {
     private static final int TEMPORARY_ERROR = 1;
     private static final int PERMANENT_ERROR = 2;
 
-    // Reentrancy is not needed, but "Lock" is an
-    // abstract class.
-    private ReentrantLock mLock = new ReentrantLock();
+    // low density substitutes are cached briefly so the @2x tile is fetched once the link recovers
+    private static final String LOW_DENSITY_CACHE_CONTROL = "max-age=300";
 
     private long mNativePtr = 0;
 
-    private Call mCall;
-    private Request mRequest;
+    private final Receiver mReceiver;
+    private SharedCall mCall;
+    private boolean mLowDensity;
 
     private native void nativeOnFailure(int type, String message);
 
-    private native void nativeOnResponse(int code, String etag, String modified, String cacheControl, String expires, String retryAfter, String xRateLimitReset, byte[] body);
+    private native void nativeOnResponse(int code, String etag, String modified, String cacheControl, String expires, String retryAfter, String xRateLimitReset, ByteBuffer body, int bodyLength);
 
-    private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified) {
+    private static native ByteBuffer nativeAllocateBody(int length);
+
+    private static native void nativeReleaseBody(ByteBuffer body);
+
+    private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified, int kind, int priority,
+                        int pixelRatio) {
         mNativePtr = nativePtr;
+        mReceiver = new NativeReceiver();
 
         try {
-            // Don't try a request if we aren't connected
-            if (!MapboxAccountManager.getInstance().isConnected()) {
-                throw new NoRouteToHostException("No Internet connection available.");
-            }
+            HttpClientManager manager = HttpClientManager.getInstance();
+            send(manager.getClient(), manager.getCoalescer(), resourceUrl, etag, modified, kind, priority,
+                    isLowDensity(kind, priority, pixelRatio, manager.useHighDensityTiles()));
+        } catch (Exception e) {
+            onFailure(e);
+        }
+    }
 
-            HttpUrl httpUrl = HttpUrl.parse(resourceUrl);
-            final String host = httpUrl.host().toLowerCase(MapboxConstants.MAPBOX_LOCALE);
-            if (host.equals("mapbox.com") || host.endsWith(".mapbox.com") || host.equals("mapbox.cn") || host.endsWith(".mapbox.cn")) {
-                if (httpUrl.querySize() == 0) {
-                    resourceUrl = resourceUrl + "?";
-                } else {
-                    resourceUrl = resourceUrl + "&";
-                }
-                resourceUrl = resourceUrl + "events=true";
+    /**
+     * Creates a request that delivers its outcome to receiver instead of a native peer.
+     *
+     * @param receiver the receiver of the response or failure
+     */
+    HTTPRequest(Receiver receiver) {
+        mReceiver = receiver;
+    }
+
+    /**
+     * Builds the network request and attaches this peer to the shared call for it.
+     *
+     * @param client     the client used if a new call has to be made
+     * @param coalescer  the coalescer tracking in-flight calls
+     * @param lowDensity true to request the @1x variant of a @2x tile
+     */
+    void send(OkHttpClient client, CallCoalescer coalescer, String resourceUrl, String etag, String modified,
+              int kind, int priority, boolean lowDensity) {
+        if (lowDensity) {
+            String lowDensityUrl = toLowDensityUrl(resourceUrl);
+            if (lowDensityUrl != null) {
+                resourceUrl = lowDensityUrl;
+                mLowDensity = true;
             }
+        }
 
-            Request.Builder builder = new Request.Builder()
-                    .url(resourceUrl)
-                    .tag(resourceUrl.toLowerCase(MapboxConstants.MAPBOX_LOCALE))
-                    .addHeader("User-Agent", getUserAgent());
-            if (etag.length() > 0) {
-                builder = builder.addHeader("If-None-Match", etag);
-            } else if (modified.length() > 0) {
-                builder = builder.addHeader("If-Modified-Since", modified);
+        // While offline the scheduler parks the request until connectivity returns
+        HttpUrl httpUrl = HttpUrl.parse(resourceUrl);
+        final String host = httpUrl.host().toLowerCase(MapboxConstants.MAPBOX_LOCALE);
+        if (host.equals("mapbox.com") || host.endsWith(".mapbox.com") || host.equals("mapbox.cn") || host.endsWith(".mapbox.cn")) {
+            if (httpUrl.querySize() == 0) {
+                resourceUrl = resourceUrl + "?";
+            } else {
+                resourceUrl = resourceUrl + "&";
             }
-            mRequest = builder.build();
-            mCall = mClient.newCall(mRequest);
-            mCall.enqueue(this);
-        } catch (Exception e) {
-            onFailure(e);
+            resourceUrl = resourceUrl + "events=true";
         }
+
+        Request.Builder builder = new Request.Builder()
+                .url(resourceUrl)
+                .tag(resourceUrl.toLowerCase(MapboxConstants.MAPBOX_LOCALE))
+                .addHeader("User-Agent", getUserAgent());
+        if (etag.length() > 0) {
+            builder = builder.addHeader("If-None-Match", etag);
+        } else if (modified.length() > 0) {
+            builder = builder.addHeader("If-Modified-Since", modified);
+        }
+        Request request = builder.build();
+        mCall = coalescer.join(client, CallCoalescer.key(request), request, this,
+                kind, RequestScheduler.clampPriority(priority));
     }
 
     public void cancel() {
         // mCall can be null if the constructor gets aborted (e.g, under a NoRouteToHostException).
+        // Other peers may still be waiting on the same call, so only detach from it.
         if (mCall != null) {
-            mCall.cancel();
+            mCall.removePeer(this);
         }
 
-        // TODO: We need a lock here because we can try
-        // to cancel at the same time the request is getting
-        // answered on the OkHTTP thread. We could get rid of
-        // this lock by using Runnable when we move Android
-        // implementation of mbgl::RunLoop to Looper.
-        mLock.lock();
+        // We can try to cancel at the same time the request is getting answered on the
+        // OkHTTP thread. Closing waits for such a delivery, the native peer is freed
+        // as soon as we return.
+        close();
         mNativePtr = 0;
-        mLock.unlock();
     }
 
-    @Override
-    public void onResponse(Call call, Response response) throws IOException {
-        if (response.isSuccessful()) {
-            Log.v(LOG_TAG, String.format("[HTTP] Request was successful (code = %d).", response.code()));
-        } else {
-            // We don't want to call this unsuccessful because a 304 isn't really an error
-            String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
-            Log.d(LOG_TAG, String.format(
-                    "[HTTP] Request with response code = %d: %s",
-                    response.code(), message));
-        }
+    Receiver getReceiver() {
+        return mReceiver;
+    }
 
-        byte[] body;
-        try {
-            body = response.body().bytes();
-        } catch (IOException e) {
-            onFailure(e);
-            //throw e;
+    /**
+     * Delivers a response to native. body is a direct buffer that is only valid for the
+     * duration of this call, native keeps bodies it allocated and copies any other.
+     */
+    void onResponse(Response response, ByteBuffer body) {
+        if (!beginDelivery()) {
             return;
-        } finally {
-            response.body().close();
         }
 
-        mLock.lock();
-        if (mNativePtr != 0) {
-            nativeOnResponse(response.code(),
+        try {
+            mReceiver.onResponse(response.code(),
                     response.header("ETag"),
                     response.header("Last-Modified"),
-                    response.header("Cache-Control"),
-                    response.header("Expires"),
+                    mLowDensity ? LOW_DENSITY_CACHE_CONTROL : response.header("Cache-Control"),
+                    mLowDensity ? null : response.header("Expires"),
                     response.header("Retry-After"),
                     response.header("x-rate-limit-reset"),
-                    body);
+                    body,
+                    body.limit());
+        } finally {
+            endDelivery();
         }
-        mLock.unlock();
     }
 
-    @Override
-    public void onFailure(Call call, IOException e) {
-        onFailure(e);
-    }
-
-    private void onFailure(Exception e) {
+    void onFailure(Exception e) {
         int type = PERMANENT_ERROR;
         if ((e instanceof NoRouteToHostException) || (e instanceof UnknownHostException) || (e instanceof SocketException) || (e instanceof ProtocolException) || (e instanceof SSLException)) {
             type = CONNECTION_ERROR;
@@ -169,11 +181,101 @@ class HTTPRequest implements Callback {
                 "Request failed due to a permanent error: %s", errorMessage));
         }
 
-        mLock.lock();
-        if (mNativePtr != 0) {
-            nativeOnFailure(type, errorMessage);
+        if (!beginDelivery()) {
+            return;
+        }
+
+        try {
+            mReceiver.onFailure(type, errorMessage);
+        } finally {
+            endDelivery();
+        }
+    }
+
+    /**
+     * Returns whether a request should fetch the @1x variant of a @2x tile. Offline downloads always
+     * fetch what they ask for, their tiles are stored under the requested URL and shown later.
+     *
+     * @param kind                the resource kind
+     * @param priority            the priority class of the request
+     * @param pixelRatio          the pixel ratio the resource is requested at
+     * @param useHighDensityTiles true if the network policy allows high density tiles
+     * @return true to request the @1x variant
+     */
+    static boolean isLowDensity(int kind, int priority, int pixelRatio, boolean useHighDensityTiles) {
+        return kind == MapboxHttpMetrics.KIND_TILE && pixelRatio > 1 && !useHighDensityTiles
+                && RequestScheduler.clampPriority(priority) != RequestScheduler.PRIORITY_OFFLINE;
+    }
+
+    /**
+     * Rewrites a high density tile URL to its @1x variant, for example .../1/2/3@2x.png to .../1/2/3.png.
+     *
+     * @param url the tile URL
+     * @return the low density URL, or null if the URL has no @2x suffix in its last path segment
+     */
+    static String toLowDensityUrl(String url) {
+        int query = url.indexOf('?');
+        int end = query == -1 ? url.length() : query;
+        int segment = url.lastIndexOf('/', end - 1);
+        int ratio = url.lastIndexOf("@2x.", end);
+        if (ratio == -1 || ratio <= segment) {
+            return null;
+        }
+        return url.substring(0, ratio) + url.substring(ratio + "@2x".length());
+    }
+
+    /**
+     * Receives the outcome of a request. Invoked at most once, while a delivery is in progress.
+     */
+    interface Receiver {
+
+        /**
+         * Allocates a direct buffer the receiver keeps as response data without copying it.
+         *
+         * @param length the exact body length
+         * @return a buffer with a capacity of length, or null to have the body read into a pooled buffer
+         */
+        ByteBuffer allocateBody(int length);
+
+        /**
+         * Releases a buffer returned by {@link #allocateBody(int)} once every peer has been served.
+         *
+         * @param body the buffer to release
+         */
+        void releaseBody(ByteBuffer body);
+
+        /**
+         * @param body a direct buffer that is only valid for the duration of this call
+         */
+        void onResponse(int code, String etag, String modified, String cacheControl, String expires,
+                        String retryAfter, String xRateLimitReset, ByteBuffer body, int bodyLength);
+
+        void onFailure(int type, String message);
+    }
+
+    private class NativeReceiver implements Receiver {
+
+        @Override
+        public ByteBuffer allocateBody(int length) {
+            return nativeAllocateBody(length);
+        }
+
+        @Override
+        public void releaseBody(ByteBuffer body) {
+            nativeReleaseBody(body);
+        }
+
+        @Override
+        public void onResponse(int code, String etag, String modified, String cacheControl, String expires,
+                               String retryAfter, String xRateLimitReset, ByteBuffer body, int bodyLength) {
+            nativeOnResponse(code, etag, modified, cacheControl, expires, retryAfter, xRateLimitReset, body,
+                    bodyLength);
+        }
+
+        @Override
+        public void onFailure(int type, String message) {
+            nativeOnFailure(type, message);
         }
-        mLock.unlock();
     }
 
     private String getUserAgent() {
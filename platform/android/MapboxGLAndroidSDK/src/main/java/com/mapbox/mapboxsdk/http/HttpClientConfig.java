@@ -0,0 +1,281 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.MapboxAccountManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the HTTP client used to load tiles, styles, sprites and glyphs.
+ * <p>
+ * Pass an instance to {@link MapboxAccountManager#start(android.content.Context, String, HttpClientConfig)}
+ * to tune connection pooling, request concurrency, timeouts and protocol selection.
+ * The maximum number of concurrent requests is shared with the native file source, so
+ * both sides of the SDK always agree on how many requests may be in flight.
+ * </p>
+ */
+public class HttpClientConfig {
+
+    /**
+     * Default maximum number of requests executed concurrently.
+     */
+    public static final int DEFAULT_MAX_REQUESTS = 20;
+
+    /**
+     * Default maximum number of requests executed concurrently against a single host.
+     */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 20;
+
+    /**
+     * Default maximum number of idle connections kept in the connection pool.
+     */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+    /**
+     * Default time in milliseconds an idle connection is kept alive.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_DURATION = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Default connect, read and write timeout in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final long keepAliveDuration;
+    private final long connectTimeout;
+    private final long readTimeout;
+    private final long writeTimeout;
+    private final boolean http2Enabled;
+
+    private HttpClientConfig(Builder builder) {
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = Math.min(builder.maxRequestsPerHost, builder.maxRequests);
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAliveDuration = builder.keepAliveDuration;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.writeTimeout = builder.writeTimeout;
+        this.http2Enabled = builder.http2Enabled;
+    }
+
+    /**
+     * Returns the maximum number of requests executed concurrently.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Returns the maximum number of requests executed concurrently against a single host.
+     *
+     * @return the maximum number of concurrent requests per host
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Returns the maximum number of idle connections kept in the connection pool.
+     *
+     * @return the maximum number of idle connections
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Returns the time in milliseconds an idle connection is kept alive.
+     *
+     * @return the keep alive duration in milliseconds
+     */
+    public long getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    /**
+     * Returns the connect timeout in milliseconds.
+     *
+     * @return the connect timeout in milliseconds
+     */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the read timeout in milliseconds.
+     *
+     * @return the read timeout in milliseconds
+     */
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Returns the write timeout in milliseconds.
+     *
+     * @return the write timeout in milliseconds
+     */
+    public long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    /**
+     * Returns true if HTTP/2 may be negotiated with hosts that support it.
+     *
+     * @return true if HTTP/2 is enabled
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientConfig [maxRequests=" + maxRequests
+                + ", maxRequestsPerHost=" + maxRequestsPerHost
+                + ", maxIdleConnections=" + maxIdleConnections
+                + ", keepAliveDuration=" + keepAliveDuration
+                + ", connectTimeout=" + connectTimeout
+                + ", readTimeout=" + readTimeout
+                + ", writeTimeout=" + writeTimeout
+                + ", http2Enabled=" + http2Enabled + "]";
+    }
+
+    /**
+     * Builder for composing HttpClientConfig objects.
+     */
+    public static final class Builder {
+
+        private int maxRequests = DEFAULT_MAX_REQUESTS;
+        private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+        private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+        private long keepAliveDuration = DEFAULT_KEEP_ALIVE_DURATION;
+        private long connectTimeout = DEFAULT_TIMEOUT;
+        private long readTimeout = DEFAULT_TIMEOUT;
+        private long writeTimeout = DEFAULT_TIMEOUT;
+        private boolean http2Enabled = true;
+
+        public Builder() {
+        }
+
+        /**
+         * Sets the maximum number of requests executed concurrently.
+         * This value is also used as the native file source concurrency cap.
+         *
+         * @param maxRequests the maximum number of concurrent requests, must be at least 1
+         * @return this
+         */
+        public Builder maxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+            }
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests executed concurrently against a single host.
+         * Values above {@link #maxRequests(int)} are capped to it.
+         *
+         * @param maxRequestsPerHost the maximum number of concurrent requests per host, must be at least 1
+         * @return this
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of idle connections kept in the connection pool.
+         *
+         * @param maxIdleConnections the maximum number of idle connections
+         * @return this
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections < 0: " + maxIdleConnections);
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets the time an idle connection is kept alive.
+         *
+         * @param duration the keep alive duration
+         * @param unit     the unit of duration
+         * @return this
+         */
+        public Builder keepAliveDuration(long duration, @NonNull TimeUnit unit) {
+            this.keepAliveDuration = toMillis("keepAliveDuration", duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout, 0 means no timeout.
+         *
+         * @param timeout the connect timeout
+         * @param unit    the unit of timeout
+         * @return this
+         */
+        public Builder connectTimeout(long timeout, @NonNull TimeUnit unit) {
+            this.connectTimeout = toMillis("connectTimeout", timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets the read timeout, 0 means no timeout.
+         *
+         * @param timeout the read timeout
+         * @param unit    the unit of timeout
+         * @return this
+         */
+        public Builder readTimeout(long timeout, @NonNull TimeUnit unit) {
+            this.readTimeout = toMillis("readTimeout", timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets the write timeout, 0 means no timeout.
+         *
+         * @param timeout the write timeout
+         * @param unit    the unit of timeout
+         * @return this
+         */
+        public Builder writeTimeout(long timeout, @NonNull TimeUnit unit) {
+            this.writeTimeout = toMillis("writeTimeout", timeout, unit);
+            return this;
+        }
+
+        /**
+         * Enables or disables HTTP/2. When enabled, requests to the same host are multiplexed
+         * over a single connection if the host supports it.
+         *
+         * @param http2Enabled true to allow HTTP/2
+         * @return this
+         */
+        public Builder http2Enabled(boolean http2Enabled) {
+            this.http2Enabled = http2Enabled;
+            return this;
+        }
+
+        public HttpClientConfig build() {
+            return new HttpClientConfig(this);
+        }
+
+        private static long toMillis(String name, long value, TimeUnit unit) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " < 0: " + value);
+            }
+            return unit.toMillis(value);
+        }
+    }
+}
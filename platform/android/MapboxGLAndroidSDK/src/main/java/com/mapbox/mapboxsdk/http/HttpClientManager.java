@@ -0,0 +1,184 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.MapboxAccountManager;
+import com.mapbox.mapboxsdk.net.ConnectivityListener;
+import com.mapbox.mapboxsdk.net.ConnectivityReceiver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Owns the OkHttpClient, scheduler and coalescer shared by every HTTPRequest, keeps the
+ * native file source concurrency cap in step with the Java dispatcher, parks requests
+ * while the device is offline and adapts requests to the estimated link quality.
+ * Not public api.
+ */
+public class HttpClientManager implements ConnectivityListener {
+
+    static {
+        System.loadLibrary("mapbox-gl");
+    }
+
+    private static final String TAG = HttpClientManager.class.getSimpleName();
+    private static HttpClientManager INSTANCE;
+
+    private HttpClientConfig config = new HttpClientConfig.Builder().build();
+    private OkHttpClient client;
+
+    private final RequestScheduler scheduler = new RequestScheduler(config.getMaxRequests());
+    private final CallCoalescer coalescer = new CallCoalescer(scheduler);
+
+    private NetworkPolicy networkPolicy = new DefaultNetworkPolicy();
+    private final NetworkQualityEstimator estimator = new NetworkQualityEstimator(
+            new NetworkQualityEstimator.OnNetworkQualityChangedListener() {
+                @Override
+                public void onNetworkQualityChanged(@NonNull NetworkQuality quality) {
+                    Log.v(TAG, "Network quality changed: " + quality);
+                    applyNetworkPolicy();
+                }
+            });
+
+    /**
+     * Get or create the singleton instance
+     */
+    public static synchronized HttpClientManager getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new HttpClientManager();
+        }
+        return INSTANCE;
+    }
+
+    private HttpClientManager() {
+        MapboxHttpMetrics.addOnRequestCompletedListener(estimator);
+    }
+
+    /**
+     * Replaces the client configuration. Requests already in flight finish on the previous client.
+     *
+     * @param config the configuration to apply
+     */
+    public synchronized void setConfig(@NonNull HttpClientConfig config) {
+        Log.v(TAG, "Applying " + config);
+        this.config = config;
+        this.client = null;
+        scheduler.setMaxRunning(config.getMaxRequests());
+        nativeSetMaximumConcurrentRequests(config.getMaxRequests());
+        applyNetworkPolicy();
+    }
+
+    /**
+     * Get the current client configuration
+     *
+     * @return the configuration in use
+     */
+    public synchronized HttpClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replaces the policy that adapts requests to the quality of the network link.
+     *
+     * @param policy the policy to apply
+     */
+    public void setNetworkPolicy(@NonNull NetworkPolicy policy) {
+        synchronized (this) {
+            this.networkPolicy = policy;
+        }
+        applyNetworkPolicy();
+    }
+
+    /**
+     * Get the current estimate of the network link quality
+     *
+     * @return the network quality
+     */
+    public NetworkQuality getNetworkQuality() {
+        return estimator.getQuality();
+    }
+
+    /**
+     * Parks requests in the scheduler while offline and releases them in priority order
+     * once connectivity returns. Any change of the active network discards the link quality estimate.
+     *
+     * @param connected true if connected
+     */
+    @Override
+    public void onNetworkStateChanged(boolean connected) {
+        scheduler.setOnline(connected);
+        estimator.reset(ConnectivityReceiver.instance(
+                MapboxAccountManager.getInstance().getApplicationContext()).isMetered());
+    }
+
+    /**
+     * Returns true if raster tiles should be requested at high density on the current link.
+     *
+     * @return true for @2x tiles, false for @1x
+     */
+    boolean useHighDensityTiles() {
+        NetworkPolicy policy;
+        synchronized (this) {
+            policy = networkPolicy;
+        }
+        return policy.useHighDensityTiles(estimator.getQuality());
+    }
+
+    RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    CallCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    synchronized OkHttpClient getClient() {
+        if (client == null) {
+            client = createClient(config);
+        }
+        return client;
+    }
+
+    private void applyNetworkPolicy() {
+        NetworkPolicy policy;
+        int maxRequests;
+        synchronized (this) {
+            policy = networkPolicy;
+            maxRequests = config.getMaxRequests();
+        }
+
+        NetworkQuality quality = estimator.getQuality();
+        scheduler.setNonVisiblePolicy(policy.getNonVisibleRequestLimit(quality, maxRequests),
+                policy.deferNonVisibleRequests(quality));
+    }
+
+    private static OkHttpClient createClient(HttpClientConfig config) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+
+        List<Protocol> protocols = new ArrayList<>();
+        if (config.isHttp2Enabled()) {
+            protocols.add(Protocol.HTTP_2);
+        }
+        protocols.add(Protocol.HTTP_1_1);
+
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveDuration(), TimeUnit.MILLISECONDS))
+                .connectTimeout(config.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .protocols(protocols)
+                .build();
+    }
+
+    private static native void nativeSetMaximumConcurrentRequests(int maxRequests);
+}
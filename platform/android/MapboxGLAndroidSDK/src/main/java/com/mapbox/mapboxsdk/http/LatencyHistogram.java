@@ -0,0 +1,117 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in milliseconds over fixed, roughly logarithmic buckets.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS = new long[] {
+        10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, Long.MAX_VALUE
+    };
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    LatencyHistogram() {
+        counts = new long[BUCKET_BOUNDS.length];
+    }
+
+    private LatencyHistogram(LatencyHistogram other) {
+        counts = Arrays.copyOf(other.counts, other.counts.length);
+        count = other.count;
+        sum = other.sum;
+        max = other.max;
+    }
+
+    void record(long millis) {
+        if (millis < 0) {
+            return;
+        }
+
+        int bucket = 0;
+        while (millis > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        sum += millis;
+        max = Math.max(max, millis);
+    }
+
+    LatencyHistogram copy() {
+        return new LatencyHistogram(this);
+    }
+
+    /**
+     * Returns the inclusive upper bounds of the buckets in milliseconds,
+     * the last bucket is unbounded.
+     *
+     * @return the bucket bounds
+     */
+    public long[] getBucketBounds() {
+        return Arrays.copyOf(BUCKET_BOUNDS, BUCKET_BOUNDS.length);
+    }
+
+    /**
+     * Returns the amount of samples per bucket.
+     *
+     * @return the bucket counts, index aligned with {@link #getBucketBounds()}
+     */
+    public long[] getBucketCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    /**
+     * Returns the amount of recorded samples.
+     *
+     * @return the sample count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded samples.
+     *
+     * @return the mean in milliseconds, 0 if there are no samples
+     */
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Returns the largest recorded sample.
+     *
+     * @return the maximum in milliseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns an upper bound estimate of a percentile, the bound of the bucket it falls in.
+     * The unbounded bucket reports the maximum sample instead.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimate in milliseconds, 0 if there are no samples
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(BUCKET_BOUNDS[i], max);
+            }
+        }
+        return max;
+    }
+}
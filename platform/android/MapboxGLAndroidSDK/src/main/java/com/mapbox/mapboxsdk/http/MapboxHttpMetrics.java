@@ -0,0 +1,218 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Network performance metrics of the map, aggregated per resource kind.
+ * <p>
+ * Poll {@link #snapshot()} or subscribe with {@link #addOnRequestCompletedListener(OnRequestCompletedListener)}
+ * to forward the numbers to your own monitoring.
+ * </p>
+ */
+public final class MapboxHttpMetrics {
+
+    private static final String TAG = MapboxHttpMetrics.class.getSimpleName();
+
+    // Resource kinds, must match mbgl::Resource::Kind
+    public static final int KIND_UNKNOWN = 0;
+    public static final int KIND_STYLE = 1;
+    public static final int KIND_SOURCE = 2;
+    public static final int KIND_TILE = 3;
+    public static final int KIND_GLYPHS = 4;
+    public static final int KIND_SPRITE_IMAGE = 5;
+    public static final int KIND_SPRITE_JSON = 6;
+    public static final int KIND_COUNT = 7;
+
+    // Scheduler priority classes, from most to least important
+    public static final int PRIORITY_CRITICAL = RequestScheduler.PRIORITY_CRITICAL;
+    public static final int PRIORITY_VIEWPORT = RequestScheduler.PRIORITY_VIEWPORT;
+    public static final int PRIORITY_ASSET = RequestScheduler.PRIORITY_ASSET;
+    public static final int PRIORITY_PREFETCH = RequestScheduler.PRIORITY_PREFETCH;
+    public static final int PRIORITY_OFFLINE = RequestScheduler.PRIORITY_OFFLINE;
+    public static final int PRIORITY_COUNT = RequestScheduler.PRIORITY_COUNT;
+
+    private static final Object LOCK = new Object();
+    private static ResourceMetrics[] resources = createResources();
+    private static final List<OnRequestCompletedListener> listeners = new CopyOnWriteArrayList<>();
+
+    private MapboxHttpMetrics() {
+    }
+
+    /**
+     * Interface definition for a callback to be invoked for every completed network request.
+     * Invoked on a network thread, implementations should return quickly.
+     */
+    public interface OnRequestCompletedListener {
+        void onRequestCompleted(@NonNull RequestMetrics metrics);
+    }
+
+    /**
+     * Returns a consistent copy of the metrics collected since start or the last {@link #reset()}.
+     *
+     * @return the metrics snapshot
+     */
+    public static Snapshot snapshot() {
+        return snapshot(HttpClientManager.getInstance().getScheduler());
+    }
+
+    /**
+     * Clears all collected metrics.
+     */
+    public static void reset() {
+        synchronized (LOCK) {
+            resources = createResources();
+        }
+    }
+
+    public static void addOnRequestCompletedListener(@NonNull OnRequestCompletedListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeOnRequestCompletedListener(@NonNull OnRequestCompletedListener listener) {
+        listeners.remove(listener);
+    }
+
+    static Snapshot snapshot(@NonNull RequestScheduler scheduler) {
+        ResourceMetrics[] copies = new ResourceMetrics[KIND_COUNT];
+        synchronized (LOCK) {
+            for (int kind = 0; kind < KIND_COUNT; kind++) {
+                copies[kind] = resources[kind].copy();
+            }
+        }
+
+        int[] queueDepths = new int[PRIORITY_COUNT];
+        long[] maxQueueDepths = new long[PRIORITY_COUNT];
+        long[] averageWaitTimes = new long[PRIORITY_COUNT];
+        long[] agedCounts = new long[PRIORITY_COUNT];
+        for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+            queueDepths[priority] = scheduler.getQueueDepth(priority);
+            maxQueueDepths[priority] = scheduler.getMaxQueueDepth(priority);
+            averageWaitTimes[priority] = scheduler.getAverageWaitTime(priority);
+            agedCounts[priority] = scheduler.getAgedCount(priority);
+        }
+        BackoffCoordinator backoff = scheduler.getBackoff();
+        return new Snapshot(copies, queueDepths, maxQueueDepths, averageWaitTimes, agedCounts,
+                backoff.getRateLimitedCount(), backoff.getDeferredCount());
+    }
+
+    static void record(@NonNull RequestMetrics metrics) {
+        int kind = metrics.getKind() >= 0 && metrics.getKind() < KIND_COUNT ? metrics.getKind() : KIND_UNKNOWN;
+        synchronized (LOCK) {
+            resources[kind].record(metrics);
+        }
+
+        for (OnRequestCompletedListener listener : listeners) {
+            try {
+                listener.onRequestCompleted(metrics);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "OnRequestCompletedListener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static ResourceMetrics[] createResources() {
+        ResourceMetrics[] result = new ResourceMetrics[KIND_COUNT];
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            result[kind] = new ResourceMetrics();
+        }
+        return result;
+    }
+
+    /**
+     * Point in time copy of the network metrics.
+     */
+    public static final class Snapshot {
+
+        private final ResourceMetrics[] resources;
+        private final int[] queueDepths;
+        private final long[] maxQueueDepths;
+        private final long[] averageWaitTimes;
+        private final long[] agedCounts;
+        private final long rateLimitedCount;
+        private final long backoffDeferredCount;
+
+        private Snapshot(ResourceMetrics[] resources, int[] queueDepths, long[] maxQueueDepths,
+                         long[] averageWaitTimes, long[] agedCounts, long rateLimitedCount, long backoffDeferredCount) {
+            this.resources = resources;
+            this.queueDepths = queueDepths;
+            this.maxQueueDepths = maxQueueDepths;
+            this.averageWaitTimes = averageWaitTimes;
+            this.agedCounts = agedCounts;
+            this.rateLimitedCount = rateLimitedCount;
+            this.backoffDeferredCount = backoffDeferredCount;
+        }
+
+        /**
+         * Returns the metrics of a resource kind.
+         *
+         * @param kind one of the KIND constants
+         * @return the metrics of the kind
+         */
+        public ResourceMetrics getResourceMetrics(int kind) {
+            return resources[kind];
+        }
+
+        /**
+         * Returns the amount of requests waiting in a scheduler class.
+         *
+         * @param priority one of the PRIORITY constants
+         * @return the current queue depth
+         */
+        public int getQueueDepth(int priority) {
+            return queueDepths[priority];
+        }
+
+        /**
+         * Returns the largest queue depth a scheduler class has reached.
+         *
+         * @param priority one of the PRIORITY constants
+         * @return the maximum queue depth
+         */
+        public long getMaxQueueDepth(int priority) {
+            return maxQueueDepths[priority];
+        }
+
+        /**
+         * Returns the average time requests of a scheduler class waited to be dispatched.
+         *
+         * @param priority one of the PRIORITY constants
+         * @return the average wait time in milliseconds
+         */
+        public long getAverageWaitTime(int priority) {
+            return averageWaitTimes[priority];
+        }
+
+        /**
+         * Returns how many requests of a scheduler class were dispatched early by starvation protection.
+         *
+         * @param priority one of the PRIORITY constants
+         * @return the aged request count
+         */
+        public long getAgedCount(int priority) {
+            return agedCounts[priority];
+        }
+
+        /**
+         * Returns the amount of 429 Too Many Requests responses received since start.
+         *
+         * @return the rate limited response count
+         */
+        public long getRateLimitedCount() {
+            return rateLimitedCount;
+        }
+
+        /**
+         * Returns the amount of requests held back since start because their host was rate limited.
+         * Each of them is a request that would most likely have been answered with 429 as well.
+         *
+         * @return the deferred request count
+         */
+        public long getBackoffDeferredCount() {
+            return backoffDeferredCount;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Decides how the map spends the network link, based on the current {@link NetworkQuality}.
+ * <p>
+ * The policy is consulted whenever the quality class or metered state of the link changes,
+ * and for every high density raster tile request. Set a custom policy with
+ * {@link HttpClientManager#setNetworkPolicy(NetworkPolicy)}.
+ * </p>
+ */
+public interface NetworkPolicy {
+
+    /**
+     * Returns false to request @1x instead of @2x raster tiles. Applies to tiles requested at a
+     * pixel ratio above 1 whose resolved URL has "@2x." in its last path segment, for example
+     * .../1/2/3@2x.png, which is then requested as .../1/2/3.png. Offline region downloads always
+     * keep the tiles they ask for.
+     *
+     * @param quality the current link quality
+     * @return true to keep requesting high density tiles
+     */
+    boolean useHighDensityTiles(@NonNull NetworkQuality quality);
+
+    /**
+     * Returns how many requests that are not needed for the current viewport, such as
+     * prefetched tiles and offline downloads, may run concurrently.
+     *
+     * @param quality     the current link quality
+     * @param maxRequests the total amount of concurrent requests
+     * @return the amount of concurrent non-visible requests, at least 1
+     */
+    int getNonVisibleRequestLimit(@NonNull NetworkQuality quality, int maxRequests);
+
+    /**
+     * Returns true to hold back requests that are not needed for the current viewport
+     * until every viewport request has completed.
+     *
+     * @param quality the current link quality
+     * @return true to defer non-visible requests
+     */
+    boolean deferNonVisibleRequests(@NonNull NetworkQuality quality);
+}
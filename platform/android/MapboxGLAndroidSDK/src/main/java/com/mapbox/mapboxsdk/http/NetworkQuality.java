@@ -0,0 +1,125 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Rolling estimate of the quality of the current network link, derived from completed map requests.
+ */
+public final class NetworkQuality {
+
+    /**
+     * Not enough requests have completed on the current link to estimate its quality.
+     */
+    public static final int QUALITY_UNKNOWN = 0;
+
+    /**
+     * Below 400 kbps or above one second round trip, typically EDGE or a congested link.
+     */
+    public static final int QUALITY_POOR = 1;
+
+    /**
+     * Below 1.5 Mbps or above 300 ms round trip, typically 3G.
+     */
+    public static final int QUALITY_MODERATE = 2;
+
+    /**
+     * Below 5 Mbps or above 100 ms round trip, typically LTE.
+     */
+    public static final int QUALITY_GOOD = 3;
+
+    /**
+     * Anything faster, typically Wi-Fi.
+     */
+    public static final int QUALITY_EXCELLENT = 4;
+
+    static final int MIN_SAMPLES = 3;
+
+    private final long bandwidth;
+    private final long roundTripTime;
+    private final int bandwidthSamples;
+    private final int roundTripSamples;
+    private final boolean metered;
+
+    NetworkQuality(long bandwidth, long roundTripTime, int bandwidthSamples, int roundTripSamples, boolean metered) {
+        this.bandwidth = bandwidth;
+        this.roundTripTime = roundTripTime;
+        this.bandwidthSamples = bandwidthSamples;
+        this.roundTripSamples = roundTripSamples;
+        this.metered = metered;
+    }
+
+    /**
+     * Returns the estimated downstream bandwidth.
+     *
+     * @return the bandwidth in kbps, -1 if unknown
+     */
+    public long getBandwidth() {
+        return bandwidthSamples < MIN_SAMPLES ? -1 : bandwidth;
+    }
+
+    /**
+     * Returns the estimated round trip time, measured as the time to first byte of requests.
+     *
+     * @return the round trip time in milliseconds, -1 if unknown
+     */
+    public long getRoundTripTime() {
+        return roundTripSamples < MIN_SAMPLES ? -1 : roundTripTime;
+    }
+
+    /**
+     * Returns true if the active network is metered, for example mobile data.
+     *
+     * @return true if metered
+     */
+    public boolean isMetered() {
+        return metered;
+    }
+
+    /**
+     * Returns the quality class of the link, the worse of the bandwidth and round trip classes.
+     *
+     * @return one of the QUALITY constants
+     */
+    public int getQualityClass() {
+        long bandwidth = getBandwidth();
+        long roundTripTime = getRoundTripTime();
+        if (bandwidth < 0 && roundTripTime < 0) {
+            return QUALITY_UNKNOWN;
+        }
+
+        int quality = QUALITY_EXCELLENT;
+        if (bandwidth >= 0) {
+            quality = Math.min(quality, bandwidthClass(bandwidth));
+        }
+        if (roundTripTime >= 0) {
+            quality = Math.min(quality, roundTripClass(roundTripTime));
+        }
+        return quality;
+    }
+
+    private static int bandwidthClass(long kbps) {
+        if (kbps < 400) {
+            return QUALITY_POOR;
+        } else if (kbps < 1500) {
+            return QUALITY_MODERATE;
+        } else if (kbps < 5000) {
+            return QUALITY_GOOD;
+        }
+        return QUALITY_EXCELLENT;
+    }
+
+    private static int roundTripClass(long millis) {
+        if (millis > 1000) {
+            return QUALITY_POOR;
+        } else if (millis > 300) {
+            return QUALITY_MODERATE;
+        } else if (millis > 100) {
+            return QUALITY_GOOD;
+        }
+        return QUALITY_EXCELLENT;
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkQuality [quality=" + getQualityClass() + ", bandwidth=" + getBandwidth()
+                + ", roundTripTime=" + getRoundTripTime() + ", metered=" + metered + "]";
+    }
+}
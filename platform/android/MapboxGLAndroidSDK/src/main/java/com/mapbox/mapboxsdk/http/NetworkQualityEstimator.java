@@ -0,0 +1,106 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Maintains exponentially weighted moving averages of bandwidth and round trip time
+ * from completed requests.
+ * <p>
+ * Bandwidth is only sampled from bodies large enough for the transfer time to be dominated
+ * by throughput rather than latency. The estimate is cleared whenever the active network changes.
+ * </p>
+ */
+class NetworkQualityEstimator implements MapboxHttpMetrics.OnRequestCompletedListener {
+
+    static final long MIN_BANDWIDTH_SAMPLE_BYTES = 16 * 1024;
+    private static final double WEIGHT = 0.25;
+
+    /**
+     * Interface definition for a callback to be invoked when the quality class or metered
+     * state of the link changes.
+     */
+    interface OnNetworkQualityChangedListener {
+        void onNetworkQualityChanged(@NonNull NetworkQuality quality);
+    }
+
+    private final OnNetworkQualityChangedListener listener;
+
+    // guarded by this
+    private double bandwidth;
+    private double roundTripTime;
+    private int bandwidthSamples;
+    private int roundTripSamples;
+    private boolean metered;
+    private int qualityClass = NetworkQuality.QUALITY_UNKNOWN;
+
+    NetworkQualityEstimator(@NonNull OnNetworkQualityChangedListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onRequestCompleted(@NonNull RequestMetrics metrics) {
+        if (metrics.isFailed()) {
+            return;
+        }
+
+        NetworkQuality changed;
+        synchronized (this) {
+            if (metrics.getTimeToFirstByte() >= 0) {
+                roundTripTime = average(roundTripTime, metrics.getTimeToFirstByte(), roundTripSamples++);
+            }
+            if (metrics.getBytes() >= MIN_BANDWIDTH_SAMPLE_BYTES && metrics.getTransferTime() > 0) {
+                long kbps = metrics.getBytes() * 8 / metrics.getTransferTime();
+                bandwidth = average(bandwidth, kbps, bandwidthSamples++);
+            }
+            changed = updateQualityClass();
+        }
+        notifyChanged(changed);
+    }
+
+    /**
+     * Discards the estimate, called when the active network changes.
+     *
+     * @param metered true if the new network is metered
+     */
+    void reset(boolean metered) {
+        NetworkQuality changed;
+        synchronized (this) {
+            bandwidth = 0;
+            roundTripTime = 0;
+            bandwidthSamples = 0;
+            roundTripSamples = 0;
+            boolean meteredChanged = this.metered != metered;
+            this.metered = metered;
+            changed = updateQualityClass();
+            if (changed == null && meteredChanged) {
+                changed = getQuality();
+            }
+        }
+        notifyChanged(changed);
+    }
+
+    synchronized NetworkQuality getQuality() {
+        return new NetworkQuality(Math.round(bandwidth), Math.round(roundTripTime), bandwidthSamples,
+                roundTripSamples, metered);
+    }
+
+    private NetworkQuality updateQualityClass() {
+        NetworkQuality quality = getQuality();
+        if (quality.getQualityClass() == qualityClass) {
+            return null;
+        }
+        qualityClass = quality.getQualityClass();
+        return quality;
+    }
+
+    private void notifyChanged(NetworkQuality quality) {
+        if (quality != null) {
+            listener.onNetworkQualityChanged(quality);
+        }
+    }
+
+    private static double average(double current, long sample, int previousSamples) {
+        // seed with the first sample instead of decaying from zero
+        return previousSamples == 0 ? sample : current + WEIGHT * (sample - current);
+    }
+}
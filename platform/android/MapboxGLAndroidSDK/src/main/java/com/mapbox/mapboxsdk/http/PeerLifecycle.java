@@ -0,0 +1,95 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Lock-free lifecycle of a request backed by a native peer.
+ * <p>
+ * A request is delivered or cancelled exactly once. Delivery runs on an OkHttp thread while
+ * cancellation comes from the native request destructor, which frees the peer right after
+ * {@link #close()} returns. close() therefore waits for a delivery that is already in progress,
+ * but never blocks otherwise. The waiting thread sleeps on this object's monitor, which the
+ * delivering thread only takes when someone is waiting.
+ * </p>
+ * Kept as a base class so the state costs a single int per request instead of a lock object.
+ */
+abstract class PeerLifecycle {
+
+    static final int STATE_PENDING = 0;
+    static final int STATE_DELIVERING = 1;
+    static final int STATE_CLOSED = 2;
+    // delivering while close() waits for it
+    static final int STATE_DELIVERING_AWAITED = 3;
+
+    private static final AtomicIntegerFieldUpdater<PeerLifecycle> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(PeerLifecycle.class, "state");
+
+    private volatile int state = STATE_PENDING;
+
+    /**
+     * Claims the right to deliver a result to the native peer.
+     *
+     * @return true if the caller must deliver and then call {@link #endDelivery()}
+     */
+    final boolean beginDelivery() {
+        return STATE.compareAndSet(this, STATE_PENDING, STATE_DELIVERING);
+    }
+
+    /**
+     * Marks a delivery claimed with {@link #beginDelivery()} as finished, waking a waiting close().
+     */
+    final void endDelivery() {
+        if (STATE.compareAndSet(this, STATE_DELIVERING, STATE_CLOSED)) {
+            return;
+        }
+
+        synchronized (this) {
+            state = STATE_CLOSED;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Prevents any further delivery. Returns once no delivery is running.
+     *
+     * @return true if this call closed a request that was still pending
+     */
+    final boolean close() {
+        while (true) {
+            int current = state;
+            if (current == STATE_CLOSED) {
+                return false;
+            }
+
+            if (current == STATE_PENDING && STATE.compareAndSet(this, STATE_PENDING, STATE_CLOSED)) {
+                return true;
+            }
+
+            if (current != STATE_PENDING) {
+                awaitDelivery();
+            }
+        }
+    }
+
+    private synchronized void awaitDelivery() {
+        boolean interrupted = false;
+        // the delivering thread needs this monitor to finish, so it cannot slip past the wait
+        while (state == STATE_DELIVERING_AWAITED
+                || STATE.compareAndSet(this, STATE_DELIVERING, STATE_DELIVERING_AWAITED)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // the native peer must not be freed while it is in use
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    final int getState() {
+        return state;
+    }
+}
@@ -0,0 +1,176 @@
+package com.mapbox.mapboxsdk.http;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Timing breakdown of a single completed network request.
+ * <p>
+ * Durations are in milliseconds, -1 when the phase was not reached.
+ * </p>
+ */
+public class RequestMetrics {
+
+    private static final String ACCESS_TOKEN = "access_token";
+
+    private final int kind;
+    private final String url;
+    private final int code;
+    private final boolean failed;
+    private final long queueTime;
+    private final long setupTime;
+    private final long timeToFirstByte;
+    private final long transferTime;
+    private final long bytes;
+    private final int retryCount;
+    private final boolean secure;
+    private final int peerCount;
+
+    RequestMetrics(int kind, String url, int code, boolean failed, long queueTime, long setupTime,
+                   long timeToFirstByte, long transferTime, long bytes, int retryCount, boolean secure, int peerCount) {
+        this.kind = kind;
+        this.url = url;
+        this.code = code;
+        this.failed = failed;
+        this.queueTime = queueTime;
+        this.setupTime = setupTime;
+        this.timeToFirstByte = timeToFirstByte;
+        this.transferTime = transferTime;
+        this.bytes = bytes;
+        this.retryCount = retryCount;
+        this.secure = secure;
+        this.peerCount = peerCount;
+    }
+
+    /**
+     * Returns the resource kind, one of the KIND constants of {@link MapboxHttpMetrics}.
+     *
+     * @return the resource kind
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the requested URL without its access token.
+     *
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Removes the access token from a request URL before it is handed to metrics listeners.
+     *
+     * @param url the request URL
+     * @return the URL without access_token query parameters
+     */
+    static String redactUrl(HttpUrl url) {
+        if (url.queryParameter(ACCESS_TOKEN) == null) {
+            return url.toString();
+        }
+        return url.newBuilder().removeAllQueryParameters(ACCESS_TOKEN).build().toString();
+    }
+
+    /**
+     * Returns the HTTP status code, 0 if the request failed before a response was received.
+     *
+     * @return the status code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns true if the server answered a conditional request with 304 Not Modified.
+     *
+     * @return true if the cached resource was revalidated
+     */
+    public boolean isNotModified() {
+        return code == 304;
+    }
+
+    /**
+     * Returns the time spent waiting in the priority scheduler.
+     *
+     * @return the queue time in milliseconds
+     */
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Returns the time between handing the request to OkHttp and sending it. This includes
+     * DNS resolution, connecting and the TLS handshake when no pooled connection was available.
+     *
+     * @return the setup time in milliseconds
+     */
+    public long getSetupTime() {
+        return setupTime;
+    }
+
+    /**
+     * Returns the time between sending the request and receiving the response headers.
+     *
+     * @return the time to first byte in milliseconds
+     */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * Returns the time spent reading the response body.
+     *
+     * @return the transfer time in milliseconds
+     */
+    public long getTransferTime() {
+        return transferTime;
+    }
+
+    /**
+     * Returns the total time from scheduling the request until it completed.
+     *
+     * @return the total time in milliseconds
+     */
+    public long getTotalTime() {
+        return Math.max(0, queueTime) + Math.max(0, setupTime) + Math.max(0, timeToFirstByte) + Math.max(0, transferTime);
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns how many follow-up requests OkHttp made, such as redirects and retries.
+     *
+     * @return the retry count
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    /**
+     * Returns how many map requests were served by this network request.
+     *
+     * @return the amount of coalesced peers
+     */
+    public int getPeerCount() {
+        return peerCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics [kind=" + kind + ", code=" + code + ", failed=" + failed
+                + ", queueTime=" + queueTime + ", setupTime=" + setupTime
+                + ", timeToFirstByte=" + timeToFirstByte + ", transferTime=" + transferTime
+                + ", bytes=" + bytes + ", retryCount=" + retryCount + ", url=" + url + "]";
+    }
+}
@@ -0,0 +1,384 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders SharedCalls by priority class before they reach the OkHttp dispatcher.
+ * <p>
+ * Only as many calls as the dispatcher may execute concurrently are handed to OkHttp, the rest
+ * wait here in one FIFO queue per class. To prevent starvation, a queued call is treated as one
+ * class more important for every aging interval it has waited.
+ * </p>
+ * <p>
+ * While the device is offline nothing is dispatched. Requests are parked in their queues instead
+ * of failing immediately, and are released in priority order on reconnect.
+ * </p>
+ * <p>
+ * Requests that are not needed for the current viewport, the prefetch and offline classes, can be
+ * limited to a share of the slots and deferred until the viewport is complete. This is driven by
+ * the {@link NetworkPolicy} on slow or metered links.
+ * </p>
+ * <p>
+ * After a 429 response the {@link BackoffCoordinator} pauses the host, queued calls to it are
+ * skipped until the reset time while calls to other hosts continue.
+ * </p>
+ * The priority classes are assigned natively, see platform/android/src/http_file_source.cpp.
+ */
+class RequestScheduler {
+
+    private static final String TAG = RequestScheduler.class.getSimpleName();
+
+    /**
+     * Styles, sources and sprite metadata, nothing renders without them.
+     */
+    static final int PRIORITY_CRITICAL = 0;
+
+    /**
+     * Tiles needed for the current viewport.
+     */
+    static final int PRIORITY_VIEWPORT = 1;
+
+    /**
+     * Glyph ranges and sprite images.
+     */
+    static final int PRIORITY_ASSET = 2;
+
+    /**
+     * Resources that are not required for the current frame.
+     */
+    static final int PRIORITY_PREFETCH = 3;
+
+    /**
+     * Offline region downloads.
+     */
+    static final int PRIORITY_OFFLINE = 4;
+
+    static final int PRIORITY_COUNT = 5;
+
+    private static final long DEFAULT_AGING_INTERVAL = TimeUnit.SECONDS.toNanos(2);
+
+    private final ArrayDeque<SharedCall>[] queues;
+    private final Set<SharedCall> running = new HashSet<>();
+    private final long agingInterval;
+    private int maxRunning;
+    private boolean online = true;
+    private int nonVisibleLimit = Integer.MAX_VALUE;
+    private boolean deferNonVisible;
+    private final BackoffCoordinator backoff = new BackoffCoordinator();
+    private Timer backoffTimer;
+
+    // metrics
+    private final long[] dispatchedCount = new long[PRIORITY_COUNT];
+    private final long[] agedCount = new long[PRIORITY_COUNT];
+    private final long[] maxQueueDepth = new long[PRIORITY_COUNT];
+    private final long[] totalWaitTime = new long[PRIORITY_COUNT];
+
+    RequestScheduler(int maxRunning) {
+        this(maxRunning, DEFAULT_AGING_INTERVAL);
+    }
+
+    @SuppressWarnings("unchecked")
+    RequestScheduler(int maxRunning, long agingIntervalNanos) {
+        this.maxRunning = maxRunning;
+        this.agingInterval = agingIntervalNanos;
+        this.queues = new ArrayDeque[PRIORITY_COUNT];
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    static int clampPriority(int priority) {
+        return Math.max(PRIORITY_CRITICAL, Math.min(PRIORITY_OFFLINE, priority));
+    }
+
+    /**
+     * Queues a call and starts it as soon as a slot is available.
+     *
+     * @param call the call to schedule
+     */
+    void submit(@NonNull SharedCall call) {
+        synchronized (this) {
+            int priority = call.getPriority();
+            call.setEnqueuedAt(System.nanoTime());
+            queues[priority].addLast(call);
+            maxQueueDepth[priority] = Math.max(maxQueueDepth[priority], queues[priority].size());
+        }
+        dispatch();
+    }
+
+    /**
+     * Moves a queued call to a more important class, for example when a viewport request
+     * joins a call that was started by an offline download.
+     *
+     * @param call     the call to move
+     * @param priority the new priority class
+     */
+    synchronized void promote(@NonNull SharedCall call, int priority) {
+        int current = call.getPriority();
+        if (priority >= current) {
+            return;
+        }
+
+        if (queues[current].remove(call)) {
+            queues[priority].addLast(call);
+        }
+        call.setPriority(priority);
+    }
+
+    /**
+     * Removes a call that was cancelled before it started.
+     *
+     * @param call the cancelled call
+     */
+    synchronized void cancel(@NonNull SharedCall call) {
+        queues[call.getPriority()].remove(call);
+    }
+
+    /**
+     * Releases the slot held by a completed call.
+     *
+     * @param call the completed call
+     */
+    void finished(@NonNull SharedCall call) {
+        synchronized (this) {
+            if (!running.remove(call)) {
+                return;
+            }
+        }
+        dispatch();
+    }
+
+    void setMaxRunning(int maxRunning) {
+        synchronized (this) {
+            this.maxRunning = maxRunning;
+        }
+        dispatch();
+    }
+
+    /**
+     * Pauses or resumes dispatching.
+     *
+     * @param online false to park new requests, true to release them
+     */
+    void setOnline(boolean online) {
+        synchronized (this) {
+            if (this.online == online) {
+                return;
+            }
+            this.online = online;
+            if (online) {
+                // time spent parked must not age calls, release them in strict priority order
+                long now = System.nanoTime();
+                int parked = 0;
+                for (ArrayDeque<SharedCall> queue : queues) {
+                    for (SharedCall call : queue) {
+                        call.setEnqueuedAt(now);
+                    }
+                    parked += queue.size();
+                }
+                Log.v(TAG, "Connectivity restored, releasing " + parked + " parked requests");
+            }
+        }
+        dispatch();
+    }
+
+    synchronized boolean isOnline() {
+        return online;
+    }
+
+    /**
+     * Restricts requests that are not needed for the current viewport.
+     *
+     * @param limit the amount of non-visible calls that may run concurrently
+     * @param defer true to only start non-visible calls when no viewport call is queued or running
+     */
+    void setNonVisiblePolicy(int limit, boolean defer) {
+        synchronized (this) {
+            this.nonVisibleLimit = Math.max(1, limit);
+            this.deferNonVisible = defer;
+        }
+        dispatch();
+    }
+
+    /**
+     * Pauses dispatching to a host that answered with 429 Too Many Requests.
+     *
+     * @param host           the rate limited host
+     * @param retryAfter     the Retry-After header
+     * @param rateLimitReset the x-rate-limit-reset header
+     */
+    void onRateLimited(@NonNull String host, String retryAfter, String rateLimitReset) {
+        long delay = BackoffCoordinator.parseDelay(retryAfter, rateLimitReset, System.currentTimeMillis());
+        long deadline = backoff.pause(host, delay, System.nanoTime());
+        Log.i(TAG, "Rate limited by " + host + ", pausing requests for " + delay + " ms");
+
+        synchronized (this) {
+            if (backoffTimer == null) {
+                backoffTimer = new Timer(TAG, true);
+            }
+            backoffTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    dispatch();
+                }
+            }, Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) + 1);
+        }
+    }
+
+    BackoffCoordinator getBackoff() {
+        return backoff;
+    }
+
+    static boolean isNonVisible(int priority) {
+        return priority >= PRIORITY_PREFETCH;
+    }
+
+    synchronized int getQueueDepth(int priority) {
+        return queues[priority].size();
+    }
+
+    synchronized long getMaxQueueDepth(int priority) {
+        return maxQueueDepth[priority];
+    }
+
+    synchronized long getDispatchedCount(int priority) {
+        return dispatchedCount[priority];
+    }
+
+    /**
+     * Returns how many calls of a class were started ahead of more important queued calls
+     * because they had waited too long.
+     *
+     * @param priority the priority class
+     * @return the amount of aged calls
+     */
+    synchronized long getAgedCount(int priority) {
+        return agedCount[priority];
+    }
+
+    /**
+     * Returns the average time calls of a class waited in the queue.
+     *
+     * @param priority the priority class
+     * @return the average wait time in milliseconds
+     */
+    synchronized long getAverageWaitTime(int priority) {
+        long count = dispatchedCount[priority];
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTime[priority] / count);
+    }
+
+    synchronized int getRunningCount() {
+        return running.size();
+    }
+
+    private void dispatch() {
+        List<SharedCall> ready = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (online && running.size() < maxRunning) {
+                SharedCall call = next(now);
+                if (call == null) {
+                    break;
+                }
+                running.add(call);
+                ready.add(call);
+            }
+        }
+
+        // starting a call takes the coalescer lock, never do it while holding ours
+        for (SharedCall call : ready) {
+            call.start();
+        }
+    }
+
+    private SharedCall next(long now) {
+        boolean nonVisibleBlocked = isNonVisibleBlocked();
+        boolean backingOff = backoff.hasPausedHosts(now);
+        int best = -1;
+        SharedCall bestCall = null;
+        long bestRank = Long.MAX_VALUE;
+        for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+            if (nonVisibleBlocked && isNonVisible(priority)) {
+                continue;
+            }
+
+            SharedCall head = backingOff ? firstNotPaused(queues[priority], now) : queues[priority].peekFirst();
+            if (head == null) {
+                continue;
+            }
+
+            long rank = priority;
+            if (agingInterval > 0) {
+                rank -= (now - head.getEnqueuedAt()) / agingInterval;
+            }
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = priority;
+                bestCall = head;
+            }
+        }
+
+        if (best == -1) {
+            return null;
+        }
+
+        for (int priority = 0; priority < best; priority++) {
+            if (!queues[priority].isEmpty()) {
+                agedCount[best]++;
+                break;
+            }
+        }
+
+        SharedCall call = bestCall;
+        queues[best].remove(call);
+        dispatchedCount[best]++;
+        totalWaitTime[best] += now - call.getEnqueuedAt();
+        return call;
+    }
+
+    private SharedCall firstNotPaused(ArrayDeque<SharedCall> queue, long now) {
+        Iterator<SharedCall> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            SharedCall call = iterator.next();
+            if (!backoff.isPaused(call.getRequest().url().host(), now)) {
+                return call;
+            }
+            if (!call.isBackoffDeferred()) {
+                call.setBackoffDeferred(true);
+                backoff.recordDeferred();
+            }
+        }
+        return null;
+    }
+
+    private boolean isNonVisibleBlocked() {
+        if (nonVisibleLimit == Integer.MAX_VALUE && !deferNonVisible) {
+            return false;
+        }
+
+        int runningNonVisible = 0;
+        boolean visibleWork = false;
+        for (SharedCall call : running) {
+            if (isNonVisible(call.getPriority())) {
+                runningNonVisible++;
+            } else {
+                visibleWork = true;
+            }
+        }
+        for (int priority = 0; priority < PRIORITY_PREFETCH && !visibleWork; priority++) {
+            visibleWork = !queues[priority].isEmpty();
+        }
+        return runningNonVisible >= nonVisibleLimit || (deferNonVisible && visibleWork);
+    }
+}
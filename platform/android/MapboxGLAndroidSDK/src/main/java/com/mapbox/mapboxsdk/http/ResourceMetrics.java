@@ -0,0 +1,129 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Aggregated network metrics of one resource kind.
+ */
+public class ResourceMetrics {
+
+    private long requestCount;
+    private long failureCount;
+    private long notModifiedCount;
+    private long bytes;
+    private long retryCount;
+    private long coalescedCount;
+
+    private final LatencyHistogram queueTime;
+    private final LatencyHistogram setupTime;
+    private final LatencyHistogram timeToFirstByte;
+    private final LatencyHistogram transferTime;
+    private final LatencyHistogram totalTime;
+
+    ResourceMetrics() {
+        queueTime = new LatencyHistogram();
+        setupTime = new LatencyHistogram();
+        timeToFirstByte = new LatencyHistogram();
+        transferTime = new LatencyHistogram();
+        totalTime = new LatencyHistogram();
+    }
+
+    private ResourceMetrics(ResourceMetrics other) {
+        requestCount = other.requestCount;
+        failureCount = other.failureCount;
+        notModifiedCount = other.notModifiedCount;
+        bytes = other.bytes;
+        retryCount = other.retryCount;
+        coalescedCount = other.coalescedCount;
+        queueTime = other.queueTime.copy();
+        setupTime = other.setupTime.copy();
+        timeToFirstByte = other.timeToFirstByte.copy();
+        transferTime = other.transferTime.copy();
+        totalTime = other.totalTime.copy();
+    }
+
+    void record(RequestMetrics metrics) {
+        requestCount++;
+        if (metrics.isFailed()) {
+            failureCount++;
+        }
+        if (metrics.isNotModified()) {
+            notModifiedCount++;
+        }
+        bytes += metrics.getBytes();
+        retryCount += metrics.getRetryCount();
+        coalescedCount += Math.max(0, metrics.getPeerCount() - 1);
+
+        queueTime.record(metrics.getQueueTime());
+        setupTime.record(metrics.getSetupTime());
+        timeToFirstByte.record(metrics.getTimeToFirstByte());
+        transferTime.record(metrics.getTransferTime());
+        totalTime.record(metrics.getTotalTime());
+    }
+
+    ResourceMetrics copy() {
+        return new ResourceMetrics(this);
+    }
+
+    /**
+     * Returns the amount of network requests, including failed ones.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the amount of conditional requests answered with 304 Not Modified.
+     *
+     * @return the not modified count
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    /**
+     * Returns the amount of response body bytes received.
+     *
+     * @return the byte count
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Returns the amount of map requests that were served by another in-flight network request.
+     *
+     * @return the coalesced request count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public LatencyHistogram getQueueTime() {
+        return queueTime;
+    }
+
+    public LatencyHistogram getSetupTime() {
+        return setupTime;
+    }
+
+    public LatencyHistogram getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public LatencyHistogram getTransferTime() {
+        return transferTime;
+    }
+
+    public LatencyHistogram getTotalTime() {
+        return totalTime;
+    }
+}
@@ -0,0 +1,322 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * A single OkHttp call whose result is delivered to every HTTPRequest peer attached to it.
+ * <p>
+ * Peers are reference counted: a peer cancelling only detaches itself, the underlying
+ * call is cancelled once the last peer is gone.
+ * </p>
+ */
+class SharedCall implements Callback {
+
+    private static final String LOG_TAG = SharedCall.class.getName();
+
+    // Bodies of unknown length are streamed into pooled direct buffers that native copies from
+    private static final ByteBufferPool BUFFER_POOL = new ByteBufferPool(4 * 1024 * 1024);
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final CallCoalescer coalescer;
+    private final RequestScheduler scheduler;
+    private final OkHttpClient client;
+    private final String key;
+    private final Request request;
+    private final int kind;
+
+    // guarded by coalescer
+    private final List<HTTPRequest> peers = new ArrayList<>();
+    private Call call;
+    private boolean done;
+
+    // guarded by scheduler
+    private int priority;
+    private long enqueuedAt;
+    private boolean backoffDeferred;
+
+    // timings, written before the call is handed to OkHttp
+    private long queueTime = -1;
+    private long startedAt;
+
+    SharedCall(@NonNull CallCoalescer coalescer, @NonNull RequestScheduler scheduler, @NonNull OkHttpClient client,
+               @NonNull String key, @NonNull Request request, int kind, int priority) {
+        this.coalescer = coalescer;
+        this.scheduler = scheduler;
+        this.client = client;
+        this.key = key;
+        this.request = request;
+        this.kind = kind;
+        this.priority = priority;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Request getRequest() {
+        return request;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    void setEnqueuedAt(long enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    boolean isBackoffDeferred() {
+        return backoffDeferred;
+    }
+
+    void setBackoffDeferred(boolean backoffDeferred) {
+        this.backoffDeferred = backoffDeferred;
+    }
+
+    void addPeer(@NonNull HTTPRequest peer) {
+        synchronized (coalescer) {
+            peers.add(peer);
+        }
+    }
+
+    /**
+     * Detaches a peer, cancelling the network call if it was the last one.
+     *
+     * @param peer the peer to detach
+     */
+    void removePeer(@NonNull HTTPRequest peer) {
+        Call toCancel;
+        synchronized (coalescer) {
+            if (!peers.remove(peer) || done || !peers.isEmpty()) {
+                return;
+            }
+
+            done = true;
+            coalescer.remove(this);
+            toCancel = call;
+        }
+
+        if (toCancel != null) {
+            toCancel.cancel();
+        } else {
+            // still waiting for a slot
+            scheduler.cancel(this);
+        }
+    }
+
+    /**
+     * Hands the call to OkHttp, invoked by the scheduler once a slot is available.
+     */
+    void start() {
+        queueTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt);
+        startedAt = System.currentTimeMillis();
+
+        Call newCall = client.newCall(request);
+        synchronized (coalescer) {
+            if (done) {
+                // every peer cancelled before we got to start
+                newCall = null;
+            } else {
+                call = newCall;
+            }
+        }
+
+        if (newCall != null) {
+            newCall.enqueue(this);
+        } else {
+            scheduler.finished(this);
+        }
+    }
+
+    @Override
+    public void onResponse(Call call, Response response) throws IOException {
+        if (response.isSuccessful()) {
+            Log.v(LOG_TAG, String.format("[HTTP] Request was successful (code = %d).", response.code()));
+        } else {
+            // We don't want to call this unsuccessful because a 304 isn't really an error
+            String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
+            Log.d(LOG_TAG, String.format(
+                    "[HTTP] Request with response code = %d: %s",
+                    response.code(), message));
+        }
+
+        if (response.code() == 429) {
+            // hold back queued requests to this host instead of collecting more 429s
+            scheduler.onRateLimited(request.url().host(), response.header("Retry-After"),
+                    response.header("x-rate-limit-reset"));
+        }
+
+        // A body of known length is read straight into memory the receiver adopts, so okio's segments
+        // are the only copy. Otherwise native copies out of a pooled buffer.
+        ResponseBody responseBody = response.body();
+        long contentLength = responseBody.contentLength();
+        HTTPRequest.Receiver owner = null;
+        ByteBuffer body = null;
+        try {
+            if (contentLength > 0 && contentLength <= Integer.MAX_VALUE) {
+                owner = getBodyOwner();
+                body = owner != null ? owner.allocateBody((int) contentLength) : null;
+            }
+            if (body == null) {
+                owner = null;
+                body = BUFFER_POOL.acquire(contentLength >= 0 && contentLength <= Integer.MAX_VALUE
+                        ? (int) contentLength : DEFAULT_BUFFER_SIZE);
+            }
+            body = readBody(responseBody.source(), body, owner == null);
+        } catch (IOException e) {
+            // readBody already returned a pooled buffer it failed to fill
+            if (owner != null) {
+                owner.releaseBody(body);
+            }
+            onFailure(call, e);
+            return;
+        } finally {
+            responseBody.close();
+        }
+
+        long receivedAt = System.currentTimeMillis();
+        try {
+            List<HTTPRequest> result = complete();
+            for (HTTPRequest peer : result) {
+                peer.onResponse(response, body);
+            }
+            recordResponse(response, body.limit(), receivedAt, result.size());
+        } finally {
+            // native shares or copies the body synchronously, it can go once every peer is served
+            releaseBody(owner, body);
+        }
+    }
+
+    @Override
+    public void onFailure(Call call, IOException e) {
+        List<HTTPRequest> result = complete();
+        for (HTTPRequest peer : result) {
+            peer.onFailure(e);
+        }
+
+        // calls cancelled because every peer left are not failures
+        if (!result.isEmpty()) {
+            MapboxHttpMetrics.record(new RequestMetrics(kind, RequestMetrics.redactUrl(request.url()), 0, true,
+                    queueTime, System.currentTimeMillis() - startedAt, -1, -1, 0, 0, request.isHttps(), result.size()));
+        }
+    }
+
+    private void recordResponse(Response response, long bytes, long receivedAt, int peerCount) {
+        int retryCount = 0;
+        for (Response prior = response.priorResponse(); prior != null; prior = prior.priorResponse()) {
+            retryCount++;
+        }
+
+        long sentAt = response.sentRequestAtMillis();
+        long headersAt = response.receivedResponseAtMillis();
+        MapboxHttpMetrics.record(new RequestMetrics(kind, RequestMetrics.redactUrl(request.url()), response.code(),
+                false, queueTime, Math.max(0, sentAt - startedAt), Math.max(0, headersAt - sentAt),
+                Math.max(0, receivedAt - headersAt), bytes, retryCount, response.handshake() != null, peerCount));
+    }
+
+    private HTTPRequest.Receiver getBodyOwner() {
+        synchronized (coalescer) {
+            return peers.isEmpty() ? null : peers.get(0).getReceiver();
+        }
+    }
+
+    private static void releaseBody(HTTPRequest.Receiver owner, ByteBuffer body) {
+        if (owner != null) {
+            owner.releaseBody(body);
+        } else {
+            BUFFER_POOL.release(body);
+        }
+    }
+
+    /**
+     * Drains source into buffer. okio 1.8 has no BufferedSource#read(ByteBuffer), so its buffered
+     * segments are written to the target directly rather than through an intermediate array.
+     *
+     * @param source   the body source
+     * @param buffer   the target in write mode
+     * @param growable true if buffer is pooled and may be replaced by a larger one
+     * @return the target, flipped for reading
+     * @throws IOException if reading fails or a fixed size target is too small, a growable target
+     *                     has been released by then
+     */
+    static ByteBuffer readBody(BufferedSource source, ByteBuffer buffer, boolean growable) throws IOException {
+        ByteBufferSink sink = new ByteBufferSink(buffer);
+        Buffer segments = source.buffer();
+        try {
+            while (!source.exhausted()) {
+                long size = segments.size();
+                while (sink.target.remaining() < size) {
+                    if (!growable) {
+                        throw new IOException("Response body exceeds its content length");
+                    }
+                    sink.target = BUFFER_POOL.grow(sink.target);
+                }
+                segments.writeTo(sink, size);
+            }
+        } catch (IOException e) {
+            if (growable) {
+                BUFFER_POOL.release(sink.target);
+            }
+            throw e;
+        }
+        sink.target.flip();
+        return sink.target;
+    }
+
+    private List<HTTPRequest> complete() {
+        List<HTTPRequest> result;
+        synchronized (coalescer) {
+            done = true;
+            coalescer.remove(this);
+            result = new ArrayList<>(peers);
+            peers.clear();
+        }
+        scheduler.finished(this);
+        return result;
+    }
+
+    private static class ByteBufferSink extends OutputStream {
+
+        private ByteBuffer target;
+
+        ByteBufferSink(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(@NonNull byte[] bytes, int offset, int length) {
+            target.put(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quadtree over the geographic bounds of markers, polylines and polygons, answering
+ * bounds queries without a round trip to native.
+ * <p>
+ * Every annotation is kept in the deepest node whose quadrant fully contains its bounds, so
+ * a marker sinks to a leaf while a long polyline stays close to the root. A node splits when
+ * it holds more than {@link #NODE_CAPACITY} annotations, up to {@link #MAX_DEPTH}, and collapses
+ * back into a leaf once removals leave its subtree with half that amount.
+ * </p>
+ */
+class AnnotationIndex {
+
+    static final int NODE_CAPACITY = 16;
+    static final int MAX_DEPTH = 18;
+
+    private final LongSparseArray<Entry> entries = new LongSparseArray<>();
+    private Node root = new Node(null, -90, -180, 90, 180, 0);
+
+    /**
+     * Adds an annotation, or moves it if it is already indexed.
+     *
+     * @param annotation the annotation to index
+     */
+    void insert(@NonNull Annotation annotation) {
+        remove(annotation.getId());
+
+        Entry entry = createEntry(annotation);
+        if (entry == null) {
+            return;
+        }
+        entries.put(annotation.getId(), entry);
+        root.insert(entry);
+    }
+
+    void remove(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+        entries.remove(id);
+
+        Node node = entry.node;
+        node.detach(entry);
+        Node collapse = null;
+        for (Node parent = node; parent != null; parent = parent.parent) {
+            parent.count--;
+            if (parent.children != null && parent.count <= NODE_CAPACITY / 2) {
+                collapse = parent;
+            }
+        }
+        if (collapse != null) {
+            collapse.collapse();
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        root = new Node(null, -90, -180, 90, 180, 0);
+    }
+
+    /**
+     * Replaces the indexed annotations.
+     *
+     * @param annotations the annotations to index
+     */
+    void rebuild(@NonNull LongSparseArray<Annotation> annotations) {
+        clear();
+        for (int i = 0; i < annotations.size(); i++) {
+            insert(annotations.valueAt(i));
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds every annotation whose bounds intersect a region to a list.
+     *
+     * @param bounds the region to query
+     * @param result the list to add the annotations to
+     */
+    void query(@NonNull LatLngBounds bounds, @NonNull List<Annotation> result) {
+        root.query(bounds.getLatSouth(), bounds.getLonWest(), bounds.getLatNorth(), bounds.getLonEast(), result);
+    }
+
+    /**
+     * Adds every annotation whose bounds intersect a region to a list, scanning the annotations
+     * instead of an index.
+     *
+     * @param annotations the annotations to scan
+     * @param bounds      the region to query
+     * @param result      the list to add the annotations to
+     */
+    static void scan(@NonNull LongSparseArray<Annotation> annotations, @NonNull LatLngBounds bounds,
+                     @NonNull List<Annotation> result) {
+        for (int i = 0; i < annotations.size(); i++) {
+            Entry entry = createEntry(annotations.valueAt(i));
+            if (entry != null && entry.intersects(bounds.getLatSouth(), bounds.getLonWest(),
+                    bounds.getLatNorth(), bounds.getLonEast())) {
+                result.add(entry.annotation);
+            }
+        }
+    }
+
+    private static Entry createEntry(Annotation annotation) {
+        if (annotation instanceof Marker) {
+            LatLng position = ((Marker) annotation).getPosition();
+            if (position == null) {
+                return null;
+            }
+            return new Entry(annotation, position.getLatitude(), position.getLongitude(),
+                    position.getLatitude(), position.getLongitude());
+        } else if (annotation instanceof MultiPoint) {
+            List<LatLng> points = ((MultiPoint) annotation).getPoints();
+            if (points.isEmpty()) {
+                return null;
+            }
+            double south = Double.MAX_VALUE;
+            double west = Double.MAX_VALUE;
+            double north = -Double.MAX_VALUE;
+            double east = -Double.MAX_VALUE;
+            for (LatLng point : points) {
+                south = Math.min(south, point.getLatitude());
+                west = Math.min(west, point.getLongitude());
+                north = Math.max(north, point.getLatitude());
+                east = Math.max(east, point.getLongitude());
+            }
+            return new Entry(annotation, south, west, north, east);
+        }
+        return null;
+    }
+
+    private static class Entry {
+
+        private final Annotation annotation;
+        private final double south;
+        private final double west;
+        private final double north;
+        private final double east;
+        private Node node;
+        // position in the entries of node
+        private int slot;
+
+        Entry(Annotation annotation, double south, double west, double north, double east) {
+            this.annotation = annotation;
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+        }
+
+        boolean intersects(double south, double west, double north, double east) {
+            return this.south <= north && this.north >= south && this.west <= east && this.east >= west;
+        }
+    }
+
+    private static class Node {
+
+        private final Node parent;
+        private final double south;
+        private final double west;
+        private final double north;
+        private final double east;
+        private final int depth;
+        private final List<Entry> entries = new ArrayList<>();
+        private Node[] children;
+        // annotations held by this node and its descendants
+        private int count;
+
+        Node(Node parent, double south, double west, double north, double east, int depth) {
+            this.parent = parent;
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+            this.depth = depth;
+        }
+
+        void insert(Entry entry) {
+            Node node = this;
+            while (true) {
+                node.count++;
+                if (node.children == null) {
+                    if (node.entries.size() < NODE_CAPACITY || node.depth == MAX_DEPTH) {
+                        node.add(entry);
+                        return;
+                    }
+                    node.split();
+                }
+
+                Node child = node.childContaining(entry);
+                if (child == null) {
+                    node.add(entry);
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        void query(double south, double west, double north, double east, List<Annotation> result) {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.intersects(south, west, north, east)) {
+                    result.add(entry.annotation);
+                }
+            }
+
+            if (children != null) {
+                for (Node child : children) {
+                    if (child.south <= north && child.north >= south && child.west <= east && child.east >= west) {
+                        child.query(south, west, north, east, result);
+                    }
+                }
+            }
+        }
+
+        private void add(Entry entry) {
+            entry.node = this;
+            entry.slot = entries.size();
+            entries.add(entry);
+        }
+
+        // swaps the last entry into the slot of the removed one, leaves count to the caller
+        private void detach(Entry entry) {
+            Entry last = entries.remove(entries.size() - 1);
+            if (last != entry) {
+                last.slot = entry.slot;
+                entries.set(entry.slot, last);
+            }
+            entry.node = null;
+        }
+
+        // moves the entries of all descendants into this node
+        private void collapse() {
+            Node[] descendants = children;
+            children = null;
+            for (Node child : descendants) {
+                child.moveEntriesTo(this);
+            }
+        }
+
+        private void moveEntriesTo(Node target) {
+            for (int i = 0; i < entries.size(); i++) {
+                target.add(entries.get(i));
+            }
+            if (children != null) {
+                for (Node child : children) {
+                    child.moveEntriesTo(target);
+                }
+            }
+        }
+
+        private void split() {
+            double midLat = (south + north) / 2;
+            double midLon = (west + east) / 2;
+            children = new Node[]{
+                    new Node(this, midLat, west, north, midLon, depth + 1),
+                    new Node(this, midLat, midLon, north, east, depth + 1),
+                    new Node(this, south, west, midLat, midLon, depth + 1),
+                    new Node(this, south, midLon, midLat, east, depth + 1)
+            };
+
+            List<Entry> current = new ArrayList<>(entries);
+            entries.clear();
+            for (Entry entry : current) {
+                Node child = childContaining(entry);
+                if (child != null) {
+                    child.count++;
+                    child.add(entry);
+                } else {
+                    add(entry);
+                }
+            }
+        }
+
+        private Node childContaining(Entry entry) {
+            for (Node child : children) {
+                if (entry.south >= child.south && entry.north <= child.north
+                        && entry.west >= child.west && entry.east <= child.east) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical greedy clustering of points, answering which clusters are visible at a zoom level.
+ * <p>
+ * Points are projected to spherical mercator and clustered one zoom level at a time, from the input
+ * points at {@code maxZoom + 1} up to {@code minZoom}. Each zoom level is built from the next finer one
+ * by greedily merging every item with its neighbours within the cluster radius into a single cluster
+ * at their weighted centre. Items without neighbours are carried over to the coarser zoom level as they
+ * are.
+ * </p>
+ * <p>
+ * Every point and every cluster is stored once, together with the range of zoom levels it is visible
+ * at, in primitive arrays ordered as a single static kd-tree. Every kd-tree node also knows the lowest
+ * zoom level any item below it is visible at, so bounds queries skip the points that are merged into
+ * clusters at the queried zoom level. Every cluster merges at least two items, so there are fewer
+ * clusters than points and the index takes at most 62 bytes per point, whatever the zoom range.
+ * </p>
+ * <p>
+ * A cluster is identified by a {@code long} that stays the same at every zoom level the cluster is
+ * visible at, a point that isn't merged keeps its id too. The index is immutable once built and may
+ * be queried from any thread.
+ * </p>
+ */
+class ClusterIndex {
+
+    static final int DEFAULT_MIN_ZOOM = 0;
+    static final int DEFAULT_MAX_ZOOM = 16;
+
+    // width of the world at zoom 0 in density-independent pixels
+    private static final double TILE_SIZE = 512;
+    private static final int NODE_SIZE = 64;
+    // zoom levels are stored in bytes, counting from the minimum zoom level
+    private static final int MAX_LEVELS = Byte.MAX_VALUE;
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final double radius;
+    private final int pointCount;
+
+    // the points and clusters, ordered as a kd-tree over their positions
+    private final int size;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] counts;
+    // index of the first input point of every item
+    private final int[] origins;
+    // item every item was merged into, -1 for items visible at the lowest zoom level
+    private final int[] parents;
+    // lowest and highest zoom level every item is visible at
+    private final byte[] minLevels;
+    private final byte[] maxLevels;
+    // lowest zoom level of the items below every kd-tree node, stored at the node's median or a leaf's first item
+    private final byte[] nodeMinLevels;
+
+    /**
+     * Builds the index. This walks every level and should not run on the main thread for large inputs.
+     *
+     * @param latLngs the points as latitude, longitude pairs
+     * @param radius  the cluster radius in density-independent pixels
+     * @param minZoom the lowest zoom level to cluster at
+     * @param maxZoom the highest zoom level to cluster at, points are never clustered above it
+     */
+    ClusterIndex(@NonNull double[] latLngs, double radius, int minZoom, int maxZoom) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs should hold latitude, longitude pairs");
+        }
+        if (minZoom < 0 || maxZoom < minZoom) {
+            throw new IllegalArgumentException("Zoom range should be positive and ordered");
+        }
+        if (maxZoom - minZoom + 2 > MAX_LEVELS) {
+            throw new IllegalArgumentException("Zoom range should span at most " + (MAX_LEVELS - 2) + " zoom levels");
+        }
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.radius = radius;
+        pointCount = latLngs.length / 2;
+
+        // points come first, the clusters of every level are appended after them
+        int capacity = Math.max(0, pointCount * 2 - 1);
+        double[] itemXs = new double[capacity];
+        double[] itemYs = new double[capacity];
+        int[] itemCounts = new int[capacity];
+        int[] itemOrigins = new int[capacity];
+        int[] itemParents = new int[capacity];
+        byte[] itemMinLevels = new byte[capacity];
+        byte[] itemMaxLevels = new byte[capacity];
+
+        int pointLevel = maxZoom - minZoom + 1;
+        int[] level = new int[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            itemYs[i] = latY(latLngs[i * 2]);
+            itemXs[i] = lngX(latLngs[i * 2 + 1]);
+            itemCounts[i] = 1;
+            itemOrigins[i] = i;
+            itemMaxLevels[i] = (byte) pointLevel;
+            level[i] = i;
+        }
+
+        int itemCount = pointCount;
+        int levelSize = pointCount;
+        IntArray neighbours = new IntArray();
+        for (int levelIndex = pointLevel - 1; levelIndex >= 0; levelIndex--) {
+            KdTree tree = new KdTree(itemXs, itemYs, level, levelSize);
+            double r = getRadius(levelIndex + minZoom);
+            boolean[] merged = new boolean[levelSize];
+            int nextSize = 0;
+            for (int i = 0; i < levelSize; i++) {
+                if (merged[i]) {
+                    continue;
+                }
+                merged[i] = true;
+
+                int item = tree.items[i];
+                int count = itemCounts[item];
+                double wx = itemXs[item] * count;
+                double wy = itemYs[item] * count;
+                int cluster = -1;
+                neighbours.size = 0;
+                tree.within(tree.xs[i], tree.ys[i], r, neighbours);
+                for (int n = 0; n < neighbours.size; n++) {
+                    int neighbour = neighbours.values[n];
+                    if (merged[neighbour]) {
+                        continue;
+                    }
+                    merged[neighbour] = true;
+                    if (cluster == -1) {
+                        cluster = itemCount++;
+                        itemParents[item] = cluster;
+                        itemMinLevels[item] = (byte) (levelIndex + 1);
+                    }
+                    int neighbourItem = tree.items[neighbour];
+                    itemParents[neighbourItem] = cluster;
+                    itemMinLevels[neighbourItem] = (byte) (levelIndex + 1);
+                    int neighbourCount = itemCounts[neighbourItem];
+                    wx += itemXs[neighbourItem] * neighbourCount;
+                    wy += itemYs[neighbourItem] * neighbourCount;
+                    count += neighbourCount;
+                }
+
+                if (cluster == -1) {
+                    // nothing to merge with, the item stays visible at this level
+                    level[nextSize++] = item;
+                    continue;
+                }
+                itemXs[cluster] = wx / count;
+                itemYs[cluster] = wy / count;
+                itemCounts[cluster] = count;
+                itemOrigins[cluster] = itemOrigins[item];
+                itemMaxLevels[cluster] = (byte) levelIndex;
+                level[nextSize++] = cluster;
+            }
+            levelSize = nextSize;
+        }
+        for (int i = 0; i < levelSize; i++) {
+            itemParents[level[i]] = -1;
+        }
+
+        // order every item as one kd-tree and point parents at the new positions
+        int[] all = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            all[i] = i;
+        }
+        KdTree tree = new KdTree(itemXs, itemYs, all, itemCount);
+        int[] positions = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            positions[tree.items[i]] = i;
+        }
+        size = itemCount;
+        xs = tree.xs;
+        ys = tree.ys;
+        counts = new int[size];
+        origins = new int[size];
+        parents = new int[size];
+        minLevels = new byte[size];
+        maxLevels = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int item = tree.items[i];
+            counts[i] = itemCounts[item];
+            origins[i] = itemOrigins[item];
+            parents[i] = itemParents[item] != -1 ? positions[itemParents[item]] : -1;
+            minLevels[i] = itemMinLevels[item];
+            maxLevels[i] = itemMaxLevels[item];
+        }
+        nodeMinLevels = new byte[size];
+        computeNodeMinLevels(0, size - 1);
+    }
+
+    int getMinZoom() {
+        return minZoom;
+    }
+
+    int getMaxZoom() {
+        return maxZoom;
+    }
+
+    int size() {
+        return pointCount;
+    }
+
+    /**
+     * Returns the clusters intersecting a region at a zoom level.
+     *
+     * @param south the southern latitude of the region
+     * @param west  the western longitude of the region
+     * @param north the northern latitude of the region
+     * @param east  the eastern longitude of the region
+     * @param zoom  the zoom level, fractions are rounded down
+     * @return the cluster ids
+     */
+    long[] getClusters(double south, double west, double north, double east, double zoom) {
+        int levelIndex = getLevelIndex(zoom);
+        LongArray result = new LongArray();
+        double minY = latY(north);
+        double maxY = latY(south);
+        if (west <= east) {
+            range(lngX(west), minY, lngX(east), maxY, levelIndex, result);
+        } else {
+            // region crosses the antimeridian
+            range(lngX(west), minY, 1, maxY, levelIndex, result);
+            range(0, minY, lngX(east), maxY, levelIndex, result);
+        }
+        return result.toArray();
+    }
+
+    LatLng getPosition(long clusterId) {
+        int index = itemIndex(clusterId);
+        return new LatLng(yLat(ys[index]), xLng(xs[index]));
+    }
+
+    /**
+     * @param clusterId the cluster id
+     * @return the number of input points in the cluster, 1 for a single point
+     */
+    int getPointCount(long clusterId) {
+        return counts[itemIndex(clusterId)];
+    }
+
+    /**
+     * @param clusterId the id of a cluster holding a single point
+     * @return the index of the point in the input, or -1 if the cluster holds several points
+     */
+    int getPointIndex(long clusterId) {
+        int index = itemIndex(clusterId);
+        return counts[index] == 1 ? origins[index] : -1;
+    }
+
+    /**
+     * Returns the zoom level at which a cluster splits into several clusters or points.
+     *
+     * @param clusterId the cluster id
+     * @return the expansion zoom level
+     */
+    int getExpansionZoom(long clusterId) {
+        int index = itemIndex(clusterId);
+        return Math.min(maxLevels[index] + 1, maxZoom - minZoom + 1) + minZoom;
+    }
+
+    /**
+     * @param clusterId the cluster id
+     * @return the ids of the clusters or points merged into it
+     */
+    long[] getChildren(long clusterId) {
+        int index = itemIndex(clusterId);
+        if (counts[index] == 1) {
+            return new long[0];
+        }
+        // children are visible from the next level on and lie within the radius of the cluster's seed point,
+        // which is within the radius of the centre
+        int levelIndex = maxLevels[index];
+        double r = getRadius(levelIndex + minZoom) * 2;
+        LongArray result = new LongArray();
+        range(xs[index] - r, ys[index] - r, xs[index] + r, ys[index] + r, levelIndex + 1, result);
+        LongArray filtered = new LongArray();
+        for (int i = 0; i < result.size; i++) {
+            if (parents[itemIndex(result.values[i])] == index) {
+                filtered.add(result.values[i]);
+            }
+        }
+        return filtered.toArray();
+    }
+
+    private void range(double minX, double minY, double maxX, double maxY, int levelIndex, LongArray result) {
+        if (size == 0) {
+            return;
+        }
+        int[] stack = new int[64 * 3];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        stack[top++] = 0;
+        while (top > 0) {
+            int axis = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+            if (right < left) {
+                continue;
+            }
+
+            if (right - left <= NODE_SIZE) {
+                if (nodeMinLevels[left] > levelIndex) {
+                    continue;
+                }
+                for (int i = left; i <= right; i++) {
+                    if (isVisible(i, levelIndex)
+                            && xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) {
+                        result.add(i);
+                    }
+                }
+                continue;
+            }
+
+            int m = (left + right) >> 1;
+            if (nodeMinLevels[m] > levelIndex) {
+                // every item below this node is merged into a cluster at this level
+                continue;
+            }
+            double x = xs[m];
+            double y = ys[m];
+            if (isVisible(m, levelIndex) && x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                result.add(m);
+            }
+
+            double value = axis == 0 ? x : y;
+            double min = axis == 0 ? minX : minY;
+            double max = axis == 0 ? maxX : maxY;
+            if (min <= value) {
+                stack = KdTree.push(stack, top, left, m - 1, 1 - axis);
+                top += 3;
+            }
+            if (max >= value) {
+                stack = KdTree.push(stack, top, m + 1, right, 1 - axis);
+                top += 3;
+            }
+        }
+    }
+
+    private boolean isVisible(int index, int levelIndex) {
+        return minLevels[index] <= levelIndex && levelIndex <= maxLevels[index];
+    }
+
+    private int computeNodeMinLevels(int left, int right) {
+        if (right < left) {
+            return MAX_LEVELS;
+        }
+        int min;
+        if (right - left <= NODE_SIZE) {
+            min = MAX_LEVELS;
+            for (int i = left; i <= right; i++) {
+                min = Math.min(min, minLevels[i]);
+            }
+            nodeMinLevels[left] = (byte) min;
+            return min;
+        }
+        int m = (left + right) >> 1;
+        min = Math.min(minLevels[m], Math.min(computeNodeMinLevels(left, m - 1), computeNodeMinLevels(m + 1, right)));
+        nodeMinLevels[m] = (byte) min;
+        return min;
+    }
+
+    private int getLevelIndex(double zoom) {
+        int z = (int) Math.floor(zoom);
+        return Math.max(0, Math.min(z, maxZoom + 1) - minZoom);
+    }
+
+    private double getRadius(int zoom) {
+        return radius / (TILE_SIZE * Math.pow(2, zoom));
+    }
+
+    private static int itemIndex(long clusterId) {
+        return (int) clusterId;
+    }
+
+    static double lngX(double lng) {
+        return lng / 360 + 0.5;
+    }
+
+    static double latY(double lat) {
+        double sin = Math.sin(lat * Math.PI / 180);
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return y < 0 ? 0 : y > 1 ? 1 : y;
+    }
+
+    static double xLng(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    static double yLat(double y) {
+        double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+
+    /**
+     * Static kd-tree over a set of items, used to find neighbours while clustering.
+     */
+    private static class KdTree {
+
+        private final int size;
+        private final double[] xs;
+        private final double[] ys;
+        // the item at every position
+        private final int[] items;
+
+        KdTree(double[] itemXs, double[] itemYs, int[] items, int size) {
+            this.size = size;
+            this.items = Arrays.copyOf(items, size);
+            xs = new double[size];
+            ys = new double[size];
+            for (int i = 0; i < size; i++) {
+                xs[i] = itemXs[items[i]];
+                ys[i] = itemYs[items[i]];
+            }
+            sort(0, size - 1, 0);
+        }
+
+        void within(double qx, double qy, double r, IntArray result) {
+            if (size == 0) {
+                return;
+            }
+            double r2 = r * r;
+            int[] stack = new int[64 * 3];
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = size - 1;
+            stack[top++] = 0;
+            while (top > 0) {
+                int axis = stack[--top];
+                int right = stack[--top];
+                int left = stack[--top];
+
+                if (right - left <= NODE_SIZE) {
+                    for (int i = left; i <= right; i++) {
+                        if (distanceSquared(xs[i], ys[i], qx, qy) <= r2) {
+                            result.add(i);
+                        }
+                    }
+                    continue;
+                }
+
+                int m = (left + right) >> 1;
+                double x = xs[m];
+                double y = ys[m];
+                if (distanceSquared(x, y, qx, qy) <= r2) {
+                    result.add(m);
+                }
+
+                double value = axis == 0 ? x : y;
+                double q = axis == 0 ? qx : qy;
+                if (q - r <= value) {
+                    stack = push(stack, top, left, m - 1, 1 - axis);
+                    top += 3;
+                }
+                if (q + r >= value) {
+                    stack = push(stack, top, m + 1, right, 1 - axis);
+                    top += 3;
+                }
+            }
+        }
+
+        private void sort(int left, int right, int axis) {
+            if (right - left <= NODE_SIZE) {
+                return;
+            }
+            int m = (left + right) >> 1;
+            select(m, left, right, axis);
+            sort(left, m - 1, 1 - axis);
+            sort(m + 1, right, 1 - axis);
+        }
+
+        // Rearranges items left..right so that the k-th item is in place and smaller items precede it
+        private void select(int k, int left, int right, int axis) {
+            double[] values = axis == 0 ? xs : ys;
+            while (right > left) {
+                double pivot = values[k];
+                int i = left;
+                int j = right;
+                swap(left, k);
+                if (values[right] > pivot) {
+                    swap(left, right);
+                }
+                while (i < j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                }
+                if (values[left] == pivot) {
+                    swap(left, j);
+                } else {
+                    j++;
+                    swap(j, right);
+                }
+                if (j <= k) {
+                    left = j + 1;
+                }
+                if (k <= j) {
+                    right = j - 1;
+                }
+            }
+        }
+
+        private void swap(int i, int j) {
+            swap(xs, i, j);
+            swap(ys, i, j);
+            swap(items, i, j);
+        }
+
+        private static void swap(double[] values, int i, int j) {
+            double tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+
+        private static void swap(int[] values, int i, int j) {
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+
+        private static int[] push(int[] stack, int top, int left, int right, int axis) {
+            if (top + 3 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top] = left;
+            stack[top + 1] = right;
+            stack[top + 2] = axis;
+            return stack;
+        }
+
+        private static double distanceSquared(double ax, double ay, double bx, double by) {
+            double dx = ax - bx;
+            double dy = ay - by;
+            return dx * dx + dy * dy;
+        }
+    }
+
+    private static class IntArray {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static class LongArray {
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
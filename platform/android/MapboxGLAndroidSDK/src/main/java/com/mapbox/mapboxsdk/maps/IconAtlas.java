@@ -0,0 +1,148 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.util.DisplayMetrics;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Packs annotation icons into an RGBA page so that many icons are uploaded with a single native call.
+ * <p>
+ * A page holds the premultiplied pixels of consecutive icons back to back. The annotation sprite atlas in
+ * native arranges the icons itself, so the page only needs to carry their pixels across JNI. The page is
+ * a direct buffer that is reused for every upload, including the reload of all icons after a style change.
+ * Icons that don't fit an empty page are uploaded from a buffer of their own.
+ * </p>
+ */
+class IconAtlas {
+
+    static final int PAGE_SIZE = 1024 * 1024;
+
+    private final Uploader uploader;
+    private ByteBuffer page;
+
+    IconAtlas(@NonNull Uploader uploader) {
+        this.uploader = uploader;
+    }
+
+    /**
+     * Uploads icons, filling as few pages as possible.
+     *
+     * @param icons the icons to upload
+     */
+    void upload(@NonNull Collection<Icon> icons) {
+        PageBuilder builder = new PageBuilder(getPage());
+        for (Icon icon : icons) {
+            Bitmap bitmap = icon.getBitmap();
+            if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+                bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            }
+
+            // native reads width * height * 4 bytes per icon, padded rows would skew the pixels
+            if (bitmap.getRowBytes() != bitmap.getWidth() * 4) {
+                throw new IllegalArgumentException("Sprite image pixel count mismatch for icon " + icon.getId());
+            }
+
+            int size = bitmap.getRowBytes() * bitmap.getHeight();
+            if (size > PAGE_SIZE) {
+                PageBuilder single = new PageBuilder(ByteBuffer.allocateDirect(size));
+                single.add(icon.getId(), bitmap);
+                single.upload();
+                continue;
+            }
+
+            if (builder.remaining() < size) {
+                builder.upload();
+                builder = new PageBuilder(getPage());
+            }
+            builder.add(icon.getId(), bitmap);
+        }
+        builder.upload();
+    }
+
+    private ByteBuffer getPage() {
+        if (page == null) {
+            page = ByteBuffer.allocateDirect(PAGE_SIZE);
+        }
+        page.clear();
+        return page;
+    }
+
+    static float getScale(@NonNull Bitmap bitmap) {
+        float density = bitmap.getDensity();
+        if (density == Bitmap.DENSITY_NONE) {
+            density = DisplayMetrics.DENSITY_DEFAULT;
+        }
+        return density / DisplayMetrics.DENSITY_DEFAULT;
+    }
+
+    /**
+     * Receives a filled page.
+     */
+    interface Uploader {
+
+        /**
+         * Called for every filled page. The page is reused once this returns.
+         *
+         * @param ids     the icon ids
+         * @param widths  the icon widths in pixels
+         * @param heights the icon heights in pixels
+         * @param scales  the icon pixel ratios
+         * @param offsets the offsets of the icon pixels in the page
+         * @param page    the direct buffer holding the pixels
+         */
+        void upload(String[] ids, int[] widths, int[] heights, float[] scales, int[] offsets, ByteBuffer page);
+    }
+
+    private class PageBuilder {
+
+        private final ByteBuffer buffer;
+        private final List<String> ids = new ArrayList<>();
+        private final List<Bitmap> bitmaps = new ArrayList<>();
+        private final List<Integer> offsets = new ArrayList<>();
+
+        PageBuilder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.remaining();
+        }
+
+        void add(String id, Bitmap bitmap) {
+            int offset = buffer.position();
+            bitmap.copyPixelsToBuffer(buffer);
+            // keep the next icon at the expected offset even if the bitmap wrote less
+            buffer.position(offset + bitmap.getRowBytes() * bitmap.getHeight());
+            ids.add(id);
+            bitmaps.add(bitmap);
+            offsets.add(offset);
+        }
+
+        void upload() {
+            int count = ids.size();
+            if (count == 0) {
+                return;
+            }
+
+            int[] widths = new int[count];
+            int[] heights = new int[count];
+            float[] scales = new float[count];
+            int[] pageOffsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                Bitmap bitmap = bitmaps.get(i);
+                widths[i] = bitmap.getWidth();
+                heights[i] = bitmap.getHeight();
+                scales[i] = getScale(bitmap);
+                pageOffsets[i] = offsets.get(i);
+            }
+            uploader.upload(ids.toArray(new String[count]), widths, heights, scales, pageOffsets, buffer);
+        }
+    }
+}
@@ -36,7 +36,6 @@ import android.support.v4.view.ScaleGestureDetectorCompat;
 import android.support.v7.app.AlertDialog;
 import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.InputDevice;
@@ -79,6 +78,7 @@ import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.constants.Style;
 import com.mapbox.mapboxsdk.exceptions.IconBitmapChangedException;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.location.LocationListener;
 import com.mapbox.mapboxsdk.location.LocationServices;
 import com.mapbox.mapboxsdk.maps.widgets.CompassView;
@@ -92,10 +92,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -118,7 +122,11 @@ public class MapView extends FrameLayout {
     private boolean initialLoad;
     private boolean destroyed;
 
-    private List<Icon> icons;
+    private Map<String, Icon> icons;
+    // icons registered while uploads are deferred, keyed by id so a replaced icon is uploaded once
+    private Map<String, Icon> deferredIcons;
+    private int iconDeferDepth;
+    private IconAtlas iconAtlas;
     private int averageIconHeight;
     private int averageIconWidth;
 
@@ -196,7 +204,14 @@ public class MapView extends FrameLayout {
         onMapReadyCallbackList = new ArrayList<>();
         onMapChangedListener = new CopyOnWriteArrayList<>();
         mapboxMap = new MapboxMap(this);
-        icons = new ArrayList<>();
+        icons = new HashMap<>();
+        iconAtlas = new IconAtlas(new IconAtlas.Uploader() {
+            @Override
+            public void upload(String[] ids, int[] widths, int[] heights, float[] scales, int[] offsets,
+                               ByteBuffer page) {
+                nativeMapView.addAnnotationIcons(ids, widths, heights, scales, offsets, page);
+            }
+        });
         View view = LayoutInflater.from(context).inflate(R.layout.mapview_internal, this);
         setWillNotDraw(false);
 
@@ -480,10 +495,7 @@ public class MapView extends FrameLayout {
                     compassView.update(getDirection());
                     myLocationView.update();
                     mapboxMap.getMarkerViewManager().update();
-
-                    for (InfoWindow infoWindow : mapboxMap.getInfoWindows()) {
-                        infoWindow.update();
-                    }
+                    InfoWindow.update(mapboxMap, mapboxMap.getInfoWindows());
                 }
 
             }
@@ -568,6 +580,10 @@ public class MapView extends FrameLayout {
         nativeMapView = null;
     }
 
+    boolean isDestroyed() {
+        return destroyed;
+    }
+
     /**
      * You must call this method from the parent's {@link Activity#onPause()} or {@link Fragment#onPause()}.
      */
@@ -980,6 +996,28 @@ public class MapView extends FrameLayout {
         return pointF;
     }
 
+    void toScreenLocations(@NonNull double[] latLngs, @NonNull float[] screenLocations) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs should hold latitude, longitude pairs");
+        }
+        if (screenLocations.length < latLngs.length) {
+            throw new IllegalArgumentException("screenLocations should hold an x, y pair for every latLng");
+        }
+        if (destroyed) {
+            Arrays.fill(screenLocations, 0);
+            return;
+        }
+        nativeMapView.pixelsForLatLngs(latLngs, screenLocations);
+        scaleScreenLocations(screenLocations, latLngs.length, screenDensity);
+    }
+
+    // the map projects to density-independent pixels, only the pairs that were projected are scaled
+    static void scaleScreenLocations(@NonNull float[] screenLocations, int length, float density) {
+        for (int i = 0; i < length; i++) {
+            screenLocations[i] *= density;
+        }
+    }
+
     //
     // Annotations
     //
@@ -1004,48 +1042,106 @@ public class MapView extends FrameLayout {
             averageIconWidth = averageIconHeight + (bitmap.getWidth() - averageIconHeight) / iconSize;
         }
 
-        if (!icons.contains(icon)) {
-            icons.add(icon);
-            loadIcon(icon);
-        } else {
-            Icon oldIcon = icons.get(icons.indexOf(icon));
-            if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-                throw new IconBitmapChangedException();
+        registerIcon(icon);
+        return icon;
+    }
+
+    // Uploads an icon the first time its id is seen, or again when its bitmap differs from the uploaded one
+    private void registerIcon(Icon icon) {
+        if (needsUpload(icons.get(icon.getId()), icon)) {
+            icons.put(icon.getId(), icon);
+            try {
+                loadIcon(icon);
+            } catch (RuntimeException exception) {
+                // a later marker with this icon has to try the upload again
+                unregisterIcon(icon);
+                throw exception;
             }
         }
-        return icon;
+    }
+
+    private void unregisterIcon(Icon icon) {
+        if (icons.get(icon.getId()) == icon) {
+            icons.remove(icon.getId());
+        }
+    }
+
+    /**
+     * Returns whether icon has to be uploaded, given the icon registered under its id.
+     *
+     * @param registered the registered icon, null if the id is new
+     * @param icon       the icon to register
+     * @return true if icon carries an image that was not uploaded yet
+     * @throws IconBitmapChangedException if the bitmap size differs from the registered one, the sprite
+     *                                    atlas keeps the size an id was first uploaded with
+     */
+    static boolean needsUpload(@Nullable Icon registered, @NonNull Icon icon) {
+        if (registered == null) {
+            return true;
+        }
+        Bitmap registeredBitmap = registered.getBitmap();
+        Bitmap bitmap = icon.getBitmap();
+        if (registered == icon || registeredBitmap == bitmap) {
+            return false;
+        }
+        if (registeredBitmap.getWidth() != bitmap.getWidth() || registeredBitmap.getHeight() != bitmap.getHeight()) {
+            throw new IconBitmapChangedException(icon.getId(), registeredBitmap.getWidth(), registeredBitmap.getHeight(),
+                    bitmap.getWidth(), bitmap.getHeight());
+        }
+        return registered.getBitmapHash() != icon.getBitmapHash();
     }
 
     void loadIcon(Icon icon) {
         if (destroyed) {
             return;
         }
-        Bitmap bitmap = icon.getBitmap();
-        String id = icon.getId();
-        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-            bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        if (iconDeferDepth > 0) {
+            if (deferredIcons == null) {
+                deferredIcons = new LinkedHashMap<>();
+            }
+            deferredIcons.put(icon.getId(), icon);
+            return;
+        }
+        iconAtlas.upload(Collections.singletonList(icon));
+    }
+
+    /**
+     * Collects the icons loaded from now on until the matching {@link #uploadDeferredIcons()}, which
+     * uploads them with as few native calls as possible. Top offsets of deferred icons are only
+     * available once they are uploaded.
+     */
+    void deferIconUploads() {
+        iconDeferDepth++;
+    }
+
+    void uploadDeferredIcons() {
+        if (iconDeferDepth == 0 || --iconDeferDepth > 0) {
+            return;
+        }
+        if (deferredIcons == null || deferredIcons.isEmpty()) {
+            return;
         }
-        ByteBuffer buffer = ByteBuffer.allocate(bitmap.getRowBytes() * bitmap.getHeight());
-        bitmap.copyPixelsToBuffer(buffer);
 
-        float density = bitmap.getDensity();
-        if (density == Bitmap.DENSITY_NONE) {
-            density = DisplayMetrics.DENSITY_DEFAULT;
+        List<Icon> pending = new ArrayList<>(deferredIcons.values());
+        deferredIcons.clear();
+        if (!destroyed) {
+            try {
+                iconAtlas.upload(pending);
+            } catch (RuntimeException exception) {
+                // pages before the failing icon may have been uploaded, registering them again is harmless
+                for (Icon icon : pending) {
+                    unregisterIcon(icon);
+                }
+                throw exception;
+            }
         }
-        float scale = density / DisplayMetrics.DENSITY_DEFAULT;
-        nativeMapView.addAnnotationIcon(
-                id,
-                bitmap.getWidth(),
-                bitmap.getHeight(),
-                scale, buffer.array());
     }
 
     void reloadIcons() {
-        int count = icons.size();
-        for (int i = 0; i < count; i++) {
-            Icon icon = icons.get(i);
-            loadIcon(icon);
+        if (destroyed) {
+            return;
         }
+        iconAtlas.upload(icons.values());
     }
 
     void updateMarker(@NonNull Marker updatedMarker) {
@@ -1069,6 +1165,38 @@ public class MapView extends FrameLayout {
         nativeMapView.updateMarker(updatedMarker);
     }
 
+    void updateMarkers(@NonNull List<Marker> updatedMarkers) {
+        if (destroyed) {
+            return;
+        }
+
+        List<Marker> markers = new ArrayList<>(updatedMarkers.size());
+        deferIconUploads();
+        try {
+            for (Marker marker : updatedMarkers) {
+                if (marker == null || marker.getId() == -1) {
+                    continue;
+                }
+                if (!(marker instanceof MarkerView)) {
+                    registerMarkerIcon(marker);
+                }
+                markers.add(marker);
+            }
+        } finally {
+            uploadDeferredIcons();
+        }
+
+        for (Marker marker : markers) {
+            if (!(marker instanceof MarkerView)) {
+                updateTopOffsetPixels(marker);
+            }
+        }
+
+        if (!markers.isEmpty()) {
+            nativeMapView.updateMarkers(markers);
+        }
+    }
+
 
     void updatePolygon(Polygon polygon) {
         if (destroyed) {
@@ -1088,6 +1216,13 @@ public class MapView extends FrameLayout {
         nativeMapView.updatePolygon(polygon);
     }
 
+    void updatePolygon(@NonNull Polygon polygon, @NonNull double[] latLngs) {
+        if (destroyed || polygon.getId() == -1) {
+            return;
+        }
+        nativeMapView.updatePolygon(polygon, latLngs);
+    }
+
     void updatePolyline(Polyline polyline) {
         if (destroyed) {
             return;
@@ -1106,26 +1241,32 @@ public class MapView extends FrameLayout {
         nativeMapView.updatePolyline(polyline);
     }
 
+    void updatePolyline(@NonNull Polyline polyline, @NonNull double[] latLngs) {
+        if (destroyed || polyline.getId() == -1) {
+            return;
+        }
+        nativeMapView.updatePolyline(polyline, latLngs);
+    }
+
     private void ensureIconLoaded(Marker marker) {
+        registerMarkerIcon(marker);
+        updateTopOffsetPixels(marker);
+    }
+
+    private void registerMarkerIcon(Marker marker) {
         Icon icon = marker.getIcon();
         if (icon == null) {
             icon = IconFactory.getInstance(getContext()).defaultMarker();
             marker.setIcon(icon);
         }
-        if (!icons.contains(icon)) {
-            icons.add(icon);
-            loadIcon(icon);
-        } else {
-            Icon oldIcon = icons.get(icons.indexOf(icon));
-            if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-                throw new IconBitmapChangedException();
-            }
-        }
+        registerIcon(icon);
+    }
 
+    private void updateTopOffsetPixels(Marker marker) {
         // this seems to be a costly operation according to the profiler so I'm trying to save some calls
         Marker previousMarker = marker.getId() != -1 ? (Marker) mapboxMap.getAnnotation(marker.getId()) : null;
         if (previousMarker == null || previousMarker.getIcon() == null || previousMarker.getIcon() != marker.getIcon()) {
-            marker.setTopOffsetPixels(getTopOffsetPixelsForIcon(icon));
+            marker.setTopOffsetPixels(getTopOffsetPixelsForIcon(marker.getIcon()));
         }
     }
 
@@ -1143,6 +1284,13 @@ public class MapView extends FrameLayout {
         return nativeMapView.addMarkers(markerList);
     }
 
+    long[] addMarkers(@NonNull double[] latLngs, @NonNull int[] iconIndices, @NonNull String[] iconIds) {
+        if (destroyed) {
+            return new long[]{};
+        }
+        return nativeMapView.addMarkers(latLngs, iconIndices, iconIds);
+    }
+
     long addPolyline(@NonNull Polyline polyline) {
         if (destroyed) {
             return 0L;
@@ -1150,6 +1298,13 @@ public class MapView extends FrameLayout {
         return nativeMapView.addPolyline(polyline);
     }
 
+    long addPolyline(@NonNull Polyline polyline, @NonNull double[] latLngs) {
+        if (destroyed) {
+            return 0L;
+        }
+        return nativeMapView.addPolylines(Collections.singletonList(polyline), latLngs, new int[]{latLngs.length / 2})[0];
+    }
+
     long[] addPolylines(@NonNull List<Polyline> polylines) {
         if (destroyed) {
             return new long[]{};
@@ -1157,6 +1312,13 @@ public class MapView extends FrameLayout {
         return nativeMapView.addPolylines(polylines);
     }
 
+    long[] addPolylines(@NonNull List<Polyline> polylines, @NonNull double[] latLngs, @NonNull int[] pointCounts) {
+        if (destroyed) {
+            return new long[]{};
+        }
+        return nativeMapView.addPolylines(polylines, latLngs, pointCounts);
+    }
+
     long addPolygon(@NonNull Polygon polygon) {
         if (destroyed) {
             return 0L;
@@ -1164,6 +1326,13 @@ public class MapView extends FrameLayout {
         return nativeMapView.addPolygon(polygon);
     }
 
+    long addPolygon(@NonNull Polygon polygon, @NonNull double[] latLngs) {
+        if (destroyed) {
+            return 0L;
+        }
+        return nativeMapView.addPolygons(Collections.singletonList(polygon), latLngs, new int[]{latLngs.length / 2})[0];
+    }
+
     long[] addPolygons(@NonNull List<Polygon> polygons) {
         if (destroyed) {
             return new long[]{};
@@ -1171,6 +1340,13 @@ public class MapView extends FrameLayout {
         return nativeMapView.addPolygons(polygons);
     }
 
+    long[] addPolygons(@NonNull List<Polygon> polygons, @NonNull double[] latLngs, @NonNull int[] pointCounts) {
+        if (destroyed) {
+            return new long[]{};
+        }
+        return nativeMapView.addPolygons(polygons, latLngs, pointCounts);
+    }
+
     void removeAnnotation(long id) {
         if (destroyed) {
             return;
@@ -1185,54 +1361,72 @@ public class MapView extends FrameLayout {
         nativeMapView.removeAnnotations(ids);
     }
 
+    /**
+     * Returns the Markers whose position lies within a region of the map view.
+     *
+     * @param rect the region in screen pixels, may extend beyond the map view
+     * @return the Markers found in the region
+     */
     List<Marker> getMarkersInRect(@NonNull RectF rect) {
         if (destroyed || rect == null) {
             return new ArrayList<>();
         }
 
-        long[] ids = nativeMapView.queryPointAnnotations(rect);
-
-        List<Long> idsList = new ArrayList<>(ids.length);
-        for (int i = 0; i < ids.length; i++) {
-            idsList.add(ids[i]);
-        }
-
-        List<Marker> annotations = new ArrayList<>(ids.length);
-        List<Annotation> annotationList = mapboxMap.getAnnotations();
-        int count = annotationList.size();
-        for (int i = 0; i < count; i++) {
-            Annotation annotation = annotationList.get(i);
-            if (annotation instanceof Marker && idsList.contains(annotation.getId())) {
-                annotations.add((Marker) annotation);
+        RectF queryRect = toDensityIndependentRect(rect);
+        if (mapboxMap.isAnnotationIndexEnabled()) {
+            List<Marker> markers = new ArrayList<>();
+            for (Annotation annotation : mapboxMap.queryAnnotations(getLatLngBoundsForRect(queryRect))) {
+                if (annotation instanceof Marker) {
+                    markers.add((Marker) annotation);
+                }
             }
+            return markers;
         }
 
-        return new ArrayList<>(annotations);
+        long[] ids = nativeMapView.queryPointAnnotations(queryRect);
+        return mapboxMap.getMarkers(ids);
     }
 
+    /**
+     * Returns the MarkerViews whose position lies within a region of the map view.
+     *
+     * @param rect the region in screen pixels, may extend beyond the map view
+     * @return the MarkerViews found in the region
+     */
     public List<MarkerView> getMarkerViewsInRect(@NonNull RectF rect) {
         if (destroyed || rect == null) {
             return new ArrayList<>();
         }
 
-        long[] ids = nativeMapView.queryPointAnnotations(rect);
-
-        List<Long> idsList = new ArrayList<>(ids.length);
-        for (int i = 0; i < ids.length; i++) {
-            idsList.add(ids[i]);
-        }
-
-        List<MarkerView> annotations = new ArrayList<>(ids.length);
-        List<Annotation> annotationList = mapboxMap.getAnnotations();
-        int count = annotationList.size();
-        for (int i = 0; i < count; i++) {
-            Annotation annotation = annotationList.get(i);
-            if (annotation instanceof MarkerView) {
-                annotations.add((MarkerView) annotation);
+        RectF queryRect = toDensityIndependentRect(rect);
+        if (mapboxMap.isAnnotationIndexEnabled()) {
+            List<MarkerView> markerViews = new ArrayList<>();
+            for (Annotation annotation : mapboxMap.queryAnnotations(getLatLngBoundsForRect(queryRect))) {
+                if (annotation instanceof MarkerView) {
+                    markerViews.add((MarkerView) annotation);
+                }
             }
+            return markerViews;
         }
 
-        return new ArrayList<>(annotations);
+        long[] ids = nativeMapView.queryPointAnnotations(queryRect);
+        return mapboxMap.getMarkerViews(ids);
+    }
+
+    // native queries and projects in density independent pixels
+    private RectF toDensityIndependentRect(@NonNull RectF rect) {
+        return new RectF(rect.left / screenDensity, rect.top / screenDensity,
+                rect.right / screenDensity, rect.bottom / screenDensity);
+    }
+
+    // rect is in density independent pixels, the bounds enclose it on a rotated or tilted map
+    private LatLngBounds getLatLngBoundsForRect(@NonNull RectF rect) {
+        return new LatLngBounds.Builder()
+                .include(nativeMapView.latLngForPixel(new PointF(rect.left, rect.top)))
+                .include(nativeMapView.latLngForPixel(new PointF(rect.right, rect.top)))
+                .include(nativeMapView.latLngForPixel(new PointF(rect.right, rect.bottom)))
+                .include(nativeMapView.latLngForPixel(new PointF(rect.left, rect.bottom)))
+                .build();
     }
 
     /**
@@ -1348,14 +1542,21 @@ public class MapView extends FrameLayout {
     }
 
     private void adjustTopOffsetPixels() {
+        // markers sharing an icon share its top offset, look it up once per icon
+        Map<String, Integer> topOffsets = new HashMap<>();
         List<Annotation> annotations = mapboxMap.getAnnotations();
         int count = annotations.size();
         for (int i = 0; i < count; i++) {
             Annotation annotation = annotations.get(i);
             if (annotation instanceof Marker) {
                 Marker marker = (Marker) annotation;
-                marker.setTopOffsetPixels(
-                        getTopOffsetPixelsForIcon(marker.getIcon()));
+                Icon icon = marker.getIcon();
+                Integer topOffset = topOffsets.get(icon.getId());
+                if (topOffset == null) {
+                    topOffset = getTopOffsetPixelsForIcon(icon);
+                    topOffsets.put(icon.getId(), topOffset);
+                }
+                marker.setTopOffsetPixels(topOffset);
             }
         }
 
@@ -1367,21 +1568,29 @@ public class MapView extends FrameLayout {
         }
     }
 
+    // Re-adds every marker with a single removal and a single packed insertion, markers get new ids
     private void reloadMarkers() {
         if (destroyed) {
             return;
         }
         List<Annotation> annotations = mapboxMap.getAnnotations();
-        int count = annotations.size();
-        for (int i = 0; i < count; i++) {
-            Annotation annotation = annotations.get(i);
+        List<Marker> markers = new ArrayList<>(annotations.size());
+        for (Annotation annotation : annotations) {
             if (annotation instanceof Marker) {
-                Marker marker = (Marker) annotation;
-                nativeMapView.removeAnnotation(annotation.getId());
-                long newId = nativeMapView.addMarker(marker);
-                marker.setId(newId);
+                markers.add((Marker) annotation);
             }
         }
+        if (markers.isEmpty()) {
+            return;
+        }
+
+        long[] oldIds = new long[markers.size()];
+        for (int i = 0; i < oldIds.length; i++) {
+            oldIds[i] = markers.get(i).getId();
+        }
+        nativeMapView.removeAnnotations(oldIds);
+        long[] newIds = nativeMapView.addMarkers(markers);
+        mapboxMap.reassignMarkerIds(markers, oldIds, newIds);
     }
 
     //
@@ -1508,10 +1717,7 @@ public class MapView extends FrameLayout {
             compassView.update(getDirection());
             myLocationView.update();
             mapboxMap.getMarkerViewManager().update();
-
-            for (InfoWindow infoWindow : mapboxMap.getInfoWindows()) {
-                infoWindow.update();
-            }
+            InfoWindow.update(mapboxMap, mapboxMap.getInfoWindows());
         }
     }
 
@@ -1818,10 +2024,10 @@ public class MapView extends FrameLayout {
             float toleranceSides = 4 * screenDensity;
             float toleranceTopBottom = 10 * screenDensity;
 
-            RectF tapRect = new RectF((tapPoint.x - averageIconWidth / 2 - toleranceSides) / screenDensity,
-                    (tapPoint.y - averageIconHeight / 2 - toleranceTopBottom) / screenDensity,
-                    (tapPoint.x + averageIconWidth / 2 + toleranceSides) / screenDensity,
-                    (tapPoint.y + averageIconHeight / 2 + toleranceTopBottom) / screenDensity);
+            RectF tapRect = new RectF(tapPoint.x - averageIconWidth / 2 - toleranceSides,
+                    tapPoint.y - averageIconHeight / 2 - toleranceTopBottom,
+                    tapPoint.x + averageIconWidth / 2 + toleranceSides,
+                    tapPoint.y + averageIconHeight / 2 + toleranceTopBottom);
             
             List<Marker> nearbyMarkers = getMarkersInRect(tapRect);
             long newSelectedMarkerId = -1;
@@ -1843,19 +2049,12 @@ public class MapView extends FrameLayout {
             }
 
             if (newSelectedMarkerId >= 0) {
-                List<Annotation> annotations = mapboxMap.getAnnotations();
-                int count = annotations.size();
-                for (int i = 0; i < count; i++) {
-                    Annotation annotation = annotations.get(i);
-                    if (annotation instanceof Marker) {
-                        if (annotation.getId() == newSelectedMarkerId) {
-                            if (selectedMarkers.isEmpty() || !selectedMarkers.contains(annotation)) {
-                                // only handle click if no marker view is available
-                                if (!(annotation instanceof MarkerView)) {
-                                    mapboxMap.selectMarker((Marker) annotation);
-                                }
-                            }
-                            break;
+                Annotation annotation = mapboxMap.getAnnotation(newSelectedMarkerId);
+                if (annotation instanceof Marker) {
+                    if (selectedMarkers.isEmpty() || !selectedMarkers.contains(annotation)) {
+                        // only handle click if no marker view is available
+                        if (!(annotation instanceof MarkerView)) {
+                            mapboxMap.selectMarker((Marker) annotation);
                         }
                     }
                 }
@@ -5,11 +5,14 @@ import android.graphics.Bitmap;
 import android.graphics.PointF;
 import android.graphics.RectF;
 import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
+import android.support.annotation.WorkerThread;
 import android.support.v4.util.LongSparseArray;
 import android.support.v4.util.Pools;
 import android.text.TextUtils;
@@ -28,6 +31,7 @@ import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.PolygonOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
@@ -40,6 +44,7 @@ import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.constants.Style;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.widgets.MyLocationViewSettings;
 import com.mapbox.mapboxsdk.style.layers.Layer;
 import com.mapbox.mapboxsdk.style.layers.NoSuchLayerException;
@@ -49,7 +54,14 @@ import com.mapbox.services.commons.geojson.Feature;
 
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -64,6 +76,8 @@ import java.util.concurrent.TimeUnit;
 public class MapboxMap {
     private static final String TAG = MapboxMap.class.getSimpleName();
 
+    private static ExecutorService annotationExecutor;
+
     private MapView mapView;
     private UiSettings uiSettings;
     private TrackingSettings trackingSettings;
@@ -72,9 +86,20 @@ public class MapboxMap {
     private CameraPosition cameraPosition;
     private boolean invalidCameraPosition;
     private LongSparseArray<Annotation> annotations;
+    // bumped whenever annotations are added, removed or replaced, outdating the snapshot
+    private int annotationsModCount;
+    private AnnotationSnapshot annotationSnapshot;
+    private AnnotationIndex annotationIndex;
+    private ShapeSimplifier shapeSimplifier;
+    private boolean annotationIndexEnabled;
+    private LongSparseArray<Marker> pendingMarkerUpdates;
+    private int markerUpdateDepth;
+    private Executor backgroundExecutor;
+    private Executor mainThreadExecutor;
 
     private List<Marker> selectedMarkers;
     private MarkerViewManager markerViewManager;
+    private MarkerClusterManager markerClusterManager;
 
     private List<InfoWindow> infoWindows;
     private MapboxMap.InfoWindowAdapter infoWindowAdapter;
@@ -105,6 +130,8 @@ public class MapboxMap {
         trackingSettings = new TrackingSettings(this.mapView, uiSettings);
         projection = new Projection(mapView);
         annotations = new LongSparseArray<>();
+        annotationIndex = new AnnotationIndex();
+        shapeSimplifier = new ShapeSimplifier(this);
         selectedMarkers = new ArrayList<>();
         infoWindows = new ArrayList<>();
         markerViewManager = new MarkerViewManager(this, mapView);
@@ -816,7 +843,8 @@ public class MapboxMap {
         long id = mapView.addMarker(marker);
         marker.setMapboxMap(this);
         marker.setId(id);
-        annotations.put(id, marker);
+        putAnnotation(id, marker);
+        indexAnnotation(marker);
         return marker;
     }
 
@@ -837,7 +865,8 @@ public class MapboxMap {
         marker.setMapboxMap(this);
         long id = mapView.addMarker(marker);
         marker.setId(id);
-        annotations.put(id, marker);
+        putAnnotation(id, marker);
+        indexAnnotation(marker);
         markerViewManager.invalidateViewMarkersInVisibleRegion();
         return marker;
     }
@@ -851,7 +880,8 @@ public class MapboxMap {
             marker.setMapboxMap(this);
             long id = mapView.addMarker(marker);
             marker.setId(id);
-            annotations.put(id, marker);
+            putAnnotation(id, marker);
+            indexAnnotation(marker);
             markers.add(marker);
         }
         markerViewManager.invalidateViewMarkersInVisibleRegion();
@@ -874,37 +904,356 @@ public class MapboxMap {
         int count = markerOptionsList.size();
         List<Marker> markers = new ArrayList<>(count);
         if (count > 0) {
-            BaseMarkerOptions markerOptions;
-            Marker marker;
+            // upload the icons seen for the first time together, their top offsets are known afterwards
+            Icon[] icons = new Icon[count];
+            mapView.deferIconUploads();
+            try {
+                for (int i = 0; i < count; i++) {
+                    Marker marker = markerOptionsList.get(i).getMarker();
+                    icons[i] = mapView.loadIconForMarker(marker);
+                    markers.add(marker);
+                }
+            } finally {
+                mapView.uploadDeferredIcons();
+            }
+
+            Map<Icon, Integer> topOffsets = new HashMap<>();
             for (int i = 0; i < count; i++) {
-                markerOptions = markerOptionsList.get(i);
-                marker = prepareMarker(markerOptions);
-                markers.add(marker);
+                Integer topOffset = topOffsets.get(icons[i]);
+                if (topOffset == null) {
+                    topOffset = mapView.getTopOffsetPixelsForIcon(icons[i]);
+                    topOffsets.put(icons[i], topOffset);
+                }
+                markers.get(i).setTopOffsetPixels(topOffset);
             }
 
             if (markers.size() > 0) {
                 long[] ids = mapView.addMarkers(markers);
+                registerMarkers(markers, ids);
+            }
+        }
+        return markers;
+    }
 
-                // if unittests or markers are correctly added to map
-                if (ids == null || ids.length == markers.size()) {
-                    long id = 0;
-                    Marker m;
-                    for (int i = 0; i < markers.size(); i++) {
-                        m = markers.get(i);
-                        m.setMapboxMap(this);
-                        if (ids != null) {
-                            id = ids[i];
-                        } else {
-                            //unit test
-                            id++;
+    /**
+     * <p>
+     * Adds multiple markers to this map from packed coordinates.
+     * </p>
+     * Coordinates are read straight from the array and passed to the map in a single call, which makes
+     * this considerably faster than {@link #addMarkers(List)} for large amounts of markers.
+     *
+     * @param latLngs     The marker positions as latitude, longitude pairs.
+     * @param icons       The icons used by the markers, a null entry stands for the default marker icon.
+     * @param iconIndices The index into icons for each marker, or null to use the first icon for every marker.
+     * @return A list of the {@code Marker}s that were added to the map.
+     */
+    @UiThread
+    @NonNull
+    public List<Marker> addMarkers(@NonNull double[] latLngs, @NonNull Icon[] icons, @Nullable int[] iconIndices) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs should hold latitude, longitude pairs");
+        }
+        int count = latLngs.length / 2;
+        if (iconIndices == null) {
+            iconIndices = new int[count];
+        } else if (iconIndices.length != count) {
+            throw new IllegalArgumentException("iconIndices should hold an index for every marker");
+        }
+        if (icons.length == 0) {
+            icons = new Icon[1];
+        }
+
+        // load every icon once rather than once per marker
+        Icon[] loadedIcons = new Icon[icons.length];
+        List<Marker> markers = new ArrayList<>(count);
+        Marker marker;
+        int iconIndex;
+        mapView.deferIconUploads();
+        try {
+            for (int i = 0; i < count; i++) {
+                iconIndex = iconIndices[i];
+                marker = new MarkerOptions()
+                        .position(new LatLng(latLngs[i * 2], latLngs[i * 2 + 1]))
+                        .icon(loadedIcons[iconIndex] != null ? loadedIcons[iconIndex] : icons[iconIndex])
+                        .getMarker();
+                if (loadedIcons[iconIndex] == null) {
+                    loadedIcons[iconIndex] = mapView.loadIconForMarker(marker);
+                }
+                markers.add(marker);
+            }
+        } finally {
+            mapView.uploadDeferredIcons();
+        }
+
+        int[] topOffsets = new int[icons.length];
+        for (int i = 0; i < loadedIcons.length; i++) {
+            if (loadedIcons[i] != null) {
+                topOffsets[i] = mapView.getTopOffsetPixelsForIcon(loadedIcons[i]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            markers.get(i).setTopOffsetPixels(topOffsets[iconIndices[i]]);
+        }
+
+        if (count > 0) {
+            String[] iconIds = new String[loadedIcons.length];
+            for (int i = 0; i < loadedIcons.length; i++) {
+                // icons no marker refers to are never read
+                iconIds[i] = loadedIcons[i] != null ? loadedIcons[i].getId() : "";
+            }
+            long[] ids = mapView.addMarkers(latLngs, iconIndices, iconIds);
+            registerMarkers(markers, ids);
+        }
+        return markers;
+    }
+
+    /**
+     * <p>
+     * Adds multiple markers with the same icon to this map from packed coordinates.
+     * </p>
+     *
+     * @param latLngs The marker positions as latitude, longitude pairs.
+     * @param icon    The icon used by the markers, null for the default marker icon.
+     * @return A list of the {@code Marker}s that were added to the map.
+     * @see #addMarkers(double[], Icon[], int[])
+     */
+    @UiThread
+    @NonNull
+    public List<Marker> addMarkers(@NonNull double[] latLngs, @Nullable Icon icon) {
+        return addMarkers(latLngs, new Icon[]{icon}, null);
+    }
+
+    /**
+     * <p>
+     * Adds multiple markers to this map without blocking the main thread.
+     * </p>
+     * Markers are created, default icons are decoded and the coordinates are packed on a background thread.
+     * Only uploading new icons and inserting the markers into the map happens on the main thread, in a single
+     * call to the map. Markers are added in the order this method is called.
+     *
+     * @param markerOptionsList A list of marker options objects that defines how to render the markers.
+     * @param callback          The callback invoked on the main thread once the markers were added or failed to be
+     *                          added, can be null.
+     */
+    @UiThread
+    public void addMarkersAsync(@NonNull List<? extends BaseMarkerOptions> markerOptionsList,
+                                @Nullable final MarkersAddedCallback callback) {
+        final List<? extends BaseMarkerOptions> options = new ArrayList<>(markerOptionsList);
+        final Context context = mapView.getContext();
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final PreparedMarkers prepared;
+                try {
+                    prepared = prepareMarkers(options, context);
+                } catch (final RuntimeException exception) {
+                    // don't lose the failure on the worker thread, none of the markers were added
+                    getMainThreadExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            notifyMarkersFailed(callback, exception);
+                        }
+                    });
+                    return;
+                }
+
+                getMainThreadExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            addPreparedMarkers(prepared);
+                        } catch (RuntimeException exception) {
+                            notifyMarkersFailed(callback, exception);
+                            return;
+                        }
+                        if (callback != null) {
+                            callback.onMarkersAdded(prepared.markers);
                         }
-                        m.setId(id);
-                        annotations.put(id, m);
                     }
+                });
+            }
+        });
+    }
+
+    private static void notifyMarkersFailed(@Nullable MarkersAddedCallback callback,
+                                            @NonNull RuntimeException exception) {
+        if (callback != null) {
+            callback.onMarkersFailed(exception);
+        } else {
+            Log.e(MapboxConstants.TAG, "Could not add markers: " + exception.getMessage());
+        }
+    }
+
+    @WorkerThread
+    private static PreparedMarkers prepareMarkers(List<? extends BaseMarkerOptions> markerOptionsList,
+                                                  Context context) {
+        int count = markerOptionsList.size();
+        PreparedMarkers prepared = new PreparedMarkers(count);
+        Map<Icon, Integer> iconIndices = new HashMap<>();
+        Marker marker;
+        Icon icon;
+        Integer iconIndex;
+        for (int i = 0; i < count; i++) {
+            marker = markerOptionsList.get(i).getMarker();
+            icon = marker.getIcon();
+            if (icon == null) {
+                icon = IconFactory.getInstance(context).defaultMarker();
+                marker.setIcon(icon);
+            }
+
+            iconIndex = iconIndices.get(icon);
+            if (iconIndex == null) {
+                iconIndex = prepared.iconMarkers.size();
+                iconIndices.put(icon, iconIndex);
+                prepared.iconMarkers.add(marker);
+            }
+
+            LatLng position = marker.getPosition();
+            prepared.latLngs[i * 2] = position.getLatitude();
+            prepared.latLngs[i * 2 + 1] = position.getLongitude();
+            prepared.iconIndices[i] = iconIndex;
+            prepared.markers.add(marker);
+        }
+        return prepared;
+    }
+
+    @UiThread
+    private void addPreparedMarkers(PreparedMarkers prepared) {
+        if (prepared.markers.isEmpty()) {
+            return;
+        }
+        // the map view may have been destroyed while the markers were prepared
+        if (mapView.isDestroyed()) {
+            throw new IllegalStateException("Markers were not added, the map view is destroyed");
+        }
+
+        // upload every distinct icon once, using the first marker that shows it
+        int iconCount = prepared.iconMarkers.size();
+        String[] iconIds = new String[iconCount];
+        int[] topOffsets = new int[iconCount];
+        Icon[] icons = new Icon[iconCount];
+        mapView.deferIconUploads();
+        try {
+            for (int i = 0; i < iconCount; i++) {
+                icons[i] = mapView.loadIconForMarker(prepared.iconMarkers.get(i));
+                iconIds[i] = icons[i].getId();
+            }
+        } finally {
+            mapView.uploadDeferredIcons();
+        }
+        for (int i = 0; i < iconCount; i++) {
+            topOffsets[i] = mapView.getTopOffsetPixelsForIcon(icons[i]);
+        }
+        for (int i = 0; i < prepared.markers.size(); i++) {
+            prepared.markers.get(i).setTopOffsetPixels(topOffsets[prepared.iconIndices[i]]);
+        }
+
+        long[] ids = mapView.addMarkers(prepared.latLngs, prepared.iconIndices, iconIds);
+        if (ids != null && ids.length != prepared.markers.size()) {
+            throw new IllegalStateException("Markers were not added, the map returned " + ids.length
+                    + " ids for " + prepared.markers.size() + " markers");
+        }
+        registerMarkers(prepared.markers, ids);
+    }
+
+    Executor getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            synchronized (MapboxMap.class) {
+                if (annotationExecutor == null) {
+                    // a single thread keeps concurrent imports in call order
+                    annotationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "MapboxMap annotations");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
                 }
+                backgroundExecutor = annotationExecutor;
             }
         }
-        return markers;
+        return backgroundExecutor;
+    }
+
+    Executor getMainThreadExecutor() {
+        if (mainThreadExecutor == null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            mainThreadExecutor = new Executor() {
+                @Override
+                public void execute(@NonNull Runnable runnable) {
+                    handler.post(runnable);
+                }
+            };
+        }
+        return mainThreadExecutor;
+    }
+
+    // for testing only
+    void setAnnotationExecutors(Executor backgroundExecutor, Executor mainThreadExecutor) {
+        this.backgroundExecutor = backgroundExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    private void registerMarkers(List<Marker> markers, long[] ids) {
+        // if unittests or markers are correctly added to map
+        if (ids == null || ids.length == markers.size()) {
+            long id = 0;
+            Marker m;
+            for (int i = 0; i < markers.size(); i++) {
+                m = markers.get(i);
+                m.setMapboxMap(this);
+                if (ids != null) {
+                    id = ids[i];
+                } else {
+                    //unit test
+                    id++;
+                }
+                m.setId(id);
+                putAnnotation(id, m);
+                indexAnnotation(m);
+            }
+        }
+    }
+
+    /**
+     * Moves markers that were added to the map again under new ids, as happens when the style loads.
+     *
+     * @param markers the markers
+     * @param oldIds  the ids the markers had
+     * @param newIds  the ids the markers were added with
+     * @throws IllegalArgumentException if the id counts don't match the marker count, nothing is reassigned then
+     */
+    @UiThread
+    void reassignMarkerIds(@NonNull List<Marker> markers, @NonNull long[] oldIds, @NonNull long[] newIds) {
+        if (oldIds.length != markers.size() || newIds.length != markers.size()) {
+            throw new IllegalArgumentException("Cannot reassign " + oldIds.length + " marker ids to " + newIds.length
+                    + " ids for " + markers.size() + " markers");
+        }
+
+        // remove every old id first, a new id may equal the old id of another marker
+        boolean[] pending = new boolean[oldIds.length];
+        for (int i = 0; i < oldIds.length; i++) {
+            removeAnnotationEntry(oldIds[i]);
+            unindexAnnotation(oldIds[i]);
+            if (pendingMarkerUpdates != null && pendingMarkerUpdates.get(oldIds[i]) != null) {
+                pendingMarkerUpdates.remove(oldIds[i]);
+                pending[i] = true;
+            }
+        }
+        for (int i = 0; i < newIds.length; i++) {
+            Marker marker = markers.get(i);
+            marker.setId(newIds[i]);
+            putAnnotation(newIds[i], marker);
+            indexAnnotation(marker);
+            if (pending[i]) {
+                pendingMarkerUpdates.put(newIds[i], marker);
+            }
+        }
+
+        if (markerClusterManager != null) {
+            markerClusterManager.reassignMarkerIds(oldIds, newIds);
+        }
     }
 
     /**
@@ -916,12 +1265,80 @@ public class MapboxMap {
      */
     @UiThread
     public void updateMarker(@NonNull Marker updatedMarker) {
+        if (pendingMarkerUpdates != null) {
+            pendingMarkerUpdates.put(updatedMarker.getId(), updatedMarker);
+            return;
+        }
+
         mapView.updateMarker(updatedMarker);
 
         int index = annotations.indexOfKey(updatedMarker.getId());
         if (index > -1) {
-            annotations.setValueAt(index, updatedMarker);
+            setAnnotationAt(index, updatedMarker);
+            indexAnnotation(updatedMarker);
+        }
+    }
+
+    /**
+     * <p>
+     * Updates multiple markers on this map in a single native call.
+     * </p>
+     * Markers that weren't added to this map are ignored.
+     *
+     * @param updatedMarkers A list of updated marker objects.
+     */
+    @UiThread
+    public void updateMarkers(@NonNull List<? extends Marker> updatedMarkers) {
+        if (pendingMarkerUpdates != null) {
+            for (Marker marker : updatedMarkers) {
+                pendingMarkerUpdates.put(marker.getId(), marker);
+            }
+            return;
+        }
+
+        List<Marker> markers = new ArrayList<>(updatedMarkers.size());
+        for (Marker marker : updatedMarkers) {
+            int index = annotations.indexOfKey(marker.getId());
+            if (index > -1) {
+                setAnnotationAt(index, marker);
+                indexAnnotation(marker);
+                markers.add(marker);
+            }
+        }
+        mapView.updateMarkers(markers);
+    }
+
+    /**
+     * <p>
+     * Starts collecting marker updates instead of applying each one as it happens.
+     * </p>
+     * Changing the position or icon of a marker normally updates the map straight away. Between this call
+     * and {@link #endMarkerUpdates()} those changes are collected and applied in a single native call,
+     * which is considerably cheaper when moving many markers at once. Calls may be nested.
+     */
+    @UiThread
+    public void beginMarkerUpdates() {
+        if (markerUpdateDepth++ == 0) {
+            pendingMarkerUpdates = new LongSparseArray<>();
+        }
+    }
+
+    /**
+     * Applies the marker updates collected since {@link #beginMarkerUpdates()}.
+     */
+    @UiThread
+    public void endMarkerUpdates() {
+        if (markerUpdateDepth == 0 || --markerUpdateDepth > 0) {
+            return;
         }
+
+        LongSparseArray<Marker> pending = pendingMarkerUpdates;
+        pendingMarkerUpdates = null;
+        List<Marker> markers = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            markers.add(pending.valueAt(i));
+        }
+        updateMarkers(markers);
     }
 
     /**
@@ -931,11 +1348,17 @@ public class MapboxMap {
      */
     @UiThread
     public void updatePolygon(Polygon polygon) {
-        mapView.updatePolygon(polygon);
+        if (polygon.getSimplifyTolerance() > 0) {
+            shapeSimplifier.update(polygon);
+        } else {
+            shapeSimplifier.remove(polygon.getId());
+            mapView.updatePolygon(polygon);
+        }
 
         int index = annotations.indexOfKey(polygon.getId());
         if (index > -1) {
-            annotations.setValueAt(index, polygon);
+            setAnnotationAt(index, polygon);
+            indexAnnotation(polygon);
         }
     }
 
@@ -946,11 +1369,17 @@ public class MapboxMap {
      */
     @UiThread
     public void updatePolyline(Polyline polyline) {
-        mapView.updatePolyline(polyline);
+        if (polyline.getSimplifyTolerance() > 0) {
+            shapeSimplifier.update(polyline);
+        } else {
+            shapeSimplifier.remove(polyline.getId());
+            mapView.updatePolyline(polyline);
+        }
 
         int index = annotations.indexOfKey(polyline.getId());
         if (index > -1) {
-            annotations.setValueAt(index, polyline);
+            setAnnotationAt(index, polyline);
+            indexAnnotation(polyline);
         }
     }
 
@@ -964,11 +1393,23 @@ public class MapboxMap {
     @NonNull
     public Polyline addPolyline(@NonNull PolylineOptions polylineOptions) {
         Polyline polyline = polylineOptions.getPolyline();
-        if (!polyline.getPoints().isEmpty()) {
-            long id = mapView.addPolyline(polyline);
+        List<LatLng> points = polyline.getPoints();
+        if (!points.isEmpty()) {
+            ShapeSimplifier.Ranking ranking = null;
+            long id;
+            if (polyline.getSimplifyTolerance() > 0) {
+                ranking = ShapeSimplifier.rank(points, false);
+                id = mapView.addPolyline(polyline, shapeSimplifier.getLatLngs(polyline, ranking));
+            } else {
+                id = mapView.addPolyline(polyline);
+            }
             polyline.setMapboxMap(this);
             polyline.setId(id);
-            annotations.put(id, polyline);
+            putAnnotation(id, polyline);
+            indexAnnotation(polyline);
+            if (ranking != null) {
+                shapeSimplifier.put(polyline, ranking);
+            }
         }
         return polyline;
     }
@@ -994,26 +1435,59 @@ public class MapboxMap {
                 }
             }
 
-            long[] ids = mapView.addPolylines(polylines);
-
-            // if unit tests or polylines are correctly added to map
-            if (ids == null || ids.length == polylines.size()) {
-                long id = 0;
-                Polyline p;
-
-                for (int i = 0; i < polylines.size(); i++) {
-                    p = polylines.get(i);
-                    p.setMapboxMap(this);
-                    if (ids != null) {
-                        id = ids[i];
-                    } else {
-                        // unit test
-                        id++;
-                    }
-                    p.setId(id);
-                    annotations.put(id, p);
-                }
+            ShapeSimplifier.Ranking[] rankings = rankSimplified(polylines, false);
+            long[] ids;
+            if (rankings != null) {
+                int[] pointCounts = new int[polylines.size()];
+                ids = mapView.addPolylines(polylines, packPoints(polylines, rankings, pointCounts), pointCounts);
+            } else {
+                ids = mapView.addPolylines(polylines);
             }
+
+            registerShapes(polylines, ids, rankings);
+        }
+        return polylines;
+    }
+
+    /**
+     * <p>
+     * Adds multiple polylines with the same style to this map from packed coordinates.
+     * </p>
+     * Unless the style simplifies the polylines, coordinates are passed to the map straight from the array in a
+     * single call, which makes this considerably faster than {@link #addPolylines(List)} for large amounts of points.
+     *
+     * @param latLngs     The points of all polylines as latitude, longitude pairs, one polyline after the other.
+     * @param pointCounts The amount of points of each polyline, each at least 1.
+     * @param style       The color, width, alpha and simplification of the polylines, its points are ignored.
+     * @return A list of the {@code Polyline}s that were added to the map.
+     */
+    @UiThread
+    @NonNull
+    public List<Polyline> addPolylines(@NonNull double[] latLngs, @NonNull int[] pointCounts,
+                                       @NonNull PolylineOptions style) {
+        checkPackedShapes(latLngs, pointCounts);
+        List<PolylineOptions> optionsList = new ArrayList<>(pointCounts.length);
+        int offset = 0;
+        for (int pointCount : pointCounts) {
+            optionsList.add(new PolylineOptions()
+                    .addAll(unpackPoints(latLngs, offset, pointCount))
+                    .color(style.getColor())
+                    .width(style.getWidth())
+                    .alpha(style.getAlpha())
+                    .simplify(style.getSimplifyTolerance()));
+            offset += pointCount;
+        }
+        if (style.getSimplifyTolerance() > 0) {
+            // the map gets the simplified points, not the ones passed in
+            return addPolylines(optionsList);
+        }
+
+        List<Polyline> polylines = new ArrayList<>(optionsList.size());
+        for (PolylineOptions options : optionsList) {
+            polylines.add(options.getPolyline());
+        }
+        if (!polylines.isEmpty()) {
+            registerShapes(polylines, mapView.addPolylines(polylines, latLngs, pointCounts), null);
         }
         return polylines;
     }
@@ -1028,11 +1502,23 @@ public class MapboxMap {
     @NonNull
     public Polygon addPolygon(@NonNull PolygonOptions polygonOptions) {
         Polygon polygon = polygonOptions.getPolygon();
-        if (!polygon.getPoints().isEmpty()) {
-            long id = mapView.addPolygon(polygon);
+        List<LatLng> points = polygon.getPoints();
+        if (!points.isEmpty()) {
+            ShapeSimplifier.Ranking ranking = null;
+            long id;
+            if (polygon.getSimplifyTolerance() > 0) {
+                ranking = ShapeSimplifier.rank(points, true);
+                id = mapView.addPolygon(polygon, shapeSimplifier.getLatLngs(polygon, ranking));
+            } else {
+                id = mapView.addPolygon(polygon);
+            }
             polygon.setId(id);
             polygon.setMapboxMap(this);
-            annotations.put(id, polygon);
+            putAnnotation(id, polygon);
+            indexAnnotation(polygon);
+            if (ranking != null) {
+                shapeSimplifier.put(polygon, ranking);
+            }
         }
         return polygon;
     }
@@ -1058,28 +1544,159 @@ public class MapboxMap {
                 }
             }
 
-            long[] ids = mapView.addPolygons(polygons);
-
-            // if unit tests or polygons correctly added to map
-            if (ids == null || ids.length == polygons.size()) {
-                long id = 0;
-                for (int i = 0; i < polygons.size(); i++) {
-                    polygon = polygons.get(i);
-                    polygon.setMapboxMap(this);
-                    if (ids != null) {
-                        id = ids[i];
-                    } else {
-                        // unit test
-                        id++;
-                    }
-                    polygon.setId(id);
-                    annotations.put(id, polygon);
-                }
+            ShapeSimplifier.Ranking[] rankings = rankSimplified(polygons, true);
+            long[] ids;
+            if (rankings != null) {
+                int[] pointCounts = new int[polygons.size()];
+                ids = mapView.addPolygons(polygons, packPoints(polygons, rankings, pointCounts), pointCounts);
+            } else {
+                ids = mapView.addPolygons(polygons);
             }
+
+            registerShapes(polygons, ids, rankings);
         }
         return polygons;
     }
 
+    /**
+     * <p>
+     * Adds multiple polygons with the same style to this map from packed coordinates.
+     * </p>
+     * Unless the style simplifies the polygons, coordinates are passed to the map straight from the array in a
+     * single call, which makes this considerably faster than {@link #addPolygons(List)} for large amounts of points.
+     *
+     * @param latLngs     The points of all polygons as latitude, longitude pairs, one polygon after the other.
+     * @param pointCounts The amount of points of each polygon, each at least 1.
+     * @param style       The fill color, stroke color, alpha and simplification of the polygons, its points are
+     *                    ignored.
+     * @return A list of the {@code Polygon}s that were added to the map.
+     */
+    @UiThread
+    @NonNull
+    public List<Polygon> addPolygons(@NonNull double[] latLngs, @NonNull int[] pointCounts,
+                                     @NonNull PolygonOptions style) {
+        checkPackedShapes(latLngs, pointCounts);
+        List<PolygonOptions> optionsList = new ArrayList<>(pointCounts.length);
+        int offset = 0;
+        for (int pointCount : pointCounts) {
+            optionsList.add(new PolygonOptions()
+                    .addAll(unpackPoints(latLngs, offset, pointCount))
+                    .fillColor(style.getFillColor())
+                    .strokeColor(style.getStrokeColor())
+                    .alpha(style.getAlpha())
+                    .simplify(style.getSimplifyTolerance()));
+            offset += pointCount;
+        }
+        if (style.getSimplifyTolerance() > 0) {
+            // the map gets the simplified points, not the ones passed in
+            return addPolygons(optionsList);
+        }
+
+        List<Polygon> polygons = new ArrayList<>(optionsList.size());
+        for (PolygonOptions options : optionsList) {
+            polygons.add(options.getPolygon());
+        }
+        if (!polygons.isEmpty()) {
+            registerShapes(polygons, mapView.addPolygons(polygons, latLngs, pointCounts), null);
+        }
+        return polygons;
+    }
+
+    private static void checkPackedShapes(double[] latLngs, int[] pointCounts) {
+        long total = 0;
+        for (int pointCount : pointCounts) {
+            if (pointCount < 1) {
+                throw new IllegalArgumentException("pointCounts should hold at least one point for every shape");
+            }
+            total += pointCount;
+        }
+        if (total * 2 != latLngs.length) {
+            throw new IllegalArgumentException("latLngs should hold a latitude, longitude pair for every point");
+        }
+    }
+
+    private static List<LatLng> unpackPoints(double[] latLngs, int offset, int count) {
+        List<LatLng> points = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            points.add(new LatLng(latLngs[i * 2], latLngs[i * 2 + 1]));
+        }
+        return points;
+    }
+
+    // Registers shapes the map added, rankings is null if none of them is simplified
+    private void registerShapes(List<? extends MultiPoint> shapes, long[] ids,
+                                @Nullable ShapeSimplifier.Ranking[] rankings) {
+        // if unit tests or shapes are correctly added to map
+        if (ids != null && ids.length != shapes.size()) {
+            return;
+        }
+
+        long id = 0;
+        MultiPoint shape;
+        for (int i = 0; i < shapes.size(); i++) {
+            shape = shapes.get(i);
+            shape.setMapboxMap(this);
+            if (ids != null) {
+                id = ids[i];
+            } else {
+                // unit test
+                id++;
+            }
+            shape.setId(id);
+            putAnnotation(id, shape);
+            indexAnnotation(shape);
+            if (rankings != null && rankings[i] != null) {
+                shapeSimplifier.put(shape, rankings[i]);
+            }
+        }
+    }
+
+    // Ranks the points of the shapes to simplify, null if none of the shapes is simplified
+    @Nullable
+    private static ShapeSimplifier.Ranking[] rankSimplified(List<? extends MultiPoint> shapes, boolean closed) {
+        ShapeSimplifier.Ranking[] rankings = null;
+        for (int i = 0; i < shapes.size(); i++) {
+            MultiPoint shape = shapes.get(i);
+            if (shape.getSimplifyTolerance() > 0) {
+                if (rankings == null) {
+                    rankings = new ShapeSimplifier.Ranking[shapes.size()];
+                }
+                rankings[i] = ShapeSimplifier.rank(shape.getPoints(), closed);
+            }
+        }
+        return rankings;
+    }
+
+    // The points of all shapes, simplified where ranked, as latitude, longitude pairs
+    private double[] packPoints(List<? extends MultiPoint> shapes, ShapeSimplifier.Ranking[] rankings,
+                                int[] pointCounts) {
+        double[][] shapeLatLngs = new double[shapes.size()][];
+        int total = 0;
+        for (int i = 0; i < shapes.size(); i++) {
+            MultiPoint shape = shapes.get(i);
+            if (rankings[i] != null) {
+                shapeLatLngs[i] = shapeSimplifier.getLatLngs(shape, rankings[i]);
+            } else {
+                List<LatLng> points = shape.getPoints();
+                shapeLatLngs[i] = new double[points.size() * 2];
+                for (int j = 0; j < points.size(); j++) {
+                    shapeLatLngs[i][j * 2] = points.get(j).getLatitude();
+                    shapeLatLngs[i][j * 2 + 1] = points.get(j).getLongitude();
+                }
+            }
+            pointCounts[i] = shapeLatLngs[i].length / 2;
+            total += shapeLatLngs[i].length;
+        }
+
+        double[] latLngs = new double[total];
+        int offset = 0;
+        for (double[] points : shapeLatLngs) {
+            System.arraycopy(points, 0, latLngs, offset, points.length);
+            offset += points.length;
+        }
+        return latLngs;
+    }
+
     /**
      * <p>
      * Convenience method for removing a Marker from the map.
@@ -1126,16 +1743,12 @@ public class MapboxMap {
      */
     @UiThread
     public void removeAnnotation(@NonNull Annotation annotation) {
-        if (annotation instanceof Marker) {
-            Marker marker = (Marker) annotation;
-            marker.hideInfoWindow();
-            if (marker instanceof MarkerView) {
-                markerViewManager.removeMarkerView((MarkerView) marker);
-            }
-        }
+        releaseMarkers(Collections.singletonList(annotation));
         long id = annotation.getId();
         mapView.removeAnnotation(id);
-        annotations.remove(id);
+        removeAnnotationEntry(id);
+        unindexAnnotation(id);
+        shapeSimplifier.remove(id);
     }
 
     /**
@@ -1146,7 +1759,9 @@ public class MapboxMap {
     @UiThread
     public void removeAnnotation(long id) {
         mapView.removeAnnotation(id);
-        annotations.remove(id);
+        removeAnnotationEntry(id);
+        unindexAnnotation(id);
+        shapeSimplifier.remove(id);
     }
 
     /**
@@ -1159,19 +1774,14 @@ public class MapboxMap {
         int count = annotationList.size();
         long[] ids = new long[count];
         for (int i = 0; i < count; i++) {
-            Annotation annotation = annotationList.get(i);
-            if (annotation instanceof Marker) {
-                Marker marker = (Marker) annotation;
-                marker.hideInfoWindow();
-                if (marker instanceof MarkerView) {
-                    markerViewManager.removeMarkerView((MarkerView) marker);
-                }
-            }
             ids[i] = annotationList.get(i).getId();
         }
+        releaseMarkers(annotationList);
         mapView.removeAnnotations(ids);
         for (long id : ids) {
-            annotations.remove(id);
+            removeAnnotationEntry(id);
+            unindexAnnotation(id);
+            shapeSimplifier.remove(id);
         }
     }
 
@@ -1180,22 +1790,37 @@ public class MapboxMap {
      */
     @UiThread
     public void removeAnnotations() {
-        Annotation annotation;
         int count = annotations.size();
         long[] ids = new long[count];
         for (int i = 0; i < count; i++) {
             ids[i] = annotations.keyAt(i);
-            annotation = annotations.get(ids[i]);
-            if (annotation instanceof Marker) {
-                Marker marker = (Marker) annotation;
-                marker.hideInfoWindow();
-                if (marker instanceof MarkerView) {
-                    markerViewManager.removeMarkerView((MarkerView) marker);
+        }
+        releaseMarkers(getMarkers());
+        mapView.removeAnnotations(ids);
+        clearAnnotationEntries();
+        annotationIndex.clear();
+        shapeSimplifier.clear();
+    }
+
+    // Closes the info windows of markers about to be removed and releases the Views of MarkerViews in bulk
+    private void releaseMarkers(List<? extends Annotation> annotationList) {
+        List<MarkerView> markerViews = null;
+        for (Annotation annotation : annotationList) {
+            if (!(annotation instanceof Marker)) {
+                continue;
+            }
+            Marker marker = (Marker) annotation;
+            marker.hideInfoWindow();
+            if (marker instanceof MarkerView) {
+                if (markerViews == null) {
+                    markerViews = new ArrayList<>();
                 }
+                markerViews.add((MarkerView) marker);
             }
         }
-        mapView.removeAnnotations(ids);
-        annotations.clear();
+        if (markerViews != null) {
+            markerViewManager.removeMarkerViews(markerViews);
+        }
     }
 
     /**
@@ -1218,32 +1843,98 @@ public class MapboxMap {
     }
 
     /**
-     * Returns a list of all the annotations on the map.
+     * Returns the annotations whose geometry lies within, or for polylines and polygons whose
+     * bounding box intersects, the given bounds.
+     * <p>
+     * The query is answered in Java and does not depend on what is rendered. It scans every annotation
+     * unless the annotation index is enabled, see {@link #setAnnotationIndexEnabled(boolean)}.
+     * </p>
      *
-     * @return A list of all the annotation objects. The returned object is a copy so modifying this
+     * @param bounds the bounds to query
+     * @return A list of the annotations found. The returned object is a copy so modifying this
      * list will not update the map
      */
     @NonNull
-    public List<Annotation> getAnnotations() {
-        List<Annotation> annotations = new ArrayList<>();
-        for (int i = 0; i < this.annotations.size(); i++) {
-            annotations.add(this.annotations.get(this.annotations.keyAt(i)));
+    public List<Annotation> queryAnnotations(@NonNull LatLngBounds bounds) {
+        List<Annotation> result = new ArrayList<>();
+        if (annotationIndexEnabled) {
+            annotationIndex.query(bounds, result);
+        } else {
+            AnnotationIndex.scan(annotations, bounds, result);
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     * Sets whether marker taps and MarkerView discovery are answered by the Java annotation index
+     * instead of querying the rendered annotation icons.
+     * </p>
+     * The index compares marker positions against the tapped region, which avoids a native query
+     * on every tap and camera change but does not account for the exact icon size. The index is only
+     * maintained while enabled and is rebuilt from the current annotations when enabled. Disabled by default.
+     *
+     * @param enabled true to use the annotation index
+     */
+    @UiThread
+    public void setAnnotationIndexEnabled(boolean enabled) {
+        if (annotationIndexEnabled == enabled) {
+            return;
+        }
+
+        annotationIndexEnabled = enabled;
+        if (enabled) {
+            annotationIndex.rebuild(annotations);
+        } else {
+            // not maintained while disabled, drop what would go stale
+            annotationIndex.clear();
         }
-        return annotations;
+    }
+
+    /**
+     * Returns whether marker taps and MarkerView discovery are answered by the Java annotation index.
+     *
+     * @return true if the annotation index is used
+     */
+    public boolean isAnnotationIndexEnabled() {
+        return annotationIndexEnabled;
+    }
+
+    /**
+     * Returns a list of all the annotations on the map.
+     *
+     * @return A list of all the annotation objects. The returned list is an unmodifiable snapshot, it is
+     * shared between calls until annotations are added or removed and is not updated afterwards
+     */
+    @NonNull
+    public List<Annotation> getAnnotations() {
+        return getAnnotationSnapshot().annotations;
     }
 
     /**
      * Returns a list of all the markers on the map.
      *
-     * @return A list of all the markers objects. The returned object is a copy so modifying this
-     * list will not update the map.
+     * @return A list of all the markers objects. The returned list is an unmodifiable snapshot, it is
+     * shared between calls until annotations are added or removed and is not updated afterwards.
      */
     @NonNull
     public List<Marker> getMarkers() {
-        List<Marker> markers = new ArrayList<>();
+        return getAnnotationSnapshot().markers;
+    }
+
+    /**
+     * Resolves annotation ids, as returned by a native query, to the markers they belong to.
+     * Ids that are unknown or belong to a polygon or polyline are skipped.
+     *
+     * @param ids the annotation ids to resolve
+     * @return the markers in the order of their ids
+     */
+    @NonNull
+    List<Marker> getMarkers(@NonNull long[] ids) {
+        List<Marker> markers = new ArrayList<>(ids.length);
         Annotation annotation;
-        for (int i = 0; i < annotations.size(); i++) {
-            annotation = annotations.get(annotations.keyAt(i));
+        for (long id : ids) {
+            annotation = annotations.get(id);
             if (annotation instanceof Marker) {
                 markers.add((Marker) annotation);
             }
@@ -1252,41 +1943,89 @@ public class MapboxMap {
     }
 
     /**
-     * Returns a list of all the polygons on the map.
+     * Resolves annotation ids, as returned by a native query, to the MarkerViews they belong to.
+     * Ids that are unknown or belong to any other annotation are skipped.
      *
-     * @return A list of all the polygon objects. The returned object is a copy so modifying this
-     * list will not update the map.
+     * @param ids the annotation ids to resolve
+     * @return the MarkerViews in the order of their ids
      */
     @NonNull
-    public List<Polygon> getPolygons() {
-        List<Polygon> polygons = new ArrayList<>();
+    List<MarkerView> getMarkerViews(@NonNull long[] ids) {
+        List<MarkerView> markerViews = new ArrayList<>(ids.length);
         Annotation annotation;
-        for (int i = 0; i < annotations.size(); i++) {
-            annotation = annotations.get(annotations.keyAt(i));
-            if (annotation instanceof Polygon) {
-                polygons.add((Polygon) annotation);
+        for (long id : ids) {
+            annotation = annotations.get(id);
+            if (annotation instanceof MarkerView) {
+                markerViews.add((MarkerView) annotation);
             }
         }
-        return polygons;
+        return markerViews;
+    }
+
+    /**
+     * Returns a list of all the polygons on the map.
+     *
+     * @return A list of all the polygon objects. The returned list is an unmodifiable snapshot, it is
+     * shared between calls until annotations are added or removed and is not updated afterwards.
+     */
+    @NonNull
+    public List<Polygon> getPolygons() {
+        return getAnnotationSnapshot().polygons;
     }
 
     /**
      * Returns a list of all the polylines on the map.
      *
-     * @return A list of all the polylines objects. The returned object is a copy so modifying this
-     * list will not update the map.
+     * @return A list of all the polylines objects. The returned list is an unmodifiable snapshot, it is
+     * shared between calls until annotations are added or removed and is not updated afterwards.
      */
     @NonNull
     public List<Polyline> getPolylines() {
-        List<Polyline> polylines = new ArrayList<>();
-        Annotation annotation;
-        for (int i = 0; i < annotations.size(); i++) {
-            annotation = annotations.get(annotations.keyAt(i));
-            if (annotation instanceof Polyline) {
-                polylines.add((Polyline) annotation);
-            }
+        return getAnnotationSnapshot().polylines;
+    }
+
+    private AnnotationSnapshot getAnnotationSnapshot() {
+        if (annotationSnapshot == null || annotationSnapshot.modCount != annotationsModCount) {
+            annotationSnapshot = new AnnotationSnapshot(annotations, annotationsModCount);
+        }
+        return annotationSnapshot;
+    }
+
+    private void indexAnnotation(Annotation annotation) {
+        if (annotationIndexEnabled) {
+            annotationIndex.insert(annotation);
+        }
+    }
+
+    private void unindexAnnotation(long id) {
+        if (annotationIndexEnabled) {
+            annotationIndex.remove(id);
+        }
+    }
+
+    private void putAnnotation(long id, Annotation annotation) {
+        annotations.put(id, annotation);
+        annotationsModCount++;
+    }
+
+    private void setAnnotationAt(int index, Annotation annotation) {
+        // updates usually pass the annotation that is already stored, which leaves the snapshot valid
+        if (annotations.valueAt(index) != annotation) {
+            annotations.setValueAt(index, annotation);
+            annotationsModCount++;
         }
-        return polylines;
+    }
+
+    private void removeAnnotationEntry(long id) {
+        if (annotations.indexOfKey(id) >= 0) {
+            annotations.remove(id);
+            annotationsModCount++;
+        }
+    }
+
+    private void clearAnnotationEntries() {
+        annotations.clear();
+        annotationsModCount++;
     }
 
     /**
@@ -1310,6 +2049,11 @@ public class MapboxMap {
             return;
         }
 
+        // tapping a cluster zooms in on it rather than selecting it
+        if (markerClusterManager != null && markerClusterManager.onMarkerClick(marker)) {
+            return;
+        }
+
         // Need to deselect any currently selected annotation first
         if (!isAllowConcurrentMultipleOpenInfoWindows()) {
             deselectMarkers();
@@ -1417,6 +2161,19 @@ public class MapboxMap {
         return markerViewManager;
     }
 
+    /**
+     * Get the MarkerClusterManager, which shows large amounts of points as clustered markers.
+     *
+     * @return the MarkerClusterManager of this map
+     */
+    @UiThread
+    public MarkerClusterManager getMarkerClusterManager() {
+        if (markerClusterManager == null) {
+            markerClusterManager = new MarkerClusterManager(this);
+        }
+        return markerClusterManager;
+    }
+
     //
     // InfoWindow
     //
@@ -2192,6 +2949,27 @@ public class MapboxMap {
         void onFinish();
     }
 
+    /**
+     * Interface definition for a callback to be invoked when markers were added asynchronously.
+     */
+    public interface MarkersAddedCallback {
+        /**
+         * Invoked on the main thread once the markers were added to the map.
+         *
+         * @param markers the added markers, in the order of the marker options
+         */
+        void onMarkersAdded(List<Marker> markers);
+
+        /**
+         * Invoked on the main thread when the markers could not be prepared or added, none of them were added to
+         * the map.
+         *
+         * @param exception the reason the markers were not added, for example an invalid marker position or a
+         *                  destroyed map view
+         */
+        void onMarkersFailed(RuntimeException exception);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the snapshot has been taken.
      */
@@ -2204,6 +2982,57 @@ public class MapboxMap {
         void onSnapshotReady(Bitmap snapshot);
     }
 
+    // The annotations at one modification count, partitioned by type
+    private static class AnnotationSnapshot {
+
+        private final int modCount;
+        private final List<Annotation> annotations;
+        private final List<Marker> markers;
+        private final List<Polygon> polygons;
+        private final List<Polyline> polylines;
+
+        AnnotationSnapshot(LongSparseArray<Annotation> source, int modCount) {
+            this.modCount = modCount;
+            int count = source.size();
+            List<Annotation> annotations = new ArrayList<>(count);
+            List<Marker> markers = new ArrayList<>();
+            List<Polygon> polygons = new ArrayList<>();
+            List<Polyline> polylines = new ArrayList<>();
+            Annotation annotation;
+            for (int i = 0; i < count; i++) {
+                annotation = source.valueAt(i);
+                annotations.add(annotation);
+                if (annotation instanceof Marker) {
+                    markers.add((Marker) annotation);
+                } else if (annotation instanceof Polygon) {
+                    polygons.add((Polygon) annotation);
+                } else if (annotation instanceof Polyline) {
+                    polylines.add((Polyline) annotation);
+                }
+            }
+            this.annotations = Collections.unmodifiableList(annotations);
+            this.markers = Collections.unmodifiableList(markers);
+            this.polygons = Collections.unmodifiableList(polygons);
+            this.polylines = Collections.unmodifiableList(polylines);
+        }
+    }
+
+    // Markers prepared off the main thread, with their coordinates packed for the map and the first
+    // marker showing each distinct icon
+    private static class PreparedMarkers {
+
+        private final List<Marker> markers;
+        private final List<Marker> iconMarkers = new ArrayList<>();
+        private final double[] latLngs;
+        private final int[] iconIndices;
+
+        PreparedMarkers(int count) {
+            markers = new ArrayList<>(count);
+            latLngs = new double[count * 2];
+            iconIndices = new int[count];
+        }
+    }
+
     private class MapChangeCameraPositionListener implements MapView.OnMapChangedListener {
 
         private static final long UPDATE_RATE_MS = 400;
@@ -2214,10 +3043,22 @@ public class MapboxMap {
             if (change >= MapView.REGION_WILL_CHANGE && change <= MapView.REGION_DID_CHANGE_ANIMATED) {
                 invalidCameraPosition = true;
                 long currentTime = SystemClock.elapsedRealtime();
+                boolean regionDidChange = change == MapView.REGION_DID_CHANGE
+                        || change == MapView.REGION_DID_CHANGE_ANIMATED;
+                if (regionDidChange) {
+                    shapeSimplifier.invalidate();
+                }
                 if (currentTime < previousUpdateTimestamp) {
+                    // clusters must match the final camera even when it changed within the update rate
+                    if (regionDidChange && markerClusterManager != null) {
+                        markerClusterManager.invalidate();
+                    }
                     return;
                 }
                 invalidateCameraPosition();
+                if (markerClusterManager != null) {
+                    markerClusterManager.invalidate();
+                }
                 previousUpdateTimestamp = currentTime + UPDATE_RATE_MS;
             }
         }
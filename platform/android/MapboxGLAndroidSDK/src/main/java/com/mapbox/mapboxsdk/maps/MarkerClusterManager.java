@@ -0,0 +1,378 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.FloatRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clusters large amounts of points and shows them as a small set of {@link Marker}s.
+ * <p>
+ * The points are clustered once, on a background thread, for every zoom level. Whenever the camera
+ * changes only the clusters in the visible region at the current zoom level are shown as markers,
+ * so the amount of live markers depends on the viewport rather than on the amount of points. Clusters
+ * and points that stay the same while zooming keep their markers.
+ * Tapping a cluster zooms the map in until the cluster splits up.
+ * </p>
+ * <p>
+ * Obtain an instance with {@link MapboxMap#getMarkerClusterManager()}.
+ * </p>
+ */
+public class MarkerClusterManager {
+
+    static final float DEFAULT_RADIUS = 60;
+
+    private final MapboxMap mapboxMap;
+    private float radius = DEFAULT_RADIUS;
+    private int minZoom = ClusterIndex.DEFAULT_MIN_ZOOM;
+    private int maxZoom = ClusterIndex.DEFAULT_MAX_ZOOM;
+    private Icon pointIcon;
+    private ClusterIconAdapter clusterIconAdapter;
+
+    private ClusterIndex clusterIndex;
+    private int generation;
+    // cluster id to the marker showing it, and marker id back to the cluster id
+    private final LongSparseArray<Marker> clusterMarkers = new LongSparseArray<>();
+    private final LongSparseArray<Long> markerClusters = new LongSparseArray<>();
+
+    MarkerClusterManager(@NonNull MapboxMap mapboxMap) {
+        this.mapboxMap = mapboxMap;
+    }
+
+    /**
+     * Replaces the clustered points.
+     * <p>
+     * The points are clustered on a background thread, the current clusters stay on the map until the new
+     * clusters are ready.
+     * </p>
+     *
+     * @param latLngs The points as latitude, longitude pairs.
+     */
+    @UiThread
+    public void setPoints(@NonNull double[] latLngs) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs should hold latitude, longitude pairs");
+        }
+        final double[] points = latLngs.clone();
+        final float radius = this.radius;
+        final int minZoom = this.minZoom;
+        final int maxZoom = this.maxZoom;
+        final int build = ++generation;
+        mapboxMap.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final ClusterIndex index = new ClusterIndex(points, radius, minZoom, maxZoom);
+                mapboxMap.getMainThreadExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a later call to setPoints or clear wins
+                        if (build == generation) {
+                            setClusterIndex(index);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Removes all points and the markers showing them.
+     */
+    @UiThread
+    public void clear() {
+        generation++;
+        setClusterIndex(null);
+    }
+
+    /**
+     * Returns the amount of clustered points.
+     *
+     * @return the amount of points, 0 while the points are being clustered
+     */
+    public int getPointCount() {
+        return clusterIndex != null ? clusterIndex.size() : 0;
+    }
+
+    /**
+     * Sets the radius within which points are merged into a cluster, takes effect on the next call to
+     * {@link #setPoints(double[])}.
+     *
+     * @param radius The radius in density-independent pixels.
+     */
+    public void setRadius(@FloatRange(from = 0) float radius) {
+        this.radius = radius;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Sets the zoom levels at which points are clustered, takes effect on the next call to
+     * {@link #setPoints(double[])}. Above the maximum zoom level every point is shown on its own.
+     *
+     * @param minZoom The lowest zoom level to cluster at.
+     * @param maxZoom The highest zoom level to cluster at.
+     */
+    public void setZoomRange(int minZoom, int maxZoom) {
+        if (minZoom < 0 || maxZoom < minZoom) {
+            throw new IllegalArgumentException("Zoom range should be positive and ordered");
+        }
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * Sets the icon of markers showing a single point.
+     *
+     * @param icon The icon, null for the default marker icon.
+     */
+    @UiThread
+    public void setIcon(@Nullable Icon icon) {
+        pointIcon = icon;
+        refresh(true);
+    }
+
+    /**
+     * Sets the adapter providing the icons of markers showing a cluster.
+     *
+     * @param adapter The adapter, null to show clusters with the icon of single points.
+     */
+    @UiThread
+    public void setClusterIconAdapter(@Nullable ClusterIconAdapter adapter) {
+        clusterIconAdapter = adapter;
+        refresh(true);
+    }
+
+    /**
+     * Returns the amount of points a marker shows.
+     *
+     * @param marker A marker.
+     * @return the amount of points, or 0 if the marker isn't managed by this MarkerClusterManager
+     */
+    public int getPointCount(@NonNull Marker marker) {
+        Long clusterId = markerClusters.get(marker.getId());
+        return clusterId != null ? clusterIndex.getPointCount(clusterId) : 0;
+    }
+
+    /**
+     * Returns the point a marker shows.
+     *
+     * @param marker A marker.
+     * @return the index of the point as passed to {@link #setPoints(double[])}, or -1 if the marker shows a
+     * cluster or isn't managed by this MarkerClusterManager
+     */
+    public int getPointIndex(@NonNull Marker marker) {
+        Long clusterId = markerClusters.get(marker.getId());
+        return clusterId != null ? clusterIndex.getPointIndex(clusterId) : -1;
+    }
+
+    /**
+     * Returns the zoom level at which the cluster shown by a marker splits up.
+     *
+     * @param marker A marker.
+     * @return the zoom level, or -1 if the marker isn't managed by this MarkerClusterManager
+     */
+    public int getExpansionZoom(@NonNull Marker marker) {
+        Long clusterId = markerClusters.get(marker.getId());
+        return clusterId != null ? clusterIndex.getExpansionZoom(clusterId) : -1;
+    }
+
+    /**
+     * Zooms in on a cluster when its marker is tapped.
+     *
+     * @return true if the click was handled
+     */
+    boolean onMarkerClick(@NonNull Marker marker) {
+        Long clusterId = markerClusters.get(marker.getId());
+        if (clusterId == null || clusterIndex.getPointCount(clusterId) == 1) {
+            return false;
+        }
+        mapboxMap.animateCamera(CameraUpdateFactory.newLatLngZoom(
+                clusterIndex.getPosition(clusterId), clusterIndex.getExpansionZoom(clusterId)));
+        return true;
+    }
+
+    /**
+     * Follows markers that were added to the map again under new ids.
+     */
+    @UiThread
+    void reassignMarkerIds(long[] oldIds, long[] newIds) {
+        Long[] clusterIds = new Long[oldIds.length];
+        for (int i = 0; i < oldIds.length; i++) {
+            clusterIds[i] = markerClusters.get(oldIds[i]);
+            markerClusters.remove(oldIds[i]);
+        }
+        for (int i = 0; i < newIds.length; i++) {
+            if (clusterIds[i] != null) {
+                markerClusters.put(newIds[i], clusterIds[i]);
+            }
+        }
+    }
+
+    /**
+     * Shows the clusters in the visible region at the current zoom level.
+     */
+    @UiThread
+    void invalidate() {
+        refresh(false);
+    }
+
+    private void setClusterIndex(ClusterIndex index) {
+        clusterIndex = index;
+        refresh(true);
+    }
+
+    private void refresh(boolean recreate) {
+        List<Annotation> stale = new ArrayList<>();
+        if (recreate || clusterIndex == null) {
+            for (int i = 0; i < clusterMarkers.size(); i++) {
+                stale.add(clusterMarkers.valueAt(i));
+            }
+            clusterMarkers.clear();
+            markerClusters.clear();
+        }
+
+        if (clusterIndex == null) {
+            removeMarkers(stale);
+            return;
+        }
+
+        LatLngBounds bounds = getQueryBounds();
+        if (bounds == null) {
+            removeMarkers(stale);
+            return;
+        }
+        long[] clusterIds = clusterIndex.getClusters(bounds.getLatSouth(), bounds.getLonWest(),
+                bounds.getLatNorth(), bounds.getLonEast(), mapboxMap.getMapView().getZoom());
+
+        // cluster ids don't change with the zoom level, only clusters that split up, merged or left the region
+        // get new markers. Also drop markers that were removed from the map behind our back
+        LongSparseArray<Marker> kept = new LongSparseArray<>(clusterIds.length);
+        for (long clusterId : clusterIds) {
+            Marker marker = clusterMarkers.get(clusterId);
+            if (marker != null && mapboxMap.getAnnotation(marker.getId()) == marker) {
+                kept.put(clusterId, marker);
+            }
+        }
+        for (int i = 0; i < clusterMarkers.size(); i++) {
+            if (kept.get(clusterMarkers.keyAt(i)) == null) {
+                stale.add(clusterMarkers.valueAt(i));
+                markerClusters.remove(clusterMarkers.valueAt(i).getId());
+            }
+        }
+        removeMarkers(stale);
+        clusterMarkers.clear();
+        for (int i = 0; i < kept.size(); i++) {
+            clusterMarkers.put(kept.keyAt(i), kept.valueAt(i));
+        }
+
+        addMarkers(clusterIds);
+    }
+
+    private void addMarkers(long[] clusterIds) {
+        int count = 0;
+        for (long clusterId : clusterIds) {
+            if (clusterMarkers.get(clusterId) == null) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        long[] added = new long[count];
+        double[] latLngs = new double[count * 2];
+        int[] iconIndices = new int[count];
+        List<Icon> icons = new ArrayList<>();
+        icons.add(pointIcon);
+        Map<Icon, Integer> iconLookup = new HashMap<>();
+        int i = 0;
+        for (long clusterId : clusterIds) {
+            if (clusterMarkers.get(clusterId) != null) {
+                continue;
+            }
+            LatLng position = clusterIndex.getPosition(clusterId);
+            latLngs[i * 2] = position.getLatitude();
+            latLngs[i * 2 + 1] = position.getLongitude();
+            iconIndices[i] = getIconIndex(clusterIndex.getPointCount(clusterId), icons, iconLookup);
+            added[i] = clusterId;
+            i++;
+        }
+
+        List<Marker> markers = mapboxMap.addMarkers(latLngs, icons.toArray(new Icon[icons.size()]), iconIndices);
+        for (i = 0; i < markers.size(); i++) {
+            Marker marker = markers.get(i);
+            clusterMarkers.put(added[i], marker);
+            markerClusters.put(marker.getId(), added[i]);
+        }
+    }
+
+    private int getIconIndex(int pointCount, List<Icon> icons, Map<Icon, Integer> iconLookup) {
+        if (pointCount == 1 || clusterIconAdapter == null) {
+            return 0;
+        }
+        Icon icon = clusterIconAdapter.getIcon(pointCount);
+        if (icon == null) {
+            return 0;
+        }
+        Integer index = iconLookup.get(icon);
+        if (index == null) {
+            index = icons.size();
+            icons.add(icon);
+            iconLookup.put(icon, index);
+        }
+        return index;
+    }
+
+    private void removeMarkers(List<Annotation> markers) {
+        if (!markers.isEmpty()) {
+            mapboxMap.removeAnnotations(markers);
+        }
+    }
+
+    // the visible region grown by half its size, so panning doesn't reveal empty edges before the next refresh
+    private LatLngBounds getQueryBounds() {
+        LatLngBounds visible = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        if (visible == null) {
+            return null;
+        }
+        double latMargin = visible.getLatitudeSpan() / 4;
+        double lonMargin = visible.getLongitudeSpan() / 4;
+        return new LatLngBounds.Builder()
+                .include(new LatLng(Math.min(90, visible.getLatNorth() + latMargin),
+                        Math.min(180, visible.getLonEast() + lonMargin)))
+                .include(new LatLng(Math.max(-90, visible.getLatSouth() - latMargin),
+                        Math.max(-180, visible.getLonWest() - lonMargin)))
+                .build();
+    }
+
+    /**
+     * Interface definition for providing the icons of markers showing a cluster.
+     */
+    public interface ClusterIconAdapter {
+
+        /**
+         * Returns the icon of a cluster. Return the same instance for clusters that look the same, every
+         * distinct icon is uploaded to the map.
+         *
+         * @param pointCount the amount of points in the cluster
+         * @return the icon, or null to use the icon of single points
+         */
+        @Nullable
+        Icon getIcon(int pointCount);
+    }
+}
@@ -13,6 +13,7 @@ import android.view.Surface;
 
 import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.Polyline;
 import com.mapbox.mapboxsdk.geometry.LatLng;
@@ -27,7 +28,10 @@ import com.mapbox.services.commons.geojson.Feature;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // Class that wraps the native methods for convenience
 final class NativeMapView {
@@ -357,30 +361,67 @@ final class NativeMapView {
     }
 
     public long addMarker(Marker marker) {
-        Marker[] markers = {marker};
-        return nativeAddMarkers(nativeMapViewPtr, markers)[0];
+        return addMarkers(Collections.singletonList(marker))[0];
     }
 
     public long[] addMarkers(List<Marker> markers) {
-        return nativeAddMarkers(nativeMapViewPtr, markers.toArray(new Marker[markers.size()]));
+        int[] iconIndices = new int[markers.size()];
+        String[] iconIds = packIcons(markers, iconIndices);
+        return nativeAddMarkers(nativeMapViewPtr, packPositions(markers), iconIndices, iconIds);
+    }
+
+    public long[] addMarkers(double[] latLngs, int[] iconIndices, String[] iconIds) {
+        return nativeAddMarkers(nativeMapViewPtr, latLngs, iconIndices, iconIds);
     }
 
     public long addPolyline(Polyline polyline) {
-        Polyline[] polylines = {polyline};
-        return nativeAddPolylines(nativeMapViewPtr, polylines)[0];
+        return addPolylines(Collections.singletonList(polyline))[0];
     }
 
     public long[] addPolylines(List<Polyline> polylines) {
-        return nativeAddPolylines(nativeMapViewPtr, polylines.toArray(new Polyline[polylines.size()]));
+        int[] pointCounts = new int[polylines.size()];
+        return addPolylines(polylines, packPoints(polylines, pointCounts), pointCounts);
+    }
+
+    public long[] addPolylines(List<Polyline> polylines, double[] latLngs, int[] pointCounts) {
+        int count = polylines.size();
+        float[] alphas = new float[count];
+        int[] colors = new int[count];
+        float[] widths = new float[count];
+
+        Polyline polyline;
+        for (int i = 0; i < count; i++) {
+            polyline = polylines.get(i);
+            alphas[i] = polyline.getAlpha();
+            colors[i] = polyline.getColor();
+            widths[i] = polyline.getWidth();
+        }
+        return nativeAddPolylines(nativeMapViewPtr, latLngs, pointCounts, alphas, colors, widths);
     }
 
     public long addPolygon(Polygon polygon) {
-        Polygon[] polygons = {polygon};
-        return nativeAddPolygons(nativeMapViewPtr, polygons)[0];
+        return addPolygons(Collections.singletonList(polygon))[0];
     }
 
     public long[] addPolygons(List<Polygon> polygons) {
-        return nativeAddPolygons(nativeMapViewPtr, polygons.toArray(new Polygon[polygons.size()]));
+        int[] pointCounts = new int[polygons.size()];
+        return addPolygons(polygons, packPoints(polygons, pointCounts), pointCounts);
+    }
+
+    public long[] addPolygons(List<Polygon> polygons, double[] latLngs, int[] pointCounts) {
+        int count = polygons.size();
+        float[] alphas = new float[count];
+        int[] fillColors = new int[count];
+        int[] strokeColors = new int[count];
+
+        Polygon polygon;
+        for (int i = 0; i < count; i++) {
+            polygon = polygons.get(i);
+            alphas[i] = polygon.getAlpha();
+            fillColors[i] = polygon.getFillColor();
+            strokeColors[i] = polygon.getStrokeColor();
+        }
+        return nativeAddPolygons(nativeMapViewPtr, latLngs, pointCounts, alphas, fillColors, strokeColors);
     }
 
     public void updateMarker(Marker marker) {
@@ -389,12 +430,80 @@ final class NativeMapView {
         nativeUpdateMarker(nativeMapViewPtr, marker.getId(), position.getLatitude(), position.getLongitude(), icon.getId());
     }
 
+    public void updateMarkers(List<Marker> markers) {
+        int count = markers.size();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = markers.get(i).getId();
+        }
+        int[] iconIndices = new int[count];
+        String[] iconIds = packIcons(markers, iconIndices);
+        nativeUpdateMarkers(nativeMapViewPtr, ids, packPositions(markers), iconIndices, iconIds);
+    }
+
+    // Marker positions as latitude, longitude pairs
+    private static double[] packPositions(List<Marker> markers) {
+        int count = markers.size();
+        double[] latLngs = new double[count * 2];
+        LatLng position;
+        for (int i = 0; i < count; i++) {
+            position = markers.get(i).getPosition();
+            latLngs[i * 2] = position.getLatitude();
+            latLngs[i * 2 + 1] = position.getLongitude();
+        }
+        return latLngs;
+    }
+
+    // The distinct icon ids of the markers, iconIndices receives the index of each marker's icon id
+    private static String[] packIcons(List<Marker> markers, int[] iconIndices) {
+        List<String> iconIds = new ArrayList<>();
+        Map<String, Integer> iconIndexById = new HashMap<>();
+        for (int i = 0; i < iconIndices.length; i++) {
+            String iconId = markers.get(i).getIcon().getId();
+            Integer iconIndex = iconIndexById.get(iconId);
+            if (iconIndex == null) {
+                iconIndex = iconIds.size();
+                iconIndexById.put(iconId, iconIndex);
+                iconIds.add(iconId);
+            }
+            iconIndices[i] = iconIndex;
+        }
+        return iconIds.toArray(new String[iconIds.size()]);
+    }
+
+    // The points of all shapes as latitude, longitude pairs, pointCounts receives the amount of points per shape
+    private static double[] packPoints(List<? extends MultiPoint> shapes, int[] pointCounts) {
+        int total = 0;
+        for (int i = 0; i < pointCounts.length; i++) {
+            pointCounts[i] = shapes.get(i).getPoints().size();
+            total += pointCounts[i];
+        }
+
+        double[] latLngs = new double[total * 2];
+        int offset = 0;
+        for (int i = 0; i < pointCounts.length; i++) {
+            for (LatLng point : shapes.get(i).getPoints()) {
+                latLngs[offset++] = point.getLatitude();
+                latLngs[offset++] = point.getLongitude();
+            }
+        }
+        return latLngs;
+    }
+
     public void updatePolygon(Polygon polygon) {
-        nativeUpdatePolygon(nativeMapViewPtr, polygon.getId(), polygon);
+        updatePolygon(polygon, packPoints(Collections.singletonList(polygon), new int[1]));
+    }
+
+    public void updatePolygon(Polygon polygon, double[] latLngs) {
+        nativeUpdatePolygon(nativeMapViewPtr, polygon.getId(), polygon, latLngs);
     }
 
     public void updatePolyline(Polyline polyline) {
-        nativeUpdatePolyline(nativeMapViewPtr, polyline.getId(), polyline);
+        updatePolyline(polyline, packPoints(Collections.singletonList(polyline), new int[1]));
+    }
+
+    public void updatePolyline(Polyline polyline, double[] latLngs) {
+        nativeUpdatePolyline(nativeMapViewPtr, polyline.getId(), polyline, latLngs);
     }
 
     public void removeAnnotation(long id) {
@@ -410,8 +519,9 @@ final class NativeMapView {
         return nativeQueryPointAnnotations(nativeMapViewPtr, rect);
     }
 
-    public void addAnnotationIcon(String symbol, int width, int height, float scale, byte[] pixels) {
-        nativeAddAnnotationIcon(nativeMapViewPtr, symbol, width, height, scale, pixels);
+    public void addAnnotationIcons(String[] symbols, int[] widths, int[] heights, float[] scales, int[] offsets,
+                                   ByteBuffer page) {
+        nativeAddAnnotationIcons(nativeMapViewPtr, symbols, widths, heights, scales, offsets, page);
     }
 
     public void setVisibleCoordinateBounds(LatLng[] coordinates, RectF padding, double direction, long duration) {
@@ -458,6 +568,10 @@ final class NativeMapView {
         return nativePixelForLatLng(nativeMapViewPtr, latLng.getLatitude(), latLng.getLongitude());
     }
 
+    public void pixelsForLatLngs(double[] latLngs, float[] pixels) {
+        nativePixelsForLatLngs(nativeMapViewPtr, latLngs, pixels);
+    }
+
     public LatLng latLngForPixel(PointF pixel) {
         return nativeLatLngForPixel(nativeMapViewPtr, pixel.x, pixel.y);
     }
@@ -686,18 +800,23 @@ final class NativeMapView {
 
     private native void nativeUpdateMarker(long nativeMapViewPtr, long markerId, double lat, double lon, String iconId);
 
-    private native long[] nativeAddMarkers(long nativeMapViewPtr, Marker[] markers);
+    private native void nativeUpdateMarkers(long nativeMapViewPtr, long[] markerIds, double[] latLngs,
+                                            int[] iconIndices, String[] iconIds);
 
-    private native long[] nativeAddPolylines(long nativeMapViewPtr, Polyline[] polylines);
+    private native long[] nativeAddMarkers(long nativeMapViewPtr, double[] latLngs, int[] iconIndices, String[] iconIds);
 
-    private native long[] nativeAddPolygons(long nativeMapViewPtr, Polygon[] polygons);
+    private native long[] nativeAddPolylines(long nativeMapViewPtr, double[] latLngs, int[] pointCounts, float[] alphas,
+                                             int[] colors, float[] widths);
+
+    private native long[] nativeAddPolygons(long nativeMapViewPtr, double[] latLngs, int[] pointCounts, float[] alphas,
+                                            int[] fillColors, int[] strokeColors);
 
     private native void nativeRemoveAnnotations(long nativeMapViewPtr, long[] id);
 
     private native long[] nativeQueryPointAnnotations(long nativeMapViewPtr, RectF rect);
 
-    private native void nativeAddAnnotationIcon(long nativeMapViewPtr, String symbol,
-                                                int width, int height, float scale, byte[] pixels);
+    private native void nativeAddAnnotationIcons(long nativeMapViewPtr, String[] symbols, int[] widths,
+                                                 int[] heights, float[] scales, int[] offsets, ByteBuffer page);
 
     private native void nativeSetVisibleCoordinateBounds(long nativeMapViewPtr, LatLng[] coordinates,
                                                          RectF padding, double direction, long duration);
@@ -722,6 +841,8 @@ final class NativeMapView {
 
     private native PointF nativePixelForLatLng(long nativeMapViewPtr, double lat, double lon);
 
+    private native void nativePixelsForLatLngs(long nativeMapViewPtr, double[] latLngs, float[] pixels);
+
     private native LatLng nativeLatLngForPixel(long nativeMapViewPtr, float x, float y);
 
     private native double nativeGetTopOffsetPixelsForAnnotationSymbol(long nativeMapViewPtr, String symbolName);
@@ -750,9 +871,10 @@ final class NativeMapView {
 
     private native void nativeRemoveImage(long nativeMapViewPtr, String name);
 
-    private native void nativeUpdatePolygon(long nativeMapViewPtr, long polygonId, Polygon polygon);
+    private native void nativeUpdatePolygon(long nativeMapViewPtr, long polygonId, Polygon polygon, double[] latLngs);
 
-    private native void nativeUpdatePolyline(long nativeMapviewPtr, long polylineId, Polyline polyline);
+    private native void nativeUpdatePolyline(long nativeMapviewPtr, long polylineId, Polyline polyline,
+                                             double[] latLngs);
 
     private native void nativeScheduleTakeSnapshot(long nativeMapViewPtr);
 
@@ -87,6 +87,22 @@ public class Projection {
         return mapView.toScreenLocation(location);
     }
 
+    /**
+     * Returns the screen locations that correspond to a collection of geographical coordinates.
+     * The screen locations are in screen pixels (not display pixels) relative to the top left
+     * of the map (not of the whole screen).
+     * <p>
+     * All coordinates are converted with a single call into the map renderer, which makes this
+     * considerably faster than {@link #toScreenLocation(LatLng)} for many coordinates.
+     * </p>
+     *
+     * @param latLngs The coordinates to convert, as latitude, longitude pairs.
+     * @param outXY   The array to write the screen locations to as x, y pairs, at least as long as latLngs.
+     */
+    public void toScreenLocations(@NonNull double[] latLngs, @NonNull float[] outXY) {
+        mapView.toScreenLocations(latLngs, outXY);
+    }
+
     /**
      * Calculates a zoom level based on minimum scale and current scale from MapView
      *
@@ -0,0 +1,386 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.support.annotation.WorkerThread;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.constants.MapboxConstants;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simplifies polylines and polygons for the zoom level they are drawn at.
+ * <p>
+ * The points of a shape are ranked once with Douglas-Peucker, recording for every point the largest
+ * tolerance at which it is still kept. Simplifying for a zoom level is then a single pass over the
+ * ranking, the same ranking serves every zoom level. When the points of a shape change they are
+ * ranked again on a background thread, the map keeps showing the previous points until then.
+ * </p>
+ * <p>
+ * Fractional zoom levels use the tolerance of the next integer zoom level, shapes are sent to the map
+ * again when the camera settles on a zoom level at which they keep a different amount of points.
+ * </p>
+ */
+class ShapeSimplifier {
+
+    // width of the world at zoom 0 in density-independent pixels
+    private static final double TILE_SIZE = 512;
+
+    private final MapboxMap mapboxMap;
+    private final LongSparseArray<Entry> entries = new LongSparseArray<>();
+    // shapes being ranked, mapped to whether their points changed again in the meantime
+    private final LongSparseArray<Boolean> pending = new LongSparseArray<>();
+
+    ShapeSimplifier(@NonNull MapboxMap mapboxMap) {
+        this.mapboxMap = mapboxMap;
+    }
+
+    /**
+     * Returns the points of a shape simplified for the current zoom level.
+     *
+     * @param shape   the shape
+     * @param ranking the ranking of the points of the shape
+     * @return the points as latitude, longitude pairs
+     */
+    @UiThread
+    double[] getLatLngs(@NonNull MultiPoint shape, @NonNull Ranking ranking) {
+        return ranking.getLatLngs(getSquaredTolerance(shape, getLevel()));
+    }
+
+    /**
+     * Keeps a shape that was added to the map with points from {@link #getLatLngs(MultiPoint, Ranking)}
+     * simplified as the zoom level and its points change.
+     *
+     * @param shape   the shape, with the id it was added with
+     * @param ranking the ranking of the points of the shape
+     */
+    @UiThread
+    void put(@NonNull MultiPoint shape, @NonNull Ranking ranking) {
+        Entry entry = new Entry(shape, ranking);
+        entry.level = getLevel();
+        entry.count = ranking.count(getSquaredTolerance(shape, entry.level));
+        entries.put(shape.getId(), entry);
+    }
+
+    /**
+     * Sends a changed shape to the map. When its points changed they are ranked again first.
+     *
+     * @param shape the shape
+     */
+    @UiThread
+    void update(@NonNull MultiPoint shape) {
+        long id = shape.getId();
+        if (id == -1) {
+            return;
+        }
+
+        Entry entry = entries.get(id);
+        List<LatLng> points = shape.getPoints();
+        if (entry != null && entry.ranking.matches(points)) {
+            send(entry, getLevel());
+        } else {
+            rank(shape, points);
+        }
+    }
+
+    @UiThread
+    void remove(long id) {
+        entries.remove(id);
+        pending.remove(id);
+    }
+
+    @UiThread
+    void clear() {
+        entries.clear();
+        pending.clear();
+    }
+
+    /**
+     * Sends the shapes that keep a different amount of points at the current zoom level to the map.
+     */
+    @UiThread
+    void invalidate() {
+        if (entries.size() == 0) {
+            return;
+        }
+
+        int level = getLevel();
+        List<Entry> changed = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.valueAt(i);
+            if (entry.level == level) {
+                continue;
+            }
+            entry.level = level;
+            if (entry.ranking.count(getSquaredTolerance(entry.shape, level)) != entry.count) {
+                changed.add(entry);
+            }
+        }
+        for (Entry entry : changed) {
+            send(entry, level);
+        }
+    }
+
+    private void rank(final MultiPoint shape, final List<LatLng> points) {
+        final long id = shape.getId();
+        if (pending.indexOfKey(id) >= 0) {
+            // rank again once the running ranking is done
+            pending.put(id, true);
+            return;
+        }
+        pending.put(id, false);
+
+        final boolean closed = shape instanceof Polygon;
+        mapboxMap.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Ranking ranking = rank(points, closed);
+                mapboxMap.getMainThreadExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Boolean changed = pending.get(id);
+                        pending.remove(id);
+                        // the shape was removed, or its simplification turned off, while ranking
+                        if (changed == null || mapboxMap.getAnnotation(id) != shape
+                                || shape.getSimplifyTolerance() <= 0) {
+                            return;
+                        }
+
+                        Entry entry = new Entry(shape, ranking);
+                        entries.put(id, entry);
+                        if (changed) {
+                            update(shape);
+                        } else {
+                            send(entry, getLevel());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void send(Entry entry, int level) {
+        double[] latLngs = entry.ranking.getLatLngs(getSquaredTolerance(entry.shape, level));
+        entry.level = level;
+        entry.count = latLngs.length / 2;
+        MapView mapView = mapboxMap.getMapView();
+        if (entry.shape instanceof Polyline) {
+            mapView.updatePolyline((Polyline) entry.shape, latLngs);
+        } else if (entry.shape instanceof Polygon) {
+            mapView.updatePolygon((Polygon) entry.shape, latLngs);
+        }
+    }
+
+    private int getLevel() {
+        double zoom = mapboxMap.getMapView().getZoom();
+        return (int) Math.max(0, Math.min(Math.ceil(zoom), MapboxConstants.MAXIMUM_ZOOM));
+    }
+
+    // the tolerance of a shape at a zoom level, squared and in projected units
+    static double getSquaredTolerance(MultiPoint shape, int level) {
+        double tolerance = shape.getSimplifyTolerance() / (TILE_SIZE * Math.pow(2, level));
+        return tolerance * tolerance;
+    }
+
+    /**
+     * Ranks points with Douglas-Peucker.
+     *
+     * @param points the points
+     * @param closed true if the points form a ring, which then always keeps at least 3 distinct points
+     * @return the ranking
+     */
+    @WorkerThread
+    static Ranking rank(@NonNull List<LatLng> points, boolean closed) {
+        int size = points.size();
+        double[] latLngs = new double[size * 2];
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            LatLng point = points.get(i);
+            latLngs[i * 2] = point.getLatitude();
+            latLngs[i * 2 + 1] = point.getLongitude();
+            xs[i] = ClusterIndex.lngX(point.getLongitude());
+            ys[i] = ClusterIndex.latY(point.getLatitude());
+        }
+
+        double[] importances = new double[size];
+        if (size == 0) {
+            return new Ranking(points, latLngs, importances);
+        }
+        importances[0] = Double.POSITIVE_INFINITY;
+        importances[size - 1] = Double.POSITIVE_INFINITY;
+
+        int last = size - 1;
+        if (closed && size > 3) {
+            // keep the point farthest from the first one and the point farthest from the line between them, so
+            // the ring can't collapse into a line, also when its last point repeats the first one
+            int farthest = 1;
+            double max = 0;
+            for (int i = 1; i < last; i++) {
+                double dx = xs[i] - xs[0];
+                double dy = ys[i] - ys[0];
+                double distance = dx * dx + dy * dy;
+                if (distance > max) {
+                    max = distance;
+                    farthest = i;
+                }
+            }
+            int widest = farthest == 1 ? 2 : 1;
+            max = -1;
+            for (int i = 1; i < last; i++) {
+                if (i == farthest) {
+                    continue;
+                }
+                double distance = getSquaredSegmentDistance(xs[i], ys[i], xs[0], ys[0], xs[farthest], ys[farthest]);
+                if (distance > max) {
+                    max = distance;
+                    widest = i;
+                }
+            }
+            importances[farthest] = Double.POSITIVE_INFINITY;
+            importances[widest] = Double.POSITIVE_INFINITY;
+            int a = Math.min(farthest, widest);
+            int b = Math.max(farthest, widest);
+            rank(xs, ys, importances, 0, a);
+            rank(xs, ys, importances, a, b);
+            rank(xs, ys, importances, b, last);
+        } else {
+            rank(xs, ys, importances, 0, last);
+        }
+        return new Ranking(points, latLngs, importances);
+    }
+
+    // Ranks the points between first and last, iteratively since long tracks recurse too deep
+    private static void rank(double[] xs, double[] ys, double[] importances, int first, int last) {
+        int[] ranges = new int[64];
+        double[] limits = new double[32];
+        int top = 0;
+        ranges[0] = first;
+        ranges[1] = last;
+        limits[0] = Double.POSITIVE_INFINITY;
+        top++;
+        while (top > 0) {
+            top--;
+            int start = ranges[top * 2];
+            int end = ranges[top * 2 + 1];
+            double limit = limits[top];
+
+            int index = -1;
+            double max = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = getSquaredSegmentDistance(xs[i], ys[i], xs[start], ys[start], xs[end], ys[end]);
+                if (distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+            if (index == -1) {
+                continue;
+            }
+
+            // a point never outranks the point that split its range, so rankings nest across tolerances
+            double importance = Math.min(max, limit);
+            importances[index] = importance;
+
+            if (top + 2 > limits.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                limits = Arrays.copyOf(limits, limits.length * 2);
+            }
+            ranges[top * 2] = start;
+            ranges[top * 2 + 1] = index;
+            limits[top] = importance;
+            top++;
+            ranges[top * 2] = index;
+            ranges[top * 2 + 1] = end;
+            limits[top] = importance;
+            top++;
+        }
+    }
+
+    private static double getSquaredSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double x = ax;
+        double y = ay;
+        double dx = bx - ax;
+        double dy = by - ay;
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                x = bx;
+                y = by;
+            } else if (t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+        dx = px - x;
+        dy = py - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * The points of a shape along with the largest squared tolerance at which each one is kept.
+     */
+    static class Ranking {
+
+        private final List<LatLng> points;
+        private final double[] latLngs;
+        private final double[] importances;
+
+        Ranking(List<LatLng> points, double[] latLngs, double[] importances) {
+            this.points = points;
+            this.latLngs = latLngs;
+            this.importances = importances;
+        }
+
+        boolean matches(List<LatLng> points) {
+            return this.points.size() == points.size() && this.points.equals(points);
+        }
+
+        int count(double squaredTolerance) {
+            int count = 0;
+            for (double importance : importances) {
+                if (importance > squaredTolerance) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @param squaredTolerance the squared tolerance in projected units
+         * @return the points kept at the tolerance as latitude, longitude pairs
+         */
+        double[] getLatLngs(double squaredTolerance) {
+            double[] kept = new double[count(squaredTolerance) * 2];
+            int offset = 0;
+            for (int i = 0; i < importances.length; i++) {
+                if (importances[i] > squaredTolerance) {
+                    kept[offset++] = latLngs[i * 2];
+                    kept[offset++] = latLngs[i * 2 + 1];
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static class Entry {
+
+        private final MultiPoint shape;
+        private final Ranking ranking;
+        // zoom level and amount of points the shape was last sent to the map with
+        private int level;
+        private int count;
+
+        Entry(MultiPoint shape, Ranking ranking) {
+            this.shape = shape;
+            this.ranking = ranking;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.support.annotation.NonNull;
+import android.support.v4.net.ConnectivityManagerCompat;
 import android.util.Log;
 
 import java.util.List;
@@ -27,6 +28,8 @@ public class ConnectivityReceiver extends BroadcastReceiver {
         if (INSTANCE == null) {
             //Register new instance
             INSTANCE = new ConnectivityReceiver();
+            INSTANCE.connected = INSTANCE.isConnected(context);
+            INSTANCE.metered = isMetered(context);
             context.registerReceiver(INSTANCE, new IntentFilter("android.net.conn.CONNECTIVITY_CHANGE"));
 
             //Add default listeners
@@ -37,6 +40,8 @@ public class ConnectivityReceiver extends BroadcastReceiver {
     }
 
     private List<ConnectivityListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean connected;
+    private volatile boolean metered;
 
     private ConnectivityReceiver() {
     }
@@ -48,6 +53,8 @@ public class ConnectivityReceiver extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         boolean connected = isConnected(context);
         Log.v(TAG, "Connected: " + connected);
+        this.connected = connected;
+        this.metered = isMetered(context);
 
         //Loop over listeners
         for (ConnectivityListener listener : listeners) {
@@ -73,6 +80,25 @@ public class ConnectivityReceiver extends BroadcastReceiver {
         listeners.remove(listener);
     }
 
+    /**
+     * Get the connectivity state as of the last connectivity broadcast, without querying
+     * the ConnectivityManager.
+     *
+     * @return true if connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Get whether the active network was metered as of the last connectivity broadcast.
+     *
+     * @return true if metered
+     */
+    public boolean isMetered() {
+        return metered;
+    }
+
     /**
      * Get current connectivity state
      *
@@ -85,4 +111,8 @@ public class ConnectivityReceiver extends BroadcastReceiver {
         return (activeNetwork != null && activeNetwork.isConnected());
     }
 
+    private static boolean isMetered(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return ConnectivityManagerCompat.isActiveNetworkMetered(cm);
+    }
 }
@@ -0,0 +1,81 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class IconCacheTest {
+
+    private IconCache mIconCache;
+
+    @Before
+    public void beforeTest() {
+        mIconCache = new IconCache(2);
+    }
+
+    @Test
+    public void testSameIconForSameKey() {
+        Icon icon = icon("a");
+        assertNull("first request should miss", mIconCache.get("resource:1"));
+        mIconCache.put("resource:1", icon);
+        assertSame("icon should match", icon, mIconCache.get("resource:1"));
+        assertSame("icon should match", icon, mIconCache.get("resource:1"));
+        assertEquals("hit count should match", 2, mIconCache.getHitCount());
+        assertEquals("miss count should match", 1, mIconCache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        Icon icon1 = icon("a");
+        Icon icon2 = icon("b");
+        mIconCache.put("path:a", icon1);
+        mIconCache.put("path:b", icon2);
+        mIconCache.get("path:a");
+        mIconCache.put("path:c", icon("c"));
+
+        assertEquals("size should match", 2, mIconCache.size());
+        assertSame("recently used icon should be kept", icon1, mIconCache.get("path:a"));
+        assertNull("least recently used icon should be evicted", mIconCache.get("path:b"));
+    }
+
+    @Test
+    public void testShrinkEvicts() {
+        mIconCache.put("path:a", icon("a"));
+        mIconCache.put("path:b", icon("b"));
+        mIconCache.setMaxSize(1);
+        assertEquals("size should match", 1, mIconCache.size());
+        assertNull("oldest icon should be evicted", mIconCache.get("path:a"));
+    }
+
+    @Test
+    public void testFailedDecodeIsNotCached() {
+        mIconCache.put("asset:missing", null);
+        mIconCache.put("path:missing", new Icon("a", null));
+        assertEquals("size should match", 0, mIconCache.size());
+    }
+
+    @Test
+    public void testClear() {
+        mIconCache.put("path:a", icon("a"));
+        mIconCache.get("path:a");
+        mIconCache.clear();
+        assertEquals("size should match", 0, mIconCache.size());
+        assertEquals("hit count should match", 0, mIconCache.getHitCount());
+        assertEquals("miss count should match", 0, mIconCache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        mIconCache.setMaxSize(-1);
+    }
+
+    private static Icon icon(String id) {
+        return IconFactory.recreate(id, mock(Bitmap.class));
+    }
+}
@@ -6,9 +6,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class IconTest {
 
@@ -52,4 +63,39 @@ public class IconTest {
         long expectedHashcode = 31 * mBitmap.hashCode() + "test".hashCode();
         assertEquals("hashcode should match", expectedHashcode, icon.hashCode());
     }
+
+    @Test
+    public void testBitmapHash() {
+        Icon icon1 = IconFactory.recreate("test", mockBitmap(new int[]{0xFF000000, 0xFFFFFFFF}));
+        Icon icon2 = IconFactory.recreate("test", mockBitmap(new int[]{0xFF000000, 0xFFFFFFFF}));
+        Icon icon3 = IconFactory.recreate("test", mockBitmap(new int[]{0xFF000000, 0xFF0000FF}));
+        assertEquals("bitmap hash should match", icon1.getBitmapHash(), icon2.getBitmapHash());
+        assertFalse("bitmap hash should not match", icon1.getBitmapHash() == icon3.getBitmapHash());
+    }
+
+    @Test
+    public void testBitmapHashIsLazy() {
+        Bitmap bitmap = mockBitmap(new int[]{0xFF000000, 0xFFFFFFFF});
+        Icon icon = IconFactory.recreate("test", bitmap);
+        verify(bitmap, never()).getPixels(any(int[].class), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+
+        icon.getBitmapHash();
+        icon.getBitmapHash();
+        verify(bitmap, times(1)).getPixels(any(int[].class), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    private static Bitmap mockBitmap(final int[] pixels) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(pixels.length);
+        when(bitmap.getHeight()).thenReturn(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                int[] target = (int[]) invocation.getArguments()[0];
+                System.arraycopy(pixels, 0, target, 0, pixels.length);
+                return null;
+            }
+        }).when(bitmap).getPixels(any(int[].class), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        return bitmap;
+    }
 }
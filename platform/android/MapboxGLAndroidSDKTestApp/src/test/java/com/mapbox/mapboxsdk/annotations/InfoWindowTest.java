@@ -8,11 +8,19 @@ import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.Projection;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InfoWindowTest {
@@ -83,4 +91,24 @@ public class InfoWindowTest {
         infoWindow.update();
     }
 
+    @Test
+    public void testUpdateManyReusesBuffers() {
+        Projection projection = mock(Projection.class);
+        when(mMapboxMap.getProjection()).thenReturn(projection);
+        List<InfoWindow> infoWindows = Arrays.asList(
+                new InfoWindow(mMapView, mMapboxMap).setBoundMarker(new MarkerOptions().position(new LatLng(1, 2)).getMarker()),
+                new InfoWindow(mMapView, mMapboxMap).setBoundMarker(new MarkerOptions().position(new LatLng(3, 4)).getMarker()));
+
+        InfoWindow.update(mMapboxMap, infoWindows);
+        InfoWindow.update(mMapboxMap, infoWindows);
+
+        ArgumentCaptor<double[]> latLngs = ArgumentCaptor.forClass(double[].class);
+        ArgumentCaptor<float[]> screenLocations = ArgumentCaptor.forClass(float[].class);
+        verify(projection, times(2)).toScreenLocations(latLngs.capture(), screenLocations.capture());
+        assertArrayEquals("Positions should match", new double[]{1, 2, 3, 4}, latLngs.getValue(), 0);
+        assertSame("Positions buffer should be reused", latLngs.getAllValues().get(0), latLngs.getAllValues().get(1));
+        assertSame("Screen locations buffer should be reused",
+                screenLocations.getAllValues().get(0), screenLocations.getAllValues().get(1));
+    }
+
 }
@@ -0,0 +1,168 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Projection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarkerViewManagerTest {
+
+    @Mock
+    MapboxMap mMapboxMap;
+
+    @Mock
+    MapView mMapView;
+
+    @Mock
+    Projection mProjection;
+
+    private MarkerViewManager mMarkerViewManager;
+    private CountryMarkerViewAdapter mAdapter;
+
+    @Before
+    public void beforeTest() {
+        MockitoAnnotations.initMocks(this);
+        when(mMapboxMap.getProjection()).thenReturn(mProjection);
+        when(mMapView.getMarkerViewContainer()).thenReturn(mock(ViewGroup.class));
+        mMarkerViewManager = new MarkerViewManager(mMapboxMap, mMapView);
+        mAdapter = new CountryMarkerViewAdapter(null);
+        mMarkerViewManager.addMarkerViewAdapter(mAdapter);
+    }
+
+    @Test
+    public void testRemoveMarkerViewsReleasesViewsOnce() {
+        CountryMarkerView first = countryMarkerView(1, 10, 10);
+        CountryMarkerView second = countryMarkerView(2, 20, 20);
+        CountryMarkerView kept = countryMarkerView(3, 30, 30);
+        kept.keepView = true;
+        showMarkerViews(first, second, kept);
+        View firstView = mMarkerViewManager.getView(first);
+        View secondView = mMarkerViewManager.getView(second);
+        assertNotNull("View should be adapted", firstView);
+        assertNotNull("View should be adapted", secondView);
+        assertNotNull("View should be adapted", mMarkerViewManager.getView(kept));
+
+        // a MarkerView listed twice is only torn down once
+        mMarkerViewManager.removeMarkerViews(Arrays.<MarkerView>asList(first, second, kept, first));
+
+        assertNull("View should be removed", mMarkerViewManager.getView(first));
+        assertNull("View should be removed", mMarkerViewManager.getView(second));
+        assertNull("View should be removed", mMarkerViewManager.getView(kept));
+        assertEquals("Views prepared for reuse should match", 3, mAdapter.prepared.size());
+
+        Set<View> released = new HashSet<>();
+        View view;
+        while ((view = mAdapter.getViewReusePool().acquire()) != null) {
+            assertTrue("View should be released once", released.add(view));
+        }
+        assertEquals("Released views should match", 2, released.size());
+        assertTrue("View should be released", released.contains(firstView));
+        assertTrue("View should be released", released.contains(secondView));
+    }
+
+    @Test
+    public void testReleasedViewIsReused() {
+        CountryMarkerView first = countryMarkerView(1, 10, 10);
+        showMarkerViews(first);
+        View view = mMarkerViewManager.getView(first);
+        mMarkerViewManager.removeMarkerView(first);
+
+        CountryMarkerView second = countryMarkerView(2, 20, 20);
+        showMarkerViews(second);
+        assertSame("Released view should be passed as convert view", view, mAdapter.convertViews.get(1));
+        assertSame("Released view should be reused", view, mMarkerViewManager.getView(second));
+    }
+
+    @Test
+    public void testUpdateAfterFailureOnlyProjectsVisibleMarkerViews() {
+        showMarkerViews(countryMarkerView(1, 10, 10), countryMarkerView(2, 20, 20));
+        doThrow(new IllegalStateException()).when(mProjection)
+                .toScreenLocations(any(double[].class), any(float[].class));
+        try {
+            mMarkerViewManager.update();
+            fail("Update should fail");
+        } catch (IllegalStateException expected) {
+            // the next frame starts over
+        }
+
+        doNothing().when(mProjection).toScreenLocations(any(double[].class), any(float[].class));
+        mMarkerViewManager.update();
+        ArgumentCaptor<double[]> latLngs = ArgumentCaptor.forClass(double[].class);
+        verify(mProjection, atLeastOnce()).toScreenLocations(latLngs.capture(), any(float[].class));
+        assertEquals("Positions should only hold the visible MarkerViews", 4, latLngs.getValue().length);
+    }
+
+    private void showMarkerViews(MarkerView... markerViews) {
+        when(mMapView.getMarkerViewsInRect(any(RectF.class))).thenReturn(Arrays.asList(markerViews));
+        mMarkerViewManager.invalidateViewMarkersInVisibleRegion();
+    }
+
+    // MarkerViews are told apart by id
+    private static CountryMarkerView countryMarkerView(long id, double lat, double lng) {
+        CountryMarkerView markerView = new CountryMarkerView();
+        markerView.setId(id);
+        markerView.setPosition(new LatLng(lat, lng));
+        return markerView;
+    }
+
+    private static class CountryMarkerView extends MarkerView {
+
+        private boolean keepView;
+    }
+
+    private static class CountryMarkerViewAdapter extends MapboxMap.MarkerViewAdapter<CountryMarkerView> {
+
+        private final List<View> convertViews = new ArrayList<>();
+        private final List<MarkerView> prepared = new ArrayList<>();
+
+        CountryMarkerViewAdapter(Context context) {
+            super(context);
+        }
+
+        @Nullable
+        @Override
+        public View getView(@NonNull CountryMarkerView marker, @Nullable View convertView, @NonNull ViewGroup parent) {
+            convertViews.add(convertView);
+            return convertView != null ? convertView : mock(View.class);
+        }
+
+        @Override
+        public boolean prepareViewForReuse(@NonNull MarkerView marker, @NonNull View convertView) {
+            prepared.add(marker);
+            return !((CountryMarkerView) marker).keepView;
+        }
+    }
+}
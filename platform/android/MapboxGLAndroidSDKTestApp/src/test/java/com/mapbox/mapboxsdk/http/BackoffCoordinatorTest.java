@@ -0,0 +1,81 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BackoffCoordinatorTest {
+
+    @Test
+    public void testParseRetryAfterSeconds() {
+        assertEquals("delay should match", 30000, BackoffCoordinator.parseDelay("30", null, 0));
+    }
+
+    @Test
+    public void testParseRetryAfterDate() {
+        long now = 1445412480000L;
+        assertEquals("delay should match", 60000,
+                BackoffCoordinator.parseDelay("Wed, 21 Oct 2015 07:29:00 GMT", null, now));
+    }
+
+    @Test
+    public void testParseRateLimitReset() {
+        long now = TimeUnit.SECONDS.toMillis(1000);
+        assertEquals("delay should match", 5000, BackoffCoordinator.parseDelay(null, "1005", now));
+        assertEquals("passed resets should not pause", 0, BackoffCoordinator.parseDelay(null, "900", now));
+    }
+
+    @Test
+    public void testParseFallsBackToDefault() {
+        assertEquals("delay should match", BackoffCoordinator.DEFAULT_BACKOFF,
+                BackoffCoordinator.parseDelay("soon", "later", 0));
+    }
+
+    @Test
+    public void testPauseOnlyExtends() {
+        BackoffCoordinator backoff = new BackoffCoordinator();
+        long now = 0;
+        long deadline = backoff.pause("a.tiles.mapbox.com", 10000, now);
+        assertEquals("shorter pause should keep deadline", deadline, backoff.pause("a.tiles.mapbox.com", 1000, now));
+        assertTrue("host should be paused", backoff.isPaused("a.tiles.mapbox.com", now + TimeUnit.SECONDS.toNanos(5)));
+        assertFalse("other hosts should not be paused", backoff.isPaused("b.tiles.mapbox.com", now));
+        assertFalse("pause should expire", backoff.isPaused("a.tiles.mapbox.com", deadline));
+        assertEquals("rate limited count should match", 2, backoff.getRateLimitedCount());
+    }
+
+    @Test
+    public void testSchedulerSkipsPausedHost() {
+        OkHttpClient client = mock(OkHttpClient.class);
+        when(client.newCall(any(Request.class))).thenReturn(mock(Call.class));
+        RequestScheduler scheduler = new RequestScheduler(1, 0);
+        CallCoalescer coalescer = new CallCoalescer(scheduler);
+
+        Request first = new Request.Builder().url("https://a.tiles.mapbox.com/0").tag("0").build();
+        SharedCall running = coalescer.join(client, "0", first, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        scheduler.onRateLimited("a.tiles.mapbox.com", "60", null);
+        Request paused = new Request.Builder().url("https://a.tiles.mapbox.com/1").tag("1").build();
+        coalescer.join(client, "1", paused, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        Request other = new Request.Builder().url("https://b.tiles.mapbox.com/2").tag("2").build();
+        coalescer.join(client, "2", other, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_OFFLINE);
+
+        scheduler.finished(running);
+        assertEquals("other host should be dispatched", 0, scheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+        assertEquals("paused host should wait", 1, scheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        assertEquals("deferred count should match", 1, scheduler.getBackoff().getDeferredCount());
+
+        MapboxHttpMetrics.Snapshot snapshot = MapboxHttpMetrics.snapshot(scheduler);
+        assertEquals("snapshot rate limited count should match", 1, snapshot.getRateLimitedCount());
+        assertEquals("snapshot deferred count should match", 1, snapshot.getBackoffDeferredCount());
+    }
+}
@@ -0,0 +1,50 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Writes benchmark results as properties to build/reports/benchmarks, where CI archives them
+ * next to the JUnit reports so runs can be compared.
+ */
+class BenchmarkReport {
+
+    // unit tests run from the module directory
+    private static final File DIRECTORY = new File("build/reports/benchmarks");
+
+    private final String name;
+    private final Properties properties = new Properties();
+
+    BenchmarkReport(String name) {
+        this.name = name;
+    }
+
+    BenchmarkReport put(String key, Object value) {
+        properties.setProperty(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Writes the report, replacing the one of a previous run.
+     *
+     * @return the written file
+     * @throws IOException if the report cannot be written
+     */
+    File write() throws IOException {
+        if (!DIRECTORY.isDirectory() && !DIRECTORY.mkdirs()) {
+            throw new IOException("Cannot create " + DIRECTORY.getAbsolutePath());
+        }
+
+        File file = new File(DIRECTORY, name + ".properties");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            properties.store(out, name);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
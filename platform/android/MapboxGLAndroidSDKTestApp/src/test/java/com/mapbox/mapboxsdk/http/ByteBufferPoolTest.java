@@ -0,0 +1,96 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import okio.Buffer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void testAcquireIsDirect() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(3000);
+        assertTrue("buffer should be direct", buffer.isDirect());
+        assertEquals("capacity should be rounded up to a power of two", 4096, buffer.capacity());
+    }
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(2048);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals("pooled bytes should match", 2048, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(1500);
+        assertSame("buffer should be reused", buffer, reused);
+        assertEquals("buffer should be cleared", 0, reused.position());
+        assertEquals("pool should be empty", 0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        ByteBufferPool pool = new ByteBufferPool(4096);
+        pool.release(pool.acquire(4096));
+        pool.release(pool.acquire(4096));
+        assertEquals("pooled bytes should not exceed the limit", 4096, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testGrowKeepsContents() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(1024);
+        for (int i = 0; i < 1024; i++) {
+            buffer.put((byte) i);
+        }
+        ByteBuffer grown = pool.grow(buffer);
+        assertEquals("capacity should double", 2048, grown.capacity());
+        assertEquals("position should match", 1024, grown.position());
+        assertEquals("contents should match", (byte) 1023, grown.get(1023));
+    }
+
+    @Test
+    public void testOversizedBufferIsNotPooled() {
+        ByteBufferPool pool = new ByteBufferPool(16 * 1024 * 1024);
+        ByteBuffer buffer = pool.acquire(2 * 1024 * 1024 + 1);
+        pool.release(buffer);
+        assertEquals("oversized buffer should not be pooled", 0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testReadBodyGrowsPooledBuffer() throws IOException {
+        Buffer source = new Buffer();
+        for (int i = 0; i < 5000; i++) {
+            source.writeByte(i);
+        }
+
+        ByteBuffer body = SharedCall.readBody(source, ByteBuffer.allocateDirect(1024), true);
+        assertEquals("body length should match", 5000, body.limit());
+        assertEquals("contents should match", (byte) 4999, body.get(4999));
+        assertEquals("source should be drained", 0, source.size());
+    }
+
+    @Test
+    public void testReadBodyFillsExactBuffer() throws IOException {
+        ByteBuffer target = ByteBuffer.allocateDirect(3);
+        ByteBuffer body = SharedCall.readBody(new Buffer().writeUtf8("abc"), target, false);
+        assertSame("exact buffer should be filled in place", target, body);
+        assertEquals("body length should match", 3, body.limit());
+        assertEquals("contents should match", (byte) 'c', body.get(2));
+
+        try {
+            SharedCall.readBody(new Buffer().writeUtf8("abcd"), ByteBuffer.allocateDirect(3), false);
+            fail("a body longer than its buffer should be rejected");
+        } catch (IOException expected) {
+            // native only adopts bodies of the announced length
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CallCoalescerTest {
+
+    private CallCoalescer mCoalescer;
+    private OkHttpClient mClient;
+    private Call mCall;
+    private Request mRequest;
+
+    @Before
+    public void beforeTest() {
+        mCoalescer = new CallCoalescer(new RequestScheduler(20));
+        mClient = mock(OkHttpClient.class);
+        mCall = mock(Call.class);
+        when(mClient.newCall(any(Request.class))).thenReturn(mCall);
+        mRequest = new Request.Builder()
+                .url("https://a.tiles.mapbox.com/v4/mapbox.streets/1/0/0.vector.pbf")
+                .tag("https://a.tiles.mapbox.com/v4/mapbox.streets/1/0/0.vector.pbf")
+                .build();
+    }
+
+    @Test
+    public void testKeyIncludesConditionalHeaders() {
+        Request conditional = mRequest.newBuilder().addHeader("If-None-Match", "abc").build();
+        assertFalse("keys should differ", CallCoalescer.key(mRequest).equals(CallCoalescer.key(conditional)));
+        assertEquals("keys should match", CallCoalescer.key(conditional), CallCoalescer.key(conditional.newBuilder().build()));
+    }
+
+    @Test
+    public void testJoinSharesCall() {
+        String key = CallCoalescer.key(mRequest);
+        SharedCall first = mCoalescer.join(mClient, key, mRequest, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        SharedCall second = mCoalescer.join(mClient, key, mRequest, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        assertSame("calls should be shared", first, second);
+        assertEquals("one call should be in flight", 1, mCoalescer.size());
+        verify(mCall, times(1)).enqueue(any(SharedCall.class));
+    }
+
+    @Test
+    public void testCancelKeepsCallForRemainingPeers() {
+        String key = CallCoalescer.key(mRequest);
+        HTTPRequest first = mock(HTTPRequest.class);
+        HTTPRequest second = mock(HTTPRequest.class);
+        SharedCall call = mCoalescer.join(mClient, key, mRequest, first, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        mCoalescer.join(mClient, key, mRequest, second, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+
+        call.removePeer(first);
+        verify(mCall, never()).cancel();
+        assertEquals("call should still be in flight", 1, mCoalescer.size());
+
+        call.removePeer(second);
+        verify(mCall, times(1)).cancel();
+        assertEquals("call should be removed", 0, mCoalescer.size());
+    }
+
+    @Test
+    public void testCancelKeepsQueuedCallForRemainingPeers() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        CallCoalescer coalescer = new CallCoalescer(scheduler);
+        Request other = new Request.Builder()
+                .url("https://a.tiles.mapbox.com/v4/mapbox.streets/1/1/0.vector.pbf")
+                .build();
+        SharedCall running = coalescer.join(mClient, CallCoalescer.key(other), other, mock(HTTPRequest.class),
+                MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+
+        // the only slot is taken, the shared call waits in the queue
+        String key = CallCoalescer.key(mRequest);
+        HTTPRequest first = mock(HTTPRequest.class);
+        HTTPRequest second = mock(HTTPRequest.class);
+        SharedCall queued = coalescer.join(mClient, key, mRequest, first, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        coalescer.join(mClient, key, mRequest, second, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        assertEquals("call should be queued", 1, scheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+
+        queued.removePeer(first);
+        assertEquals("call should stay queued", 1, scheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        assertEquals("both calls should be in flight", 2, coalescer.size());
+
+        scheduler.finished(running);
+        assertEquals("call should have started", 0, scheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        verify(mCall, times(2)).enqueue(any(SharedCall.class));
+
+        queued.removePeer(second);
+        verify(mCall, times(1)).cancel();
+    }
+
+    @Test
+    public void testCancelRemovesQueuedCallWithLastPeer() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        CallCoalescer coalescer = new CallCoalescer(scheduler);
+        Request other = new Request.Builder()
+                .url("https://a.tiles.mapbox.com/v4/mapbox.streets/1/1/0.vector.pbf")
+                .build();
+        coalescer.join(mClient, CallCoalescer.key(other), other, mock(HTTPRequest.class),
+                MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+
+        HTTPRequest peer = mock(HTTPRequest.class);
+        SharedCall queued = coalescer.join(mClient, CallCoalescer.key(mRequest), mRequest, peer,
+                MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        queued.removePeer(peer);
+        assertEquals("call should be dequeued", 0, scheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        assertEquals("call should be removed", 1, coalescer.size());
+    }
+
+    @Test
+    public void testJoinAfterCancelStartsNewCall() {
+        String key = CallCoalescer.key(mRequest);
+        HTTPRequest peer = mock(HTTPRequest.class);
+        SharedCall first = mCoalescer.join(mClient, key, mRequest, peer, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        first.removePeer(peer);
+        SharedCall second = mCoalescer.join(mClient, key, mRequest, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        assertNotSame("a new call should be started", first, second);
+    }
+}
@@ -0,0 +1,59 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class HttpClientConfigTest {
+
+    @Test
+    public void testDefaults() {
+        HttpClientConfig config = new HttpClientConfig.Builder().build();
+        assertEquals("maxRequests should match", HttpClientConfig.DEFAULT_MAX_REQUESTS, config.getMaxRequests());
+        assertEquals("maxRequestsPerHost should match", HttpClientConfig.DEFAULT_MAX_REQUESTS_PER_HOST, config.getMaxRequestsPerHost());
+        assertEquals("maxIdleConnections should match", HttpClientConfig.DEFAULT_MAX_IDLE_CONNECTIONS, config.getMaxIdleConnections());
+        assertEquals("connectTimeout should match", HttpClientConfig.DEFAULT_TIMEOUT, config.getConnectTimeout());
+        assertTrue("http2 should be enabled", config.isHttp2Enabled());
+    }
+
+    @Test
+    public void testBuilder() {
+        HttpClientConfig config = new HttpClientConfig.Builder()
+                .maxRequests(32)
+                .maxRequestsPerHost(16)
+                .maxIdleConnections(4)
+                .keepAliveDuration(1, TimeUnit.MINUTES)
+                .readTimeout(3, TimeUnit.SECONDS)
+                .http2Enabled(false)
+                .build();
+        assertEquals("maxRequests should match", 32, config.getMaxRequests());
+        assertEquals("maxRequestsPerHost should match", 16, config.getMaxRequestsPerHost());
+        assertEquals("maxIdleConnections should match", 4, config.getMaxIdleConnections());
+        assertEquals("keepAliveDuration should match", 60000, config.getKeepAliveDuration());
+        assertEquals("readTimeout should match", 3000, config.getReadTimeout());
+        assertFalse("http2 should be disabled", config.isHttp2Enabled());
+    }
+
+    @Test
+    public void testMaxRequestsPerHostCapped() {
+        HttpClientConfig config = new HttpClientConfig.Builder()
+                .maxRequests(8)
+                .maxRequestsPerHost(64)
+                .build();
+        assertEquals("maxRequestsPerHost should be capped to maxRequests", 8, config.getMaxRequestsPerHost());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxRequests() {
+        new HttpClientConfig.Builder().maxRequests(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeout() {
+        new HttpClientConfig.Builder().connectTimeout(-1, TimeUnit.SECONDS);
+    }
+}
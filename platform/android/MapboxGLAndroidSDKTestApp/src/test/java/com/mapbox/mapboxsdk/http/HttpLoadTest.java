@@ -0,0 +1,95 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class HttpLoadTest {
+
+    private static final int STEPS = 40;
+
+    // Generous bounds against the local server, a regression of this size is not noise
+    private static final long MAX_P99_MILLIS = 1000;
+    private static final double MIN_REQUESTS_PER_SECOND = 25;
+    private static final long MAX_ALLOCATED_PER_REQUEST = 1024 * 1024;
+
+    private TileServer mServer;
+    private OkHttpClient mClient;
+    private CallCoalescer mCoalescer;
+
+    @Before
+    public void beforeTest() throws Exception {
+        mServer = new TileServer();
+        mServer.start();
+        HttpClientConfig config = new HttpClientConfig.Builder().build();
+        mClient = new OkHttpClient();
+        mCoalescer = new CallCoalescer(new RequestScheduler(config.getMaxRequests()));
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testPanWithRevalidation() throws Exception {
+        mServer.setLatency(5);
+        LoadTestDriver.Report report = new LoadTestDriver(mServer, mClient, mCoalescer).run(STEPS);
+
+        assertEquals("every peer should be answered", 2 * mServer.getRequestCount(), report.getRequests());
+        assertEquals("no request should fail", 0, report.getFailed());
+        assertTrue("returning west should revalidate", report.getNotModified() > 0);
+        assertEquals("peers should see what the server sent", 2 * mServer.getNotModifiedCount(), report.getNotModified());
+        assertReportConsistent(report);
+        assertWithinBounds("HttpLoad.panWithRevalidation", report);
+    }
+
+    @Test
+    public void testPanWithInjectedErrors() throws Exception {
+        mServer.setLatency(5);
+        mServer.setErrorRate(0.05);
+        // Retry-After 0 keeps the host backoff from stretching the run
+        mServer.setRateLimit(0.05, 0);
+        LoadTestDriver.Report report = new LoadTestDriver(mServer, mClient, mCoalescer).run(STEPS);
+
+        assertEquals("every peer should be answered", 2 * mServer.getRequestCount(), report.getRequests());
+        assertEquals("rate limited peers should match", 2 * mServer.getRateLimitedCount(), report.getRateLimited());
+        assertEquals("failed peers should match", 2 * mServer.getErrorCount(), report.getFailed());
+        assertReportConsistent(report);
+        assertWithinBounds("HttpLoad.panWithInjectedErrors", report);
+    }
+
+    private static void assertReportConsistent(LoadTestDriver.Report report) {
+        assertEquals("outcomes should add up to the requests", report.getRequests(),
+                report.getOk() + report.getNotModified() + report.getRateLimited() + report.getFailed());
+        assertTrue("throughput should be measured", report.getRequestsPerSecond() > 0);
+        LatencyHistogram latency = report.getLatency();
+        assertEquals("every request should be timed", report.getRequests(), latency.getCount());
+        assertTrue("p99 should not be below p50", latency.getPercentile(99) >= latency.getPercentile(50));
+    }
+
+    private static void assertWithinBounds(String name, LoadTestDriver.Report report) throws IOException {
+        LatencyHistogram latency = report.getLatency();
+        new BenchmarkReport(name)
+                .put("requests", report.getRequests())
+                .put("requestsPerSecond", report.getRequestsPerSecond())
+                .put("p50Millis", latency.getPercentile(50))
+                .put("p99Millis", latency.getPercentile(99))
+                .put("allocatedPerRequest", report.getAllocatedPerRequest())
+                .put("summary", report)
+                .write();
+
+        assertTrue("p99 latency regressed: " + report, latency.getPercentile(99) <= MAX_P99_MILLIS);
+        assertTrue("throughput regressed: " + report, report.getRequestsPerSecond() >= MIN_REQUESTS_PER_SECOND);
+        // -1 when the JVM cannot measure allocation
+        assertTrue("allocation per request regressed: " + report,
+                report.getAllocatedPerRequest() <= MAX_ALLOCATED_PER_REQUEST);
+    }
+}
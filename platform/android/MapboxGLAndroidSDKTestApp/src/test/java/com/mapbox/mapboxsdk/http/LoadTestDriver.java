@@ -0,0 +1,250 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Fires map-like tile request patterns at a {@link TileServer} through the HTTPRequest callback path
+ * and reports throughput, latency and allocation.
+ * <p>
+ * The pattern pans a viewport of vector and @2x raster tiles east and back west. Panning requests
+ * the newly visible column, returning west revalidates tiles with their ETag. Every tile is requested
+ * by two peers at once, as happens when two style layers share a source.
+ * </p>
+ */
+class LoadTestDriver {
+
+    private static final int ZOOM = 14;
+    private static final int COLUMNS = 4;
+    private static final int ROWS = 3;
+    private static final int PEERS_PER_TILE = 2;
+
+    private final TileServer server;
+    private final OkHttpClient client;
+    private final CallCoalescer coalescer;
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+
+    LoadTestDriver(TileServer server, OkHttpClient client, CallCoalescer coalescer) {
+        this.server = server;
+        this.client = client;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Runs the pattern and blocks until every request has been answered.
+     *
+     * @param steps the amount of pan steps, half east and half back west
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for responses
+     */
+    Report run(int steps) throws InterruptedException {
+        Report report = new Report();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        int originX = 8000;
+        int originY = 5000;
+        int x = originX;
+        for (int step = 0; step <= steps; step++) {
+            List<String> paths = new ArrayList<>();
+            if (step == 0) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    addColumn(paths, x + column, originY);
+                }
+            } else if (step <= steps / 2) {
+                x++;
+                addColumn(paths, x + COLUMNS - 1, originY);
+            } else {
+                x--;
+                addColumn(paths, x, originY);
+            }
+            fire(paths, report);
+        }
+
+        report.duration = System.nanoTime() - start;
+        long allocatedAfter = allocatedBytes();
+        report.allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return report;
+    }
+
+    private static void addColumn(List<String> paths, int x, int y) {
+        for (int row = 0; row < ROWS; row++) {
+            paths.add("/v4/mapbox.mapbox-streets-v7/" + ZOOM + "/" + x + "/" + (y + row) + ".vector.pbf");
+            paths.add("/v4/mapbox.satellite/" + ZOOM + "/" + x + "/" + (y + row) + "@2x.png");
+        }
+    }
+
+    private void fire(List<String> paths, Report report) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(paths.size() * PEERS_PER_TILE);
+        for (String path : paths) {
+            String url = server.url(path).toString();
+            String etag = etags.containsKey(url) ? etags.get(url) : "";
+            for (int i = 0; i < PEERS_PER_TILE; i++) {
+                HTTPRequest request = new HTTPRequest(new LoadTestReceiver(url, latch, report));
+                try {
+                    request.send(client, coalescer, url, etag, "", MapboxHttpMetrics.KIND_TILE,
+                            RequestScheduler.PRIORITY_VIEWPORT, false);
+                } catch (RuntimeException e) {
+                    request.onFailure(e);
+                }
+            }
+        }
+
+        if (!latch.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Timed out waiting for " + latch.getCount() + " responses");
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        if (!allocation.isThreadAllocatedMemorySupported() || !allocation.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long total = 0;
+        for (long bytes : allocation.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    /**
+     * Stands in for the native peer, allocating bodies of known length and consuming every body
+     * in place as native does.
+     */
+    private class LoadTestReceiver implements HTTPRequest.Receiver {
+
+        private final String url;
+        private final CountDownLatch latch;
+        private final Report report;
+        private final long sentAt = System.nanoTime();
+
+        LoadTestReceiver(String url, CountDownLatch latch, Report report) {
+            this.url = url;
+            this.latch = latch;
+            this.report = report;
+        }
+
+        @Override
+        public ByteBuffer allocateBody(int length) {
+            return ByteBuffer.allocateDirect(length);
+        }
+
+        @Override
+        public void releaseBody(ByteBuffer body) {
+            // left to the garbage collector, native frees its bodies here
+        }
+
+        @Override
+        public void onResponse(int code, String etag, String modified, String cacheControl, String expires,
+                               String retryAfter, String xRateLimitReset, ByteBuffer body, int bodyLength) {
+            long checksum = 0;
+            for (int i = 0; i < bodyLength; i++) {
+                checksum += body.get(i);
+            }
+            report.checksum.addAndGet((int) checksum);
+
+            if (code == 200 && etag != null) {
+                etags.put(url, etag);
+            }
+            report.complete(code, sentAt);
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(int type, String message) {
+            report.complete(0, sentAt);
+            latch.countDown();
+        }
+    }
+
+    static class Report {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicInteger checksum = new AtomicInteger();
+        private int requests;
+        private int ok;
+        private int notModified;
+        private int rateLimited;
+        private int failed;
+        private long duration;
+        private long allocated;
+
+        private synchronized void complete(int code, long sentAt) {
+            requests++;
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt));
+            if (code == 200) {
+                ok++;
+            } else if (code == 304) {
+                notModified++;
+            } else if (code == 429) {
+                rateLimited++;
+            } else {
+                failed++;
+            }
+        }
+
+        synchronized int getRequests() {
+            return requests;
+        }
+
+        synchronized int getOk() {
+            return ok;
+        }
+
+        synchronized int getNotModified() {
+            return notModified;
+        }
+
+        synchronized int getRateLimited() {
+            return rateLimited;
+        }
+
+        synchronized int getFailed() {
+            return failed;
+        }
+
+        synchronized double getRequestsPerSecond() {
+            return duration == 0 ? 0 : requests / (duration / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        synchronized LatencyHistogram getLatency() {
+            return latency.copy();
+        }
+
+        /**
+         * Returns the bytes allocated by all threads during the run divided by the amount of requests.
+         *
+         * @return the allocation per request in bytes, -1 if the JVM cannot measure it
+         */
+        synchronized long getAllocatedPerRequest() {
+            return allocated < 0 || requests == 0 ? -1 : allocated / requests;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US,
+                    "%d requests (%d ok, %d not modified, %d rate limited, %d failed) in %d ms: %.0f req/s, "
+                            + "p50 %d ms, p99 %d ms, %d bytes allocated per request",
+                    requests, ok, notModified, rateLimited, failed, TimeUnit.NANOSECONDS.toMillis(duration),
+                    getRequestsPerSecond(), latency.getPercentile(50), latency.getPercentile(99),
+                    getAllocatedPerRequest());
+        }
+    }
+}
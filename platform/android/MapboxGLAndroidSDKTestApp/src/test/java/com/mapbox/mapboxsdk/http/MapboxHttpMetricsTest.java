@@ -0,0 +1,85 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.HttpUrl;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class MapboxHttpMetricsTest {
+
+    @Before
+    public void beforeTest() {
+        MapboxHttpMetrics.reset();
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals("count should match", 100, histogram.getCount());
+        assertEquals("mean should match", 50, histogram.getMean());
+        assertEquals("max should match", 100, histogram.getMax());
+        assertEquals("p50 should fall in the 50ms bucket", 50, histogram.getPercentile(50));
+        assertEquals("p99 should fall in the 100ms bucket", 100, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testRecordAggregatesPerKind() {
+        MapboxHttpMetrics.record(new RequestMetrics(MapboxHttpMetrics.KIND_TILE, "https://example.com/0", 200, false,
+                5, 20, 40, 10, 1024, 0, true, 2));
+        MapboxHttpMetrics.record(new RequestMetrics(MapboxHttpMetrics.KIND_TILE, "https://example.com/1", 304, false,
+                5, 0, 30, 0, 0, 1, true, 1));
+        MapboxHttpMetrics.record(new RequestMetrics(MapboxHttpMetrics.KIND_GLYPHS, "https://example.com/2", 0, true,
+                5, 100, -1, -1, 0, 0, true, 1));
+
+        MapboxHttpMetrics.Snapshot snapshot = MapboxHttpMetrics.snapshot(new RequestScheduler(20));
+        ResourceMetrics tiles = snapshot.getResourceMetrics(MapboxHttpMetrics.KIND_TILE);
+        assertEquals("request count should match", 2, tiles.getRequestCount());
+        assertEquals("not modified count should match", 1, tiles.getNotModifiedCount());
+        assertEquals("bytes should match", 1024, tiles.getBytes());
+        assertEquals("retry count should match", 1, tiles.getRetryCount());
+        assertEquals("coalesced count should match", 1, tiles.getCoalescedCount());
+        assertEquals("ttfb samples should match", 2, tiles.getTimeToFirstByte().getCount());
+
+        ResourceMetrics glyphs = snapshot.getResourceMetrics(MapboxHttpMetrics.KIND_GLYPHS);
+        assertEquals("failure count should match", 1, glyphs.getFailureCount());
+        assertEquals("unreached phases should not be sampled", 0, glyphs.getTimeToFirstByte().getCount());
+    }
+
+    @Test
+    public void testSnapshotIsACopy() {
+        MapboxHttpMetrics.Snapshot snapshot = MapboxHttpMetrics.snapshot(new RequestScheduler(20));
+        MapboxHttpMetrics.record(new RequestMetrics(MapboxHttpMetrics.KIND_STYLE, "https://example.com/style", 200, false,
+                0, 0, 10, 1, 10, 0, true, 1));
+        assertEquals("snapshot should not change", 0,
+                snapshot.getResourceMetrics(MapboxHttpMetrics.KIND_STYLE).getRequestCount());
+    }
+
+    @Test
+    public void testListener() {
+        MapboxHttpMetrics.OnRequestCompletedListener listener = mock(MapboxHttpMetrics.OnRequestCompletedListener.class);
+        MapboxHttpMetrics.addOnRequestCompletedListener(listener);
+        RequestMetrics metrics = new RequestMetrics(MapboxHttpMetrics.KIND_TILE, "https://example.com/0", 200, false,
+                0, 0, 10, 1, 10, 0, true, 1);
+        MapboxHttpMetrics.record(metrics);
+        MapboxHttpMetrics.removeOnRequestCompletedListener(listener);
+        verify(listener).onRequestCompleted(metrics);
+    }
+
+    @Test
+    public void testUrlIsRedacted() {
+        HttpUrl url = HttpUrl.parse("https://api.mapbox.com/v4/mapbox.satellite/1/2/3@2x.png"
+                + "?access_token=pk.secret&events=true");
+        assertEquals("access token should be removed",
+                "https://api.mapbox.com/v4/mapbox.satellite/1/2/3@2x.png?events=true", RequestMetrics.redactUrl(url));
+
+        String plain = "https://example.com/tile?style=1";
+        assertEquals("url without a token should be kept", plain, RequestMetrics.redactUrl(HttpUrl.parse(plain)));
+    }
+}
@@ -0,0 +1,176 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class NetworkQualityTest {
+
+    private List<NetworkQuality> mChanges;
+    private NetworkQualityEstimator mEstimator;
+
+    @Before
+    public void beforeTest() {
+        mChanges = new ArrayList<>();
+        mEstimator = new NetworkQualityEstimator(new NetworkQualityEstimator.OnNetworkQualityChangedListener() {
+            @Override
+            public void onNetworkQualityChanged(NetworkQuality quality) {
+                mChanges.add(quality);
+            }
+        });
+    }
+
+    @After
+    public void afterTest() {
+        MapboxHttpMetrics.removeOnRequestCompletedListener(mEstimator);
+    }
+
+    private static RequestMetrics metrics(long timeToFirstByte, long transferTime, long bytes) {
+        return new RequestMetrics(MapboxHttpMetrics.KIND_TILE, "https://example.com/tile", 200, false,
+                0, 0, timeToFirstByte, transferTime, bytes, 0, true, 1);
+    }
+
+    @Test
+    public void testUnknownUntilEnoughSamples() {
+        mEstimator.onRequestCompleted(metrics(50, 10, 64 * 1024));
+        mEstimator.onRequestCompleted(metrics(50, 10, 64 * 1024));
+        assertEquals("quality should be unknown", NetworkQuality.QUALITY_UNKNOWN, mEstimator.getQuality().getQualityClass());
+        assertEquals("bandwidth should be unknown", -1, mEstimator.getQuality().getBandwidth());
+
+        mEstimator.onRequestCompleted(metrics(50, 10, 64 * 1024));
+        assertEquals("quality should be excellent", NetworkQuality.QUALITY_EXCELLENT, mEstimator.getQuality().getQualityClass());
+        assertEquals("one change should be reported", 1, mChanges.size());
+    }
+
+    @Test
+    public void testSmallBodiesDoNotSampleBandwidth() {
+        for (int i = 0; i < 5; i++) {
+            mEstimator.onRequestCompleted(metrics(50, 100, 512));
+        }
+        assertEquals("bandwidth should be unknown", -1, mEstimator.getQuality().getBandwidth());
+        assertEquals("round trip time should match", 50, mEstimator.getQuality().getRoundTripTime());
+    }
+
+    @Test
+    public void testSlowRoundTripDegradesQuality() {
+        for (int i = 0; i < 3; i++) {
+            mEstimator.onRequestCompleted(metrics(50, 10, 64 * 1024));
+        }
+        for (int i = 0; i < 10; i++) {
+            mEstimator.onRequestCompleted(metrics(2000, 10, 64 * 1024));
+        }
+        assertEquals("quality should be poor", NetworkQuality.QUALITY_POOR, mEstimator.getQuality().getQualityClass());
+    }
+
+    @Test
+    public void testResetDiscardsEstimate() {
+        for (int i = 0; i < 3; i++) {
+            mEstimator.onRequestCompleted(metrics(50, 10, 64 * 1024));
+        }
+        mEstimator.reset(true);
+        NetworkQuality quality = mEstimator.getQuality();
+        assertEquals("quality should be unknown", NetworkQuality.QUALITY_UNKNOWN, quality.getQualityClass());
+        assertTrue("quality should be metered", quality.isMetered());
+        assertEquals("changes should be reported", 2, mChanges.size());
+    }
+
+    @Test
+    public void testDefaultPolicy() {
+        NetworkPolicy policy = new DefaultNetworkPolicy();
+        NetworkQuality unknown = new NetworkQuality(0, 0, 0, 0, false);
+        assertTrue("unknown links should keep high density tiles", policy.useHighDensityTiles(unknown));
+        assertEquals("unknown links should not limit", 20, policy.getNonVisibleRequestLimit(unknown, 20));
+        assertFalse("unknown links should not defer", policy.deferNonVisibleRequests(unknown));
+
+        NetworkQuality poor = new NetworkQuality(200, 1500, 3, 3, false);
+        assertFalse("poor links should use low density tiles", policy.useHighDensityTiles(poor));
+        assertEquals("poor links should limit", 5, policy.getNonVisibleRequestLimit(poor, 20));
+        assertTrue("poor links should defer", policy.deferNonVisibleRequests(poor));
+
+        NetworkQuality metered = new NetworkQuality(10000, 50, 3, 3, true);
+        assertTrue("fast metered links should keep high density tiles", policy.useHighDensityTiles(metered));
+        assertEquals("metered links should limit", 1, policy.getNonVisibleRequestLimit(metered, 4));
+        assertTrue("metered links should defer", policy.deferNonVisibleRequests(metered));
+    }
+
+    @Test
+    public void testLowDensityUrl() {
+        assertEquals("ratio should be removed", "https://example.com/v4/satellite/1/2/3.png?access_token=x",
+                HTTPRequest.toLowDensityUrl("https://example.com/v4/satellite/1/2/3@2x.png?access_token=x"));
+        assertNull("urls without ratio should not be rewritten",
+                HTTPRequest.toLowDensityUrl("https://example.com/v4/satellite/1/2/3.png?key=@2x.png"));
+        assertNull("only the last segment should be rewritten",
+                HTTPRequest.toLowDensityUrl("https://example.com/tiles@2x.d/1/2/3.png"));
+    }
+
+    @Test
+    public void testLowDensitySkipsOfflineDownloads() {
+        assertTrue("viewport tiles should fall back to low density",
+                HTTPRequest.isLowDensity(MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT, 2, false));
+        assertFalse("offline downloads should keep high density tiles",
+                HTTPRequest.isLowDensity(MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_OFFLINE, 2, false));
+        assertFalse("high density links should keep high density tiles",
+                HTTPRequest.isLowDensity(MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT, 2, true));
+        assertFalse("low density screens should not be rewritten",
+                HTTPRequest.isLowDensity(MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT, 1, false));
+    }
+
+    @Test
+    public void testThrottledServer() throws Exception {
+        // 64 KiB at 8 KiB per 100 ms is about 650 kbps, a moderate link
+        MockWebServer server = new MockWebServer();
+        byte[] tile = new byte[64 * 1024];
+        for (int i = 0; i < NetworkQuality.MIN_SAMPLES; i++) {
+            server.enqueue(new MockResponse()
+                    .setBody(new Buffer().write(tile))
+                    .throttleBody(8 * 1024, 100, TimeUnit.MILLISECONDS));
+        }
+        server.start();
+
+        final CountDownLatch latch = new CountDownLatch(NetworkQuality.MIN_SAMPLES);
+        MapboxHttpMetrics.OnRequestCompletedListener listener = new MapboxHttpMetrics.OnRequestCompletedListener() {
+            @Override
+            public void onRequestCompleted(RequestMetrics metrics) {
+                latch.countDown();
+            }
+        };
+        MapboxHttpMetrics.addOnRequestCompletedListener(mEstimator);
+        MapboxHttpMetrics.addOnRequestCompletedListener(listener);
+        try {
+            OkHttpClient client = new OkHttpClient();
+            CallCoalescer coalescer = new CallCoalescer(new RequestScheduler(1, 0));
+            for (int i = 0; i < NetworkQuality.MIN_SAMPLES; i++) {
+                String url = server.url("/v4/satellite/1/0/" + i + ".png").toString();
+                Request request = new Request.Builder().url(url).tag(url).build();
+                coalescer.join(client, CallCoalescer.key(request), request, mock(HTTPRequest.class),
+                        MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+            }
+            assertTrue("requests should complete", latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            MapboxHttpMetrics.removeOnRequestCompletedListener(listener);
+            server.shutdown();
+        }
+
+        NetworkQuality quality = mEstimator.getQuality();
+        assertEquals("throttled link should be moderate", NetworkQuality.QUALITY_MODERATE, quality.getQualityClass());
+        assertEquals("moderate links should halve non-visible requests", 10,
+                new DefaultNetworkPolicy().getNonVisibleRequestLimit(quality, 20));
+    }
+}
@@ -0,0 +1,271 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class PeerLifecycleTest {
+
+    private static final int REQUEST_COUNT = 20000;
+    private static final int THREAD_COUNT = 8;
+    private static final int BENCHMARK_ROUNDS = 5;
+    // generous so a loaded CI machine does not flake, the report records the actual ratio
+    private static final double MAX_SLOWDOWN = 2;
+
+    private static class TestPeer extends PeerLifecycle {
+        final AtomicInteger deliveries = new AtomicInteger();
+        volatile boolean freed;
+
+        void deliver() {
+            if (!beginDelivery()) {
+                return;
+            }
+            try {
+                if (freed) {
+                    throw new IllegalStateException("delivered to a freed peer");
+                }
+                deliveries.incrementAndGet();
+            } finally {
+                endDelivery();
+            }
+        }
+
+        boolean cancel() {
+            boolean cancelled = close();
+            freed = true;
+            return cancelled;
+        }
+    }
+
+    // The per-request lock HTTPRequest used before PeerLifecycle
+    private static class LockedPeer {
+        final ReentrantLock lock = new ReentrantLock();
+        long nativePtr = 1;
+        int deliveries;
+
+        void deliver() {
+            lock.lock();
+            try {
+                if (nativePtr != 0) {
+                    deliveries++;
+                    nativePtr = 0;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                nativePtr = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Test
+    public void testDeliverOnce() {
+        TestPeer peer = new TestPeer();
+        peer.deliver();
+        peer.deliver();
+        assertEquals("peer should be delivered once", 1, peer.deliveries.get());
+        assertFalse("closing a delivered peer should not cancel it", peer.cancel());
+    }
+
+    @Test
+    public void testCancelBeforeDelivery() {
+        TestPeer peer = new TestPeer();
+        assertTrue("pending peer should be cancelled", peer.cancel());
+        peer.deliver();
+        assertEquals("cancelled peer should not be delivered", 0, peer.deliveries.get());
+        assertEquals("state should be closed", PeerLifecycle.STATE_CLOSED, peer.getState());
+    }
+
+    @Test
+    public void testExactlyOnceUnderContention() throws InterruptedException {
+        final List<TestPeer> peers = new ArrayList<>(REQUEST_COUNT);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            peers.add(new TestPeer());
+        }
+
+        final AtomicInteger cancelled = new AtomicInteger();
+        race(new Runnable() {
+            @Override
+            public void run() {
+                for (TestPeer peer : peers) {
+                    peer.deliver();
+                }
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                for (TestPeer peer : peers) {
+                    if (peer.cancel()) {
+                        cancelled.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        int delivered = 0;
+        for (TestPeer peer : peers) {
+            assertTrue("peer should be delivered at most once", peer.deliveries.get() <= 1);
+            delivered += peer.deliveries.get();
+        }
+        assertEquals("every peer should be delivered or cancelled", REQUEST_COUNT, delivered + cancelled.get());
+    }
+
+    @Test
+    public void testCloseWaitsForDelivery() throws InterruptedException {
+        final CountDownLatch delivering = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final PeerLifecycle peer = new PeerLifecycle() {
+        };
+        Thread deliverer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue("pending peer should be delivered", peer.beginDelivery());
+                delivering.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    // finish the delivery
+                }
+                peer.endDelivery();
+            }
+        });
+        deliverer.start();
+        delivering.await();
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                peer.close();
+                closed.set(true);
+            }
+        });
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING) {
+            assertTrue("closer should sleep instead of spinning", closer.isAlive());
+            Thread.sleep(1);
+        }
+        assertFalse("close should wait for the delivery", closed.get());
+
+        finish.countDown();
+        closer.join();
+        deliverer.join();
+        assertTrue("close should return once the delivery ends", closed.get());
+        assertEquals("state should be closed", PeerLifecycle.STATE_CLOSED, peer.getState());
+    }
+
+    @Test
+    public void testLockFreeUnderContention() throws InterruptedException, IOException {
+        // keep the best of several rounds, the first ones double as warm up
+        long lockFree = Long.MAX_VALUE;
+        long locked = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            lockFree = Math.min(lockFree, raceLockFree());
+            locked = Math.min(locked, raceLocked());
+        }
+
+        new BenchmarkReport("PeerLifecycle")
+                .put("requests", REQUEST_COUNT)
+                .put("threads", THREAD_COUNT)
+                .put("lockFreeNanos", lockFree)
+                .put("lockedNanos", locked)
+                .put("speedup", locked / (double) lockFree)
+                .write();
+        assertTrue("lock-free lifecycle should keep up with the lock",
+                lockFree <= locked * MAX_SLOWDOWN);
+    }
+
+    private static long raceLockFree() throws InterruptedException {
+        final List<TestPeer> peers = new ArrayList<>(REQUEST_COUNT);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            peers.add(new TestPeer());
+        }
+        return race(new Runnable() {
+            @Override
+            public void run() {
+                for (TestPeer peer : peers) {
+                    peer.deliver();
+                }
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                for (TestPeer peer : peers) {
+                    peer.cancel();
+                }
+            }
+        });
+    }
+
+    private static long raceLocked() throws InterruptedException {
+        final List<LockedPeer> peers = new ArrayList<>(REQUEST_COUNT);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            peers.add(new LockedPeer());
+        }
+        return race(new Runnable() {
+            @Override
+            public void run() {
+                for (LockedPeer peer : peers) {
+                    peer.deliver();
+                }
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                for (LockedPeer peer : peers) {
+                    peer.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs deliver on half of the threads and cancel on the other half.
+     *
+     * @return the time from releasing the threads until all of them finished, in nanoseconds
+     */
+    private static long race(final Runnable deliver, final Runnable cancel) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final Runnable work = i % 2 == 0 ? deliver : cancel;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    work.run();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - begin;
+    }
+}
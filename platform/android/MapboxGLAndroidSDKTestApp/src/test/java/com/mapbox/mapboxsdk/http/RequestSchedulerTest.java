@@ -0,0 +1,115 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestSchedulerTest {
+
+    private OkHttpClient mClient;
+    private CallCoalescer mCoalescer;
+    private RequestScheduler mScheduler;
+
+    @Before
+    public void beforeTest() {
+        mClient = mock(OkHttpClient.class);
+        when(mClient.newCall(any(Request.class))).thenReturn(mock(Call.class));
+        mScheduler = new RequestScheduler(1, 0);
+        mCoalescer = new CallCoalescer(mScheduler);
+    }
+
+    private SharedCall join(String url, int priority) {
+        Request request = new Request.Builder().url(url).tag(url).build();
+        return mCoalescer.join(mClient, CallCoalescer.key(request), request, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, priority);
+    }
+
+    @Test
+    public void testHigherPriorityRunsFirst() {
+        SharedCall running = join("https://example.com/0", RequestScheduler.PRIORITY_OFFLINE);
+        join("https://example.com/1", RequestScheduler.PRIORITY_OFFLINE);
+        join("https://example.com/2", RequestScheduler.PRIORITY_VIEWPORT);
+        assertEquals("one call should run", 1, mScheduler.getRunningCount());
+        assertEquals("offline queue depth should match", 1, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+        assertEquals("viewport queue depth should match", 1, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+
+        mScheduler.finished(running);
+        assertEquals("viewport call should be dispatched", 0, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        assertEquals("offline call should still wait", 1, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+    }
+
+    @Test
+    public void testJoinPromotesQueuedCall() {
+        join("https://example.com/0", RequestScheduler.PRIORITY_CRITICAL);
+        SharedCall offline = join("https://example.com/1", RequestScheduler.PRIORITY_OFFLINE);
+        join("https://example.com/1", RequestScheduler.PRIORITY_VIEWPORT);
+        assertEquals("call should be promoted", RequestScheduler.PRIORITY_VIEWPORT, offline.getPriority());
+        assertEquals("offline queue should be empty", 0, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+        assertEquals("viewport queue depth should match", 1, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+    }
+
+    @Test
+    public void testCancelledCallLeavesQueue() {
+        join("https://example.com/0", RequestScheduler.PRIORITY_CRITICAL);
+        Request request = new Request.Builder().url("https://example.com/1").tag("https://example.com/1").build();
+        HTTPRequest peer = mock(HTTPRequest.class);
+        SharedCall queued = mCoalescer.join(mClient, CallCoalescer.key(request), request, peer, MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_ASSET);
+        queued.removePeer(peer);
+        assertEquals("asset queue should be empty", 0, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_ASSET));
+    }
+
+    @Test
+    public void testOfflineParksRequests() {
+        mScheduler.setOnline(false);
+        join("https://example.com/0", RequestScheduler.PRIORITY_OFFLINE);
+        join("https://example.com/1", RequestScheduler.PRIORITY_VIEWPORT);
+        assertEquals("no call should run while offline", 0, mScheduler.getRunningCount());
+
+        mScheduler.setOnline(true);
+        assertEquals("one call should run after reconnect", 1, mScheduler.getRunningCount());
+        assertEquals("viewport call should be released first", 0, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_VIEWPORT));
+        assertEquals("offline call should still be parked", 1, mScheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+    }
+
+    @Test
+    public void testDeferNonVisibleRequests() {
+        RequestScheduler scheduler = new RequestScheduler(4, 0);
+        CallCoalescer coalescer = new CallCoalescer(scheduler);
+        scheduler.setNonVisiblePolicy(1, true);
+        Request viewport = new Request.Builder().url("https://example.com/0").tag("0").build();
+        SharedCall running = coalescer.join(mClient, "0", viewport, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+        for (int i = 1; i <= 3; i++) {
+            Request prefetch = new Request.Builder().url("https://example.com/" + i).tag(String.valueOf(i)).build();
+            coalescer.join(mClient, String.valueOf(i), prefetch, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_PREFETCH);
+        }
+        assertEquals("prefetch calls should wait for the viewport", 3, scheduler.getQueueDepth(RequestScheduler.PRIORITY_PREFETCH));
+
+        scheduler.finished(running);
+        assertEquals("only one prefetch call should run", 1, scheduler.getRunningCount());
+        assertEquals("prefetch queue depth should match", 2, scheduler.getQueueDepth(RequestScheduler.PRIORITY_PREFETCH));
+    }
+
+    @Test
+    public void testAgingPreventsStarvation() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(1, 1000000);
+        CallCoalescer coalescer = new CallCoalescer(scheduler);
+        Request first = new Request.Builder().url("https://example.com/0").tag("0").build();
+        SharedCall running = coalescer.join(mClient, "0", first, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_CRITICAL);
+        Request offline = new Request.Builder().url("https://example.com/1").tag("1").build();
+        coalescer.join(mClient, "1", offline, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_OFFLINE);
+        Thread.sleep(20);
+        Request viewport = new Request.Builder().url("https://example.com/2").tag("2").build();
+        coalescer.join(mClient, "2", viewport, mock(HTTPRequest.class), MapboxHttpMetrics.KIND_TILE, RequestScheduler.PRIORITY_VIEWPORT);
+
+        scheduler.finished(running);
+        assertEquals("aged offline call should be dispatched", 0, scheduler.getQueueDepth(RequestScheduler.PRIORITY_OFFLINE));
+        assertEquals("aged count should match", 1, scheduler.getAgedCount(RequestScheduler.PRIORITY_OFFLINE));
+    }
+}
@@ -0,0 +1,154 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Local stand-in for the tile API. Serves canned vector (.pbf) and raster (.png) tiles with
+ * stable ETags, answers matching conditional requests with 304 and can inject latency,
+ * server errors and 429 responses carrying a Retry-After header.
+ */
+class TileServer {
+
+    private static final int VECTOR_TILE_SIZE = 48 * 1024;
+    private static final int RASTER_TILE_SIZE = 24 * 1024;
+
+    private final MockWebServer server = new MockWebServer();
+    private final byte[] vectorTile = cannedTile(VECTOR_TILE_SIZE, 1);
+    private final byte[] rasterTile = cannedTile(RASTER_TILE_SIZE, 2);
+    private final Random random = new Random(42);
+
+    private volatile long latency;
+    private volatile double errorRate;
+    private volatile double rateLimitRate;
+    private volatile int retryAfter;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicInteger rateLimitedCount = new AtomicInteger();
+
+    TileServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return respond(request);
+            }
+        });
+    }
+
+    void start() throws IOException {
+        server.start();
+    }
+
+    void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * Adds a fixed delay before every response, simulating the round trip to a remote server.
+     *
+     * @param millis the delay in milliseconds
+     */
+    void setLatency(long millis) {
+        latency = millis;
+    }
+
+    /**
+     * Answers a share of the requests with 500 Internal Server Error.
+     *
+     * @param rate the share of requests, between 0 and 1
+     */
+    void setErrorRate(double rate) {
+        errorRate = rate;
+    }
+
+    /**
+     * Answers a share of the requests with 429 Too Many Requests.
+     *
+     * @param rate       the share of requests, between 0 and 1
+     * @param retryAfter the Retry-After value in seconds
+     */
+    void setRateLimit(double rate, int retryAfter) {
+        this.rateLimitRate = rate;
+        this.retryAfter = retryAfter;
+    }
+
+    HttpUrl url(String path) {
+        return server.url(path);
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    int getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    int getErrorCount() {
+        return errorCount.get();
+    }
+
+    int getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    private MockResponse respond(RecordedRequest request) throws InterruptedException {
+        requestCount.incrementAndGet();
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        double roll;
+        synchronized (random) {
+            roll = random.nextDouble();
+        }
+        if (roll < rateLimitRate) {
+            rateLimitedCount.incrementAndGet();
+            return new MockResponse().setResponseCode(429).setHeader("Retry-After", retryAfter);
+        } else if (roll < rateLimitRate + errorRate) {
+            errorCount.incrementAndGet();
+            return new MockResponse().setResponseCode(500);
+        }
+
+        String path = HttpUrl.parse("http://localhost" + request.getPath()).encodedPath();
+        byte[] tile;
+        String contentType;
+        if (path.endsWith(".pbf")) {
+            tile = vectorTile;
+            contentType = "application/x-protobuf";
+        } else if (path.endsWith(".png")) {
+            tile = rasterTile;
+            contentType = "image/png";
+        } else {
+            return new MockResponse().setResponseCode(404);
+        }
+
+        String etag = "\"" + Integer.toHexString(path.hashCode()) + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            notModifiedCount.incrementAndGet();
+            return new MockResponse().setResponseCode(304).setHeader("ETag", etag);
+        }
+
+        return new MockResponse()
+                .setHeader("Content-Type", contentType)
+                .setHeader("Cache-Control", "max-age=43200")
+                .setHeader("ETag", etag)
+                .setBody(new Buffer().write(tile));
+    }
+
+    private static byte[] cannedTile(int size, long seed) {
+        byte[] tile = new byte[size];
+        new Random(seed).nextBytes(tile);
+        return tile;
+    }
+}
@@ -0,0 +1,183 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotationIndexTest {
+
+    private static final int POINT_COUNT = 100000;
+    private static final int QUERY_COUNT = 1000;
+
+    private AnnotationIndex mIndex;
+
+    @Before
+    public void beforeTest() {
+        mIndex = new AnnotationIndex();
+    }
+
+    @Test
+    public void testQueryMarkers() {
+        Marker inside = marker(1, new LatLng(10, 10));
+        Marker outside = marker(2, new LatLng(-10, -10));
+        mIndex.insert(inside);
+        mIndex.insert(outside);
+
+        List<Annotation> result = query(new LatLng(5, 5), new LatLng(15, 15));
+        assertEquals("Result size should match", 1, result.size());
+        assertEquals("Marker should match", inside, result.get(0));
+    }
+
+    @Test
+    public void testQueryPolylineBounds() {
+        Polyline polyline = new PolylineOptions().add(new LatLng(-40, -100)).add(new LatLng(40, 100)).getPolyline();
+        polyline.setId(1);
+        mIndex.insert(polyline);
+        for (int i = 0; i < 100; i++) {
+            mIndex.insert(marker(i + 2, new LatLng(-50, -170)));
+        }
+
+        List<Annotation> result = query(new LatLng(0, 0), new LatLng(1, 1));
+        assertEquals("Result size should match", 1, result.size());
+        assertEquals("Polyline should match", polyline, result.get(0));
+    }
+
+    @Test
+    public void testRemove() {
+        Marker marker = marker(1, new LatLng(10, 10));
+        mIndex.insert(marker);
+        mIndex.remove(marker.getId());
+        assertEquals("Index size should match", 0, mIndex.size());
+        assertTrue("Result should be empty", query(new LatLng(5, 5), new LatLng(15, 15)).isEmpty());
+    }
+
+    @Test
+    public void testInsertMovesAnnotation() {
+        Marker marker = marker(1, new LatLng(10, 10));
+        mIndex.insert(marker);
+        marker.setPosition(new LatLng(-10, -10));
+        mIndex.insert(marker);
+        assertEquals("Index size should match", 1, mIndex.size());
+        assertTrue("Old position should be empty", query(new LatLng(5, 5), new LatLng(15, 15)).isEmpty());
+        assertEquals("New position should match", 1, query(new LatLng(-15, -15), new LatLng(-5, -5)).size());
+    }
+
+    @Test
+    public void testClear() {
+        mIndex.insert(marker(1, new LatLng(10, 10)));
+        mIndex.clear();
+        assertEquals("Index size should match", 0, mIndex.size());
+        assertTrue("Result should be empty", query(new LatLng(-90, -180), new LatLng(90, 180)).isEmpty());
+    }
+
+    @Test
+    public void testManyPoints() {
+        Random random = new Random(42);
+        List<Marker> markers = new ArrayList<>(POINT_COUNT);
+        for (int i = 0; i < POINT_COUNT; i++) {
+            markers.add(marker(i + 1, new LatLng(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180)));
+        }
+
+        for (Marker marker : markers) {
+            mIndex.insert(marker);
+        }
+        assertEquals("Index size should match", POINT_COUNT, mIndex.size());
+
+        LatLngBounds[] queries = new LatLngBounds[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            double lat = random.nextDouble() * 160 - 80;
+            double lon = random.nextDouble() * 350 - 175;
+            queries[i] = new LatLngBounds.Builder()
+                    .include(new LatLng(lat, lon))
+                    .include(new LatLng(lat + 2, lon + 2))
+                    .build();
+        }
+
+        int found = 0;
+        List<Annotation> result = new ArrayList<>();
+        for (LatLngBounds bounds : queries) {
+            result.clear();
+            mIndex.query(bounds, result);
+            found += result.size();
+        }
+
+        int expected = 0;
+        for (LatLngBounds bounds : queries) {
+            for (Marker marker : markers) {
+                if (bounds.contains(marker.getPosition())) {
+                    expected++;
+                }
+            }
+        }
+        assertEquals("Found annotations should match a full scan", expected, found);
+    }
+
+    @Test
+    public void testRemoveMany() {
+        Random random = new Random(42);
+        LongSparseArray<Annotation> remaining = new LongSparseArray<>();
+        for (int i = 0; i < 2000; i++) {
+            Marker marker = marker(i + 1, new LatLng(random.nextDouble() * 20, random.nextDouble() * 20));
+            mIndex.insert(marker);
+            remaining.put(marker.getId(), marker);
+        }
+
+        // removing most markers collapses the emptied subtrees, the rest must stay queryable
+        for (int i = 0; i < 1990; i++) {
+            long id = remaining.keyAt(random.nextInt(remaining.size()));
+            mIndex.remove(id);
+            remaining.remove(id);
+        }
+        assertEquals("Index size should match", remaining.size(), mIndex.size());
+
+        LatLngBounds bounds = new LatLngBounds.Builder().include(new LatLng(0, 0)).include(new LatLng(10, 10)).build();
+        List<Annotation> result = new ArrayList<>();
+        mIndex.query(bounds, result);
+        List<Annotation> expected = new ArrayList<>();
+        AnnotationIndex.scan(remaining, bounds, expected);
+        assertEquals("Result size should match a full scan", expected.size(), result.size());
+        assertTrue("Result should match a full scan", result.containsAll(expected));
+        assertEquals("All remaining markers should be found", remaining.size(), query(new LatLng(-1, -1), new LatLng(21, 21)).size());
+    }
+
+    @Test
+    public void testRebuild() {
+        LongSparseArray<Annotation> annotations = new LongSparseArray<>();
+        annotations.put(1, marker(1, new LatLng(10, 10)));
+        annotations.put(2, marker(2, new LatLng(-10, -10)));
+        mIndex.insert(marker(3, new LatLng(10, 10)));
+        mIndex.rebuild(annotations);
+        assertEquals("Index size should match", 2, mIndex.size());
+        List<Annotation> result = query(new LatLng(5, 5), new LatLng(15, 15));
+        assertEquals("Result size should match", 1, result.size());
+        assertEquals("Marker should match", annotations.get(1), result.get(0));
+    }
+
+    private List<Annotation> query(LatLng southWest, LatLng northEast) {
+        List<Annotation> result = new ArrayList<>();
+        mIndex.query(new LatLngBounds.Builder().include(southWest).include(northEast).build(), result);
+        return result;
+    }
+
+    private static Marker marker(long id, LatLng position) {
+        Marker marker = new MarkerOptions().position(position).getMarker();
+        marker.setId(id);
+        return marker;
+    }
+}
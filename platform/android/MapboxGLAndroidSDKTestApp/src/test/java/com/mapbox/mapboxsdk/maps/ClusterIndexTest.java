@@ -0,0 +1,151 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterIndexTest {
+
+    private static final int POINT_COUNT = 20000;
+
+    @Test
+    public void testNearbyPointsCluster() {
+        ClusterIndex index = new ClusterIndex(new double[]{10, 10, 10.001, 10.001, -40, -100}, 60, 0, 16);
+
+        long[] clusters = index.getClusters(-90, -180, 90, 180, 0);
+        assertEquals("Clusters should match", 2, clusters.length);
+        int total = 0;
+        for (long clusterId : clusters) {
+            total += index.getPointCount(clusterId);
+        }
+        assertEquals("Point count should match", 3, total);
+
+        long[] points = index.getClusters(-90, -180, 90, 180, 17);
+        assertEquals("Points above max zoom should match", 3, points.length);
+    }
+
+    @Test
+    public void testPointIndex() {
+        ClusterIndex index = new ClusterIndex(new double[]{10, 10, -40, -100}, 60, 0, 16);
+        long[] clusters = index.getClusters(-50, -110, -30, -90, 5);
+        assertEquals("Clusters should match", 1, clusters.length);
+        assertEquals("Point index should match", 1, index.getPointIndex(clusters[0]));
+        LatLng position = index.getPosition(clusters[0]);
+        assertEquals("Latitude should match", -40, position.getLatitude(), 1e-6);
+        assertEquals("Longitude should match", -100, position.getLongitude(), 1e-6);
+    }
+
+    @Test
+    public void testExpansionZoom() {
+        ClusterIndex index = new ClusterIndex(new double[]{10, 10, 10.001, 10.001}, 60, 0, 16);
+        long[] clusters = index.getClusters(-90, -180, 90, 180, 0);
+        assertEquals("Clusters should match", 1, clusters.length);
+        assertEquals("Point index of a cluster should match", -1, index.getPointIndex(clusters[0]));
+
+        int zoom = index.getExpansionZoom(clusters[0]);
+        assertTrue("Expansion zoom should be above min zoom", zoom > 0);
+        assertEquals("Clusters at the expansion zoom should match", 2,
+                index.getClusters(9, 9, 11, 11, zoom).length);
+        assertEquals("Clusters below the expansion zoom should match", 1,
+                index.getClusters(9, 9, 11, 11, zoom - 1).length);
+    }
+
+    @Test
+    public void testChildren() {
+        ClusterIndex index = new ClusterIndex(new double[]{10, 10, 10.5, 10.5, 11, 11}, 60, 0, 16);
+        long[] clusters = index.getClusters(-90, -180, 90, 180, 0);
+        assertEquals("Clusters should match", 1, clusters.length);
+        int total = 0;
+        for (long child : index.getChildren(clusters[0])) {
+            total += index.getPointCount(child);
+        }
+        assertEquals("Children point count should match", 3, total);
+    }
+
+    @Test
+    public void testAntimeridian() {
+        ClusterIndex index = new ClusterIndex(new double[]{0, 179, 0, -179, 0, 0}, 60, 0, 16);
+        assertEquals("Clusters across the antimeridian should match", 2,
+                index.getClusters(-10, 170, 10, -170, 17).length);
+    }
+
+    @Test
+    public void testIdsAreStableAcrossZoomLevels() {
+        ClusterIndex index = new ClusterIndex(new double[]{10, 10, 10.001, 10.001, -40, -100}, 60, 0, 16);
+        long[] points = index.getClusters(-50, -110, -30, -90, 17);
+        assertEquals("Points should match", 1, points.length);
+        for (int zoom = 0; zoom <= 16; zoom++) {
+            long[] clusters = index.getClusters(-50, -110, -30, -90, zoom);
+            assertEquals("Clusters should match", 1, clusters.length);
+            assertEquals("Unmerged point should keep its id", points[0], clusters[0]);
+        }
+
+        long cluster = index.getClusters(9, 9, 11, 11, 0)[0];
+        int zoom = index.getExpansionZoom(cluster);
+        for (int z = 0; z < zoom; z++) {
+            assertEquals("Cluster should keep its id", cluster, index.getClusters(9, 9, 11, 11, z)[0]);
+        }
+        long[] children = index.getChildren(cluster);
+        assertEquals("Children should match", 2, children.length);
+        long[] expanded = index.getClusters(9, 9, 11, 11, zoom);
+        Arrays.sort(children);
+        Arrays.sort(expanded);
+        assertArrayEquals("Children should be visible at the expansion zoom", children, expanded);
+    }
+
+    @Test
+    public void testManyPoints() {
+        Random random = new Random(42);
+        double[] latLngs = new double[POINT_COUNT * 2];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            latLngs[i * 2] = random.nextDouble() * 170 - 85;
+            latLngs[i * 2 + 1] = random.nextDouble() * 360 - 180;
+        }
+
+        ClusterIndex index = new ClusterIndex(latLngs, 60, 0, 16);
+        assertEquals("Index size should match", POINT_COUNT, index.size());
+
+        for (int zoom = 0; zoom <= 17; zoom++) {
+            int total = 0;
+            Set<Integer> origins = new HashSet<>();
+            for (long clusterId : index.getClusters(-90, -180, 90, 180, zoom)) {
+                total += index.getPointCount(clusterId);
+                if (index.getPointCount(clusterId) == 1) {
+                    assertTrue("Points should be visible once", origins.add(index.getPointIndex(clusterId)));
+                }
+            }
+            assertEquals("Clusters should hold every point", POINT_COUNT, total);
+        }
+
+        // a region query should find exactly the points a scan finds
+        long[] points = index.getClusters(10, 20, 12, 23, 17);
+        int expected = 0;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            double lat = latLngs[i * 2];
+            double lng = latLngs[i * 2 + 1];
+            if (lat >= 10 && lat <= 12 && lng >= 20 && lng <= 23) {
+                expected++;
+            }
+        }
+        assertEquals("Points in region should match a full scan", expected, points.length);
+
+        // a cluster's children hold its points
+        for (long clusterId : index.getClusters(-90, -180, 90, 180, 2)) {
+            int total = 0;
+            for (long child : index.getChildren(clusterId)) {
+                total += index.getPointCount(child);
+            }
+            assertEquals("Children point count should match",
+                    index.getPointCount(clusterId) == 1 ? 0 : index.getPointCount(clusterId), total);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IconAtlasTest {
+
+    private List<Page> mPages;
+    private IconAtlas mIconAtlas;
+
+    @Before
+    public void beforeTest() {
+        mPages = new ArrayList<>();
+        mIconAtlas = new IconAtlas(new IconAtlas.Uploader() {
+            @Override
+            public void upload(String[] ids, int[] widths, int[] heights, float[] scales, int[] offsets,
+                               ByteBuffer page) {
+                mPages.add(new Page(ids, widths, offsets, page));
+            }
+        });
+    }
+
+    @Test
+    public void testIconsShareAPage() {
+        Icon icon1 = icon("a", 16, 16, (byte) 1);
+        Icon icon2 = icon("b", 8, 4, (byte) 2);
+        mIconAtlas.upload(Arrays.asList(icon1, icon2));
+
+        assertEquals("Pages should match", 1, mPages.size());
+        Page page = mPages.get(0);
+        assertEquals("Ids should match", Arrays.asList("a", "b"), Arrays.asList(page.ids));
+        assertEquals("Width should match", 8, page.widths[1]);
+        assertEquals("Offset should match", 0, page.offsets[0]);
+        assertEquals("Offset should match", 16 * 16 * 4, page.offsets[1]);
+        assertEquals("Pixels should match", 1, page.pixels[page.offsets[1] - 1]);
+        assertEquals("Pixels should match", 2, page.pixels[page.offsets[1]]);
+    }
+
+    @Test
+    public void testFullPageIsUploaded() {
+        // each icon takes a quarter of a page
+        int side = (int) Math.sqrt(IconAtlas.PAGE_SIZE / 16);
+        List<Icon> icons = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            icons.add(icon("icon" + i, side, side, (byte) i));
+        }
+        mIconAtlas.upload(icons);
+
+        assertEquals("Pages should match", 2, mPages.size());
+        assertEquals("Icons on the first page should match", 4, mPages.get(0).ids.length);
+        assertEquals("Icons on the second page should match", 2, mPages.get(1).ids.length);
+        assertSame("Page should be reused", mPages.get(0).buffer, mPages.get(1).buffer);
+        assertEquals("Pixels should match", 5, mPages.get(1).pixels[mPages.get(1).offsets[1]]);
+    }
+
+    @Test
+    public void testLargeIconGetsItsOwnBuffer() {
+        int side = (int) Math.sqrt(IconAtlas.PAGE_SIZE / 4) + 1;
+        mIconAtlas.upload(Collections.singletonList(icon("small", 4, 4, (byte) 1)));
+        mIconAtlas.upload(Collections.singletonList(icon("large", side, side, (byte) 2)));
+
+        assertEquals("Pages should match", 2, mPages.size());
+        assertNotSame("Large icon should not use the page", mPages.get(0).buffer, mPages.get(1).buffer);
+        assertEquals("Large icon should fill its buffer", side * side * 4, mPages.get(1).buffer.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPaddedRowsAreRejected() {
+        Icon icon = icon("padded", 3, 3, (byte) 1);
+        when(icon.getBitmap().getRowBytes()).thenReturn(16);
+        mIconAtlas.upload(Collections.singletonList(icon));
+    }
+
+    private static Icon icon(String id, int width, int height, final byte value) {
+        final Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getConfig()).thenReturn(Bitmap.Config.ARGB_8888);
+        when(bitmap.getWidth()).thenReturn(width);
+        when(bitmap.getHeight()).thenReturn(height);
+        when(bitmap.getRowBytes()).thenReturn(width * 4);
+        when(bitmap.getDensity()).thenReturn(Bitmap.DENSITY_NONE);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ByteBuffer buffer = (ByteBuffer) invocation.getArguments()[0];
+                int size = bitmap.getRowBytes() * bitmap.getHeight();
+                for (int i = 0; i < size; i++) {
+                    buffer.put(value);
+                }
+                return null;
+            }
+        }).when(bitmap).copyPixelsToBuffer(any(ByteBuffer.class));
+        return IconFactory.recreate(id, bitmap);
+    }
+
+    private static class Page {
+
+        private final String[] ids;
+        private final int[] widths;
+        private final int[] offsets;
+        private final ByteBuffer buffer;
+        private final byte[] pixels;
+
+        Page(String[] ids, int[] widths, int[] offsets, ByteBuffer buffer) {
+            this.ids = ids;
+            this.widths = widths;
+            this.offsets = offsets;
+            this.buffer = buffer;
+            // the page is reused once the upload returns, keep a copy of its content
+            this.pixels = new byte[buffer.capacity()];
+            ByteBuffer copy = buffer.duplicate();
+            copy.clear();
+            copy.get(pixels);
+        }
+    }
+}
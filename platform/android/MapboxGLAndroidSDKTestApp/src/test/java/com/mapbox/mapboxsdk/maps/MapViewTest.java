@@ -0,0 +1,148 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.exceptions.IconBitmapChangedException;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MapViewTest {
+
+    @InjectMocks
+    MapView mMapView = mock(MapView.class);
+
+    private final Map<String, Icon> mIcons = new HashMap<>();
+    private final List<String> mUploadedIds = new ArrayList<>();
+
+    @Before
+    public void beforeTest() {
+        MockitoAnnotations.initMocks(this);
+        doCallRealMethod().when(mMapView).toScreenLocations(any(double[].class), any(float[].class));
+
+        // a mock skips the constructor, so the icon registry is wired up by hand
+        Whitebox.setInternalState(mMapView, "icons", mIcons);
+        Whitebox.setInternalState(mMapView, "iconAtlas", new IconAtlas(new IconAtlas.Uploader() {
+            @Override
+            public void upload(String[] ids, int[] widths, int[] heights, float[] scales, int[] offsets,
+                               ByteBuffer page) {
+                for (String id : ids) {
+                    mUploadedIds.add(id);
+                }
+            }
+        }));
+        doCallRealMethod().when(mMapView).loadIconForMarker(any(Marker.class));
+        doCallRealMethod().when(mMapView).loadIcon(any(Icon.class));
+        doCallRealMethod().when(mMapView).deferIconUploads();
+        doCallRealMethod().when(mMapView).uploadDeferredIcons();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToScreenLocationsUnpaired() {
+        mMapView.toScreenLocations(new double[]{10, 20, 30}, new float[4]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToScreenLocationsShortOutput() {
+        mMapView.toScreenLocations(new double[]{10, 20, 30, 40}, new float[2]);
+    }
+
+    @Test
+    public void testScaleScreenLocations() {
+        float[] screenLocations = new float[]{1, 2, 3, 4, 5, 6};
+        MapView.scaleScreenLocations(screenLocations, 4, 2.5f);
+        assertArrayEquals("Projected pairs should be scaled to the screen density",
+                new float[]{2.5f, 5, 7.5f, 10, 5, 6}, screenLocations, 0);
+    }
+
+    @Test
+    public void testNeedsUpload() {
+        Bitmap bitmap = mockBitmap(2, 2);
+        Icon icon = IconFactory.recreate("test", bitmap);
+        assertTrue("New id should be uploaded", MapView.needsUpload(null, icon));
+        assertFalse("Registered icon should not be uploaded again", MapView.needsUpload(icon, icon));
+        assertFalse("Icon with the same bitmap should not be uploaded again",
+                MapView.needsUpload(icon, IconFactory.recreate("test", bitmap)));
+    }
+
+    @Test(expected = IconBitmapChangedException.class)
+    public void testNeedsUploadRejectsResizedBitmap() {
+        MapView.needsUpload(IconFactory.recreate("test", mockBitmap(2, 2)),
+                IconFactory.recreate("test", mockBitmap(4, 2)));
+    }
+
+    @Test
+    public void testFailedUploadIsRetried() {
+        Icon icon = IconFactory.recreate("padded", mockBitmap(3, 3));
+        when(icon.getBitmap().getRowBytes()).thenReturn(16);
+        try {
+            mMapView.loadIconForMarker(marker(icon));
+            fail("Padded icon should be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue("Rejected icon should not stay registered", mIcons.isEmpty());
+        }
+
+        when(icon.getBitmap().getRowBytes()).thenReturn(12);
+        mMapView.loadIconForMarker(marker(icon));
+        assertEquals("Icon should be uploaded by the next marker", 1, mUploadedIds.size());
+        assertEquals("Icon should be registered", icon, mIcons.get("padded"));
+    }
+
+    @Test
+    public void testFailedDeferredUploadIsRetried() {
+        Icon valid = IconFactory.recreate("valid", mockBitmap(2, 2));
+        Icon padded = IconFactory.recreate("padded", mockBitmap(3, 3));
+        when(padded.getBitmap().getRowBytes()).thenReturn(16);
+
+        mMapView.deferIconUploads();
+        mMapView.loadIconForMarker(marker(valid));
+        mMapView.loadIconForMarker(marker(padded));
+        try {
+            mMapView.uploadDeferredIcons();
+            fail("Padded icon should be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue("Icons of the failed upload should not stay registered", mIcons.isEmpty());
+        }
+
+        mMapView.loadIconForMarker(marker(valid));
+        assertEquals("Icon should be registered again", valid, mIcons.get("valid"));
+    }
+
+    private static Marker marker(Icon icon) {
+        return new MarkerOptions().position(new LatLng()).icon(icon).getMarker();
+    }
+
+    private static Bitmap mockBitmap(int width, int height) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getConfig()).thenReturn(Bitmap.Config.ARGB_8888);
+        when(bitmap.getWidth()).thenReturn(width);
+        when(bitmap.getHeight()).thenReturn(height);
+        when(bitmap.getRowBytes()).thenReturn(width * 4);
+        when(bitmap.getDensity()).thenReturn(Bitmap.DENSITY_NONE);
+        return bitmap;
+    }
+}
@@ -4,9 +4,13 @@ import android.graphics.Color;
 import android.graphics.Point;
 import android.graphics.PointF;
 
+import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.MarkerView;
+import com.mapbox.mapboxsdk.annotations.MarkerViewOptions;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.PolygonOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
@@ -19,18 +23,25 @@ import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -39,6 +50,7 @@ import static org.mockito.Mockito.when;
 public class MapboxMapTest {
 
     private MapboxMap mMapboxMap;
+    private final List<Runnable> mTasks = new ArrayList<>();
 
     @InjectMocks
     MapView mMapView = mock(MapView.class);
@@ -666,6 +678,36 @@ public class MapboxMapTest {
         assertTrue("Polyline should be contained", mMapboxMap.getPolylines().contains(polyline));
     }
 
+    @Test
+    public void testSimplifiedPolylineFollowsZoom() {
+        ArgumentCaptor<MapView.OnMapChangedListener> listener =
+                ArgumentCaptor.forClass(MapView.OnMapChangedListener.class);
+        verify(mMapView).addOnMapChangedListener(listener.capture());
+        when(mMapView.getZoom()).thenReturn(0.0);
+
+        // a line with wiggles far below a pixel at low zoom levels
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(new LatLng(i % 2 == 0 ? 0 : 0.0001, i * 0.001));
+        }
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().addAll(points).simplify(1));
+        ArgumentCaptor<double[]> latLngs = ArgumentCaptor.forClass(double[].class);
+        verify(mMapView).addPolyline(eq(polyline), latLngs.capture());
+        assertEquals("Polyline should be simplified to its ends", 4, latLngs.getValue().length);
+
+        // recomputed once the camera settles on another zoom level
+        when(mMapView.getZoom()).thenReturn(18.0);
+        listener.getValue().onMapChanged(MapView.REGION_IS_CHANGING);
+        verify(mMapView, times(0)).updatePolyline(eq(polyline), any(double[].class));
+        listener.getValue().onMapChanged(MapView.REGION_DID_CHANGE);
+        verify(mMapView).updatePolyline(eq(polyline), latLngs.capture());
+        assertEquals("Polyline should keep every point when zoomed in", points.size() * 2, latLngs.getValue().length);
+
+        // nothing is sent again while the zoom level stays the same
+        listener.getValue().onMapChanged(MapView.REGION_DID_CHANGE);
+        verify(mMapView, times(1)).updatePolyline(eq(polyline), any(double[].class));
+    }
+
     @Test
     public void testAddEmptyPolyline() {
         PolylineOptions polylineOptions = new PolylineOptions();
@@ -784,6 +826,273 @@ public class MapboxMapTest {
         assertTrue("Marker should be contained", mMapboxMap.getAnnotations().contains(marker));
     }
 
+    @Test
+    public void testRemoveMixedAnnotations() {
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        when(mMapView.addPolyline(any(Polyline.class))).thenReturn(3L);
+        List<Annotation> annotations = new ArrayList<>();
+        annotations.add(mMapboxMap.addMarker(new MarkerOptions().position(new LatLng())));
+        annotations.add(mMapboxMap.addMarker(new MarkerViewOptions().position(new LatLng()).icon(mock(Icon.class))));
+        annotations.add(mMapboxMap.addPolyline(new PolylineOptions().add(new LatLng(0, 0)).add(new LatLng(1, 1))));
+        mMapboxMap.removeAnnotations(annotations);
+        assertTrue("Annotations should be empty", mMapboxMap.getAnnotations().isEmpty());
+        verify(mMapView, times(1)).removeAnnotations(new long[]{1, 2, 3});
+    }
+
+    @Test
+    public void testAddPackedMarkers() {
+        Icon icon1 = mock(Icon.class);
+        Icon icon2 = mock(Icon.class);
+        when(mMapView.loadIconForMarker(any(Marker.class))).thenReturn(icon1, icon2);
+        double[] latLngs = new double[]{10, 20, 30, 40, 50, 60};
+        List<Marker> markers = mMapboxMap.addMarkers(latLngs, new Icon[]{icon1, icon2}, new int[]{0, 1, 0});
+        assertEquals("Markers size should match", 3, markers.size());
+        assertEquals("Markers position should match", new LatLng(30, 40), markers.get(1).getPosition());
+        assertEquals("Markers icon should match", icon1, markers.get(0).getIcon());
+        assertEquals("Markers icon should match", icon2, markers.get(1).getIcon());
+        assertEquals("Markers icon should match", icon1, markers.get(2).getIcon());
+        assertEquals("Marker should be retrievable", markers.get(2), mMapboxMap.getAnnotation(markers.get(2).getId()));
+        verify(mMapView, times(2)).loadIconForMarker(any(Marker.class));
+    }
+
+    @Test
+    public void testAddMarkersUploadsIconsTogether() {
+        Icon icon1 = mock(Icon.class);
+        Icon icon2 = mock(Icon.class);
+        when(mMapView.loadIconForMarker(any(Marker.class))).thenReturn(icon1, icon2, icon1);
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng(10, 20)).icon(icon1));
+        markerList.add(new MarkerOptions().position(new LatLng(30, 40)).icon(icon2));
+        markerList.add(new MarkerOptions().position(new LatLng(50, 60)).icon(icon1));
+        mMapboxMap.addMarkers(markerList);
+
+        InOrder inOrder = inOrder(mMapView);
+        inOrder.verify(mMapView, times(1)).deferIconUploads();
+        inOrder.verify(mMapView, times(3)).loadIconForMarker(any(Marker.class));
+        inOrder.verify(mMapView, times(1)).uploadDeferredIcons();
+        inOrder.verify(mMapView, times(2)).getTopOffsetPixelsForIcon(any(Icon.class));
+    }
+
+    @Test
+    public void testAddMarkersAsync() {
+        Icon icon1 = mock(Icon.class);
+        Icon icon2 = mock(Icon.class);
+        when(mMapView.loadIconForMarker(any(Marker.class))).thenReturn(icon1, icon2);
+        final List<Runnable> background = new ArrayList<>();
+        final List<Runnable> mainThread = new ArrayList<>();
+        mMapboxMap.setAnnotationExecutors(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                background.add(runnable);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                mainThread.add(runnable);
+            }
+        });
+
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng(10, 20)).icon(icon1));
+        markerList.add(new MarkerOptions().position(new LatLng(30, 40)).icon(icon2));
+        markerList.add(new MarkerOptions().position(new LatLng(50, 60)).icon(icon1));
+        final List<Marker> added = new ArrayList<>();
+        mMapboxMap.addMarkersAsync(markerList, new MapboxMap.MarkersAddedCallback() {
+            @Override
+            public void onMarkersAdded(List<Marker> markers) {
+                added.addAll(markers);
+            }
+
+            @Override
+            public void onMarkersFailed(RuntimeException exception) {
+                throw exception;
+            }
+        });
+
+        assertEquals("Background tasks should match", 1, background.size());
+        background.get(0).run();
+        assertTrue("Markers should not be added before the main thread runs", mMapboxMap.getMarkers().isEmpty());
+        verify(mMapView, times(0)).loadIconForMarker(any(Marker.class));
+
+        assertEquals("Main thread tasks should match", 1, mainThread.size());
+        mainThread.get(0).run();
+        assertEquals("Markers size should match", 3, added.size());
+        assertEquals("Markers position should match", new LatLng(30, 40), added.get(1).getPosition());
+        assertEquals("Markers icon should match", icon1, added.get(2).getIcon());
+        assertEquals("Marker should be retrievable", added.get(2), mMapboxMap.getAnnotation(added.get(2).getId()));
+        verify(mMapView, times(2)).loadIconForMarker(any(Marker.class));
+        verify(mMapView, times(1)).addMarkers(any(double[].class), any(int[].class), any(String[].class));
+    }
+
+    @Test
+    public void testAddMarkersAsyncFailure() {
+        final List<Runnable> tasks = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                tasks.add(runnable);
+            }
+        };
+        mMapboxMap.setAnnotationExecutors(executor, executor);
+
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng(10, 20)).icon(mock(Icon.class)));
+        markerList.add(new MarkerOptions());
+        final List<RuntimeException> failures = new ArrayList<>();
+        mMapboxMap.addMarkersAsync(markerList, new MapboxMap.MarkersAddedCallback() {
+            @Override
+            public void onMarkersAdded(List<Marker> markers) {
+                throw new AssertionError("Markers should not be added");
+            }
+
+            @Override
+            public void onMarkersFailed(RuntimeException exception) {
+                failures.add(exception);
+            }
+        });
+
+        tasks.remove(0).run();
+        assertTrue("Callback should not be invoked on the worker thread", failures.isEmpty());
+        assertEquals("Main thread tasks should match", 1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals("Failures size should match", 1, failures.size());
+        assertTrue("Failure should be the invalid position",
+                failures.get(0) instanceof InvalidMarkerPositionException);
+        assertTrue("Markers should not be added", mMapboxMap.getMarkers().isEmpty());
+        verify(mMapView, times(0)).addMarkers(any(double[].class), any(int[].class), any(String[].class));
+    }
+
+    @Test
+    public void testAddMarkersAsyncAfterDestroy() {
+        List<RuntimeException> failures = addMarkersAsyncFailures();
+        when(mMapView.isDestroyed()).thenReturn(true);
+        mTasks.remove(0).run();
+        mTasks.remove(0).run();
+        assertEquals("Failures size should match", 1, failures.size());
+        assertTrue("Failure should be the destroyed map view", failures.get(0) instanceof IllegalStateException);
+        assertTrue("Markers should not be added", mMapboxMap.getMarkers().isEmpty());
+        verify(mMapView, times(0)).addMarkers(any(double[].class), any(int[].class), any(String[].class));
+    }
+
+    @Test
+    public void testAddMarkersAsyncIdsMismatch() {
+        List<RuntimeException> failures = addMarkersAsyncFailures();
+        when(mMapView.addMarkers(any(double[].class), any(int[].class), any(String[].class)))
+                .thenReturn(new long[]{});
+        mTasks.remove(0).run();
+        mTasks.remove(0).run();
+        assertEquals("Failures size should match", 1, failures.size());
+        assertTrue("Failure should be the ids mismatch", failures.get(0) instanceof IllegalStateException);
+        assertTrue("Markers should not be added", mMapboxMap.getMarkers().isEmpty());
+    }
+
+    // queues an import of two markers on mTasks and collects its failures
+    private List<RuntimeException> addMarkersAsyncFailures() {
+        Icon icon = mock(Icon.class);
+        when(mMapView.loadIconForMarker(any(Marker.class))).thenReturn(icon);
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                mTasks.add(runnable);
+            }
+        };
+        mMapboxMap.setAnnotationExecutors(executor, executor);
+
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng(10, 20)).icon(icon));
+        markerList.add(new MarkerOptions().position(new LatLng(30, 40)).icon(icon));
+        final List<RuntimeException> failures = new ArrayList<>();
+        mMapboxMap.addMarkersAsync(markerList, new MapboxMap.MarkersAddedCallback() {
+            @Override
+            public void onMarkersAdded(List<Marker> markers) {
+                throw new AssertionError("Markers should not be reported as added");
+            }
+
+            @Override
+            public void onMarkersFailed(RuntimeException exception) {
+                failures.add(exception);
+            }
+        });
+        return failures;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddPackedMarkersUnpaired() {
+        mMapboxMap.addMarkers(new double[]{10, 20, 30}, null);
+    }
+
+    @Test
+    public void testAddPackedPolylines() {
+        double[] latLngs = new double[]{10, 20, 30, 40, 50, 60, 70, 80, 15, 25};
+        int[] pointCounts = new int[]{2, 3};
+        List<Polyline> polylines = mMapboxMap.addPolylines(latLngs, pointCounts,
+                new PolylineOptions().color(Color.BLACK).width(5));
+        assertEquals("Polylines size should match", 2, mMapboxMap.getPolylines().size());
+        assertEquals("Points size should match", 3, polylines.get(1).getPoints().size());
+        assertEquals("Point should match", new LatLng(50, 60), polylines.get(1).getPoints().get(0));
+        assertEquals("Color should match", Color.BLACK, polylines.get(0).getColor());
+        assertEquals("Width should match", 5, polylines.get(1).getWidth(), 0);
+        verify(mMapView, times(1)).addPolylines(eq(polylines), eq(latLngs), eq(pointCounts));
+    }
+
+    @Test
+    public void testAddPackedPolygons() {
+        double[] latLngs = new double[]{10, 20, 30, 40, 50, 60, 70, 80};
+        int[] pointCounts = new int[]{3, 1};
+        List<Polygon> polygons = mMapboxMap.addPolygons(latLngs, pointCounts,
+                new PolygonOptions().fillColor(Color.WHITE).strokeColor(Color.BLACK));
+        assertEquals("Polygons size should match", 2, mMapboxMap.getPolygons().size());
+        assertEquals("Points size should match", 3, polygons.get(0).getPoints().size());
+        assertEquals("Point should match", new LatLng(70, 80), polygons.get(1).getPoints().get(0));
+        assertEquals("Fill color should match", Color.WHITE, polygons.get(1).getFillColor());
+        assertEquals("Stroke color should match", Color.BLACK, polygons.get(0).getStrokeColor());
+        verify(mMapView, times(1)).addPolygons(eq(polygons), eq(latLngs), eq(pointCounts));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddPackedPolylinesCountMismatch() {
+        mMapboxMap.addPolylines(new double[]{10, 20, 30, 40}, new int[]{3}, new PolylineOptions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddPackedPolygonsEmptyShape() {
+        mMapboxMap.addPolygons(new double[]{10, 20}, new int[]{1, 0}, new PolygonOptions());
+    }
+
+    @Test
+    public void testUpdateMarkers() {
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng()));
+        markerList.add(new MarkerOptions().position(new LatLng()));
+        List<Marker> markers = mMapboxMap.addMarkers(markerList);
+        mMapboxMap.updateMarkers(markers);
+        verify(mMapView, times(1)).updateMarkers(markers);
+    }
+
+    @Test
+    public void testBatchedMarkerUpdates() {
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().position(new LatLng()));
+        markerList.add(new MarkerOptions().position(new LatLng()));
+        List<Marker> markers = mMapboxMap.addMarkers(markerList);
+
+        mMapboxMap.beginMarkerUpdates();
+        mMapboxMap.beginMarkerUpdates();
+        markers.get(0).setPosition(new LatLng(10, 10));
+        markers.get(1).setPosition(new LatLng(10, 10));
+        markers.get(0).setPosition(new LatLng(20, 20));
+        mMapboxMap.endMarkerUpdates();
+        verify(mMapView, times(0)).updateMarkers(markers);
+        mMapboxMap.endMarkerUpdates();
+
+        verify(mMapView, times(0)).updateMarker(any(Marker.class));
+        verify(mMapView, times(1)).updateMarkers(markers);
+        LatLngBounds bounds = new LatLngBounds.Builder().include(new LatLng(15, 15)).include(new LatLng(25, 25)).build();
+        List<Annotation> annotations = mMapboxMap.queryAnnotations(bounds);
+        assertEquals("Annotations size should match", 1, annotations.size());
+        assertEquals("Marker should match", markers.get(0), annotations.get(0));
+    }
+
     @Test
     public void testGetAnnotationById() {
         MarkerOptions markerOptions = new MarkerOptions().position(new LatLng());
@@ -792,6 +1101,166 @@ public class MapboxMapTest {
         assertEquals("Markers should match", initialMarker, retrievedMarker);
     }
 
+    @Test
+    public void testGetMarkersByIds() {
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().add(new LatLng()).add(new LatLng(1, 1)));
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        markerList.add(new MarkerOptions().title("a").position(new LatLng()));
+        markerList.add(new MarkerOptions().title("b").position(new LatLng()));
+        List<Marker> markers = mMapboxMap.addMarkers(markerList);
+        long[] ids = new long[]{markers.get(1).getId(), polyline.getId(), 42, markers.get(0).getId()};
+        List<Marker> resolved = mMapboxMap.getMarkers(ids);
+        assertEquals("Resolved markers size should match", 2, resolved.size());
+        assertEquals("Marker should match", markers.get(1), resolved.get(0));
+        assertEquals("Marker should match", markers.get(0), resolved.get(1));
+    }
+
+    @Test
+    public void testGetMarkerViewsByIds() {
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng()));
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(5L, 6L);
+        MarkerView markerView1 = mMapboxMap.addMarker(new MarkerViewOptions().position(new LatLng()).icon(mock(Icon.class)));
+        MarkerView markerView2 = mMapboxMap.addMarker(new MarkerViewOptions().position(new LatLng()).icon(mock(Icon.class)));
+        List<MarkerView> resolved = mMapboxMap.getMarkerViews(new long[]{markerView2.getId(), marker.getId(), 7});
+        assertEquals("Resolved MarkerViews size should match", 1, resolved.size());
+        assertEquals("MarkerView should match", markerView2, resolved.get(0));
+        assertFalse("Off screen MarkerView should not be resolved", resolved.contains(markerView1));
+    }
+
+    @Test
+    public void testGetMarkersByIdsAmongManyMarkers() {
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            markerList.add(new MarkerOptions().position(new LatLng()));
+        }
+        List<Marker> markers = mMapboxMap.addMarkers(markerList);
+        long[] ids = new long[]{markers.get(19999).getId(), markers.get(3).getId(), 40000,
+                markers.get(750).getId(), markers.get(0).getId()};
+        List<Marker> resolved = mMapboxMap.getMarkers(ids);
+        assertEquals("Resolved markers size should match", 4, resolved.size());
+        assertEquals("Marker should match", markers.get(19999), resolved.get(0));
+        assertEquals("Marker should match", markers.get(3), resolved.get(1));
+        assertEquals("Marker should match", markers.get(750), resolved.get(2));
+        assertEquals("Marker should match", markers.get(0), resolved.get(3));
+    }
+
+    @Test
+    public void testQueryAnnotations() {
+        LatLngBounds bounds = new LatLngBounds.Builder().include(new LatLng(5, 5)).include(new LatLng(15, 15)).build();
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        when(mMapView.addPolyline(any(Polyline.class))).thenReturn(3L);
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(10, 10)));
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().add(new LatLng(0, 0)).add(new LatLng(20, 20)));
+        mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(-10, -10)));
+        List<Annotation> annotations = mMapboxMap.queryAnnotations(bounds);
+        assertEquals("Annotations size should match", 2, annotations.size());
+        assertTrue("Marker should be contained", annotations.contains(marker));
+        assertTrue("Polyline should be contained", annotations.contains(polyline));
+
+        marker.setPosition(new LatLng(-20, -20));
+        assertFalse("Moved marker should not be contained", mMapboxMap.queryAnnotations(bounds).contains(marker));
+
+        mMapboxMap.removeAnnotation(polyline);
+        assertTrue("Annotations should be empty", mMapboxMap.queryAnnotations(bounds).isEmpty());
+    }
+
+    @Test
+    public void testQueryAnnotationsWithIndexEnabled() {
+        LatLngBounds bounds = new LatLngBounds.Builder().include(new LatLng(5, 5)).include(new LatLng(15, 15)).build();
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(10, 10)));
+
+        // markers added while disabled are picked up when the index is enabled
+        mMapboxMap.setAnnotationIndexEnabled(true);
+        assertTrue("Annotation index should be enabled", mMapboxMap.isAnnotationIndexEnabled());
+        assertTrue("Marker should be contained", mMapboxMap.queryAnnotations(bounds).contains(marker));
+
+        Marker other = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(12, 12)));
+        assertEquals("Annotations size should match", 2, mMapboxMap.queryAnnotations(bounds).size());
+
+        mMapboxMap.removeAnnotation(marker);
+        List<Annotation> annotations = mMapboxMap.queryAnnotations(bounds);
+        assertEquals("Annotations size should match", 1, annotations.size());
+        assertEquals("Marker should match", other, annotations.get(0));
+    }
+
+    @Test
+    public void testReassignMarkerIds() {
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        Marker marker1 = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(10, 10)));
+        Marker marker2 = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(20, 20)));
+        List<Marker> markers = new ArrayList<>();
+        markers.add(marker1);
+        markers.add(marker2);
+
+        // the new id of the first marker is the old id of the second one
+        mMapboxMap.reassignMarkerIds(markers, new long[]{1, 2}, new long[]{2, 3});
+        assertEquals("First marker id should match", 2, marker1.getId());
+        assertEquals("Second marker id should match", 3, marker2.getId());
+        assertEquals("First marker should be found by its new id", marker1, mMapboxMap.getAnnotation(2));
+        assertEquals("Second marker should be found by its new id", marker2, mMapboxMap.getAnnotation(3));
+        assertNull("Old id should be gone", mMapboxMap.getAnnotation(1));
+        assertEquals("Annotations size should match", 2, mMapboxMap.getAnnotations().size());
+
+        LatLngBounds bounds = new LatLngBounds.Builder().include(new LatLng(5, 5)).include(new LatLng(15, 15)).build();
+        List<Annotation> annotations = mMapboxMap.queryAnnotations(bounds);
+        assertEquals("Queried annotations size should match", 1, annotations.size());
+        assertTrue("Queried marker should have its new id", annotations.get(0).getId() == 2);
+    }
+
+    @Test
+    public void testReassignMarkerIdsMismatch() {
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        List<Marker> markers = new ArrayList<>();
+        markers.add(mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(10, 10))));
+        markers.add(mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(20, 20))));
+
+        try {
+            mMapboxMap.reassignMarkerIds(markers, new long[]{1, 2}, new long[]{3});
+            fail("Mismatched ids should be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("First marker id should be kept", 1, markers.get(0).getId());
+            assertEquals("First marker should be found by its old id", markers.get(0), mMapboxMap.getAnnotation(1));
+            assertEquals("Annotations size should match", 2, mMapboxMap.getAnnotations().size());
+        }
+    }
+
+    @Test
+    public void testAnnotationSnapshots() {
+        when(mMapView.addMarker(any(Marker.class))).thenReturn(1L, 2L);
+        when(mMapView.addPolyline(any(Polyline.class))).thenReturn(3L);
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(10, 10)));
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().add(new LatLng(0, 0)).add(new LatLng(20, 20)));
+        List<Annotation> annotations = mMapboxMap.getAnnotations();
+        List<Marker> markers = mMapboxMap.getMarkers();
+        assertEquals("Annotations size should match", 2, annotations.size());
+        assertEquals("Markers size should match", 1, markers.size());
+        assertEquals("Polylines size should match", 1, mMapboxMap.getPolylines().size());
+        assertTrue("Polygons should be empty", mMapboxMap.getPolygons().isEmpty());
+
+        // unchanged annotations, or an update in place, share the snapshot
+        marker.setPosition(new LatLng(11, 11));
+        assertTrue("Annotations snapshot should be reused", annotations == mMapboxMap.getAnnotations());
+        assertTrue("Markers snapshot should be reused", markers == mMapboxMap.getMarkers());
+
+        mMapboxMap.removeAnnotation(polyline);
+        assertEquals("Previous snapshot should not change", 2, annotations.size());
+        assertEquals("Annotations size should match", 1, mMapboxMap.getAnnotations().size());
+        assertTrue("Polylines should be empty", mMapboxMap.getPolylines().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAnnotationSnapshotUnmodifiable() {
+        mMapboxMap.getMarkers().add(new MarkerOptions().position(new LatLng()).getMarker());
+    }
+
+    @Test
+    public void testAnnotationIndexEnabled() {
+        assertFalse("AnnotationIndexEnabled should be false", mMapboxMap.isAnnotationIndexEnabled());
+        mMapboxMap.setAnnotationIndexEnabled(true);
+        assertTrue("AnnotationIndexEnabled should be true", mMapboxMap.isAnnotationIndexEnabled());
+    }
+
     @Test
     public void testGetAnnotations() {
         assertNotNull("Annotations should be non null", mMapboxMap.getAnnotations());
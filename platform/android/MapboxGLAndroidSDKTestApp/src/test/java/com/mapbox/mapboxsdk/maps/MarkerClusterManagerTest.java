@@ -0,0 +1,185 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.geometry.VisibleRegion;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MarkerClusterManagerTest {
+
+    // two points close enough to cluster at low zoom levels and one far away
+    private static final double[] POINTS = new double[]{10, 10, 10.001, 10.001, -40, -100};
+
+    private MapboxMap mMapboxMap;
+    private MarkerClusterManager mClusterManager;
+    private final List<Runnable> mBackground = new ArrayList<>();
+    private final List<Runnable> mMainThread = new ArrayList<>();
+    private long mNextId;
+
+    @InjectMocks
+    MapView mMapView = mock(MapView.class);
+
+    @Before
+    public void beforeTest() {
+        MockitoAnnotations.initMocks(this);
+        mMapboxMap = new MapboxMap(mMapView);
+        mMapboxMap.setAnnotationExecutors(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                mBackground.add(runnable);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                mMainThread.add(runnable);
+            }
+        });
+
+        // hand out unique ids across calls, like the map does
+        when(mMapView.addMarkers(any(double[].class), any(int[].class), any(String[].class))).thenAnswer(
+                new Answer<long[]>() {
+                    @Override
+                    public long[] answer(InvocationOnMock invocation) throws Throwable {
+                        double[] latLngs = (double[]) invocation.getArguments()[0];
+                        long[] ids = new long[latLngs.length / 2];
+                        for (int i = 0; i < ids.length; i++) {
+                            ids[i] = ++mNextId;
+                        }
+                        return ids;
+                    }
+                });
+        when(mMapView.getZoom()).thenReturn(0.0);
+
+        LatLngBounds world = new LatLngBounds.Builder()
+                .include(new LatLng(85, 180))
+                .include(new LatLng(-85, -180))
+                .build();
+        Projection projection = mock(Projection.class);
+        when(projection.getVisibleRegion()).thenReturn(new VisibleRegion(null, null, null, null, world));
+        mMapboxMap.setProjection(projection);
+
+        mClusterManager = mMapboxMap.getMarkerClusterManager();
+    }
+
+    @Test
+    public void testSetPoints() {
+        mClusterManager.setPoints(POINTS);
+        assertEquals("Point count should be 0 while clustering", 0, mClusterManager.getPointCount());
+        runTasks();
+
+        assertEquals("Point count should match", 3, mClusterManager.getPointCount());
+        List<Marker> markers = mMapboxMap.getMarkers();
+        assertEquals("Markers should match", 2, markers.size());
+        assertEquals("Clustered point count should match", 3,
+                mClusterManager.getPointCount(markers.get(0)) + mClusterManager.getPointCount(markers.get(1)));
+    }
+
+    @Test
+    public void testRefreshKeepsUnchangedMarkers() {
+        mClusterManager.setPoints(POINTS);
+        runTasks();
+        Marker point = findMarker(1);
+        Marker cluster = findMarker(2);
+        assertNotNull("Point marker should be shown", point);
+        assertNotNull("Cluster marker should be shown", cluster);
+
+        when(mMapView.getZoom()).thenReturn((double) mClusterManager.getExpansionZoom(cluster));
+        mClusterManager.invalidate();
+
+        assertSame("Unchanged point should keep its marker", point, mMapboxMap.getAnnotation(point.getId()));
+        assertNull("Expanded cluster marker should be removed", mMapboxMap.getAnnotation(cluster.getId()));
+        List<Marker> markers = mMapboxMap.getMarkers();
+        assertEquals("Markers should match", 3, markers.size());
+        for (Marker marker : markers) {
+            assertEquals("Every marker should show a single point", 1, mClusterManager.getPointCount(marker));
+        }
+
+        // refreshing without a change keeps every marker
+        mClusterManager.invalidate();
+        assertEquals("Markers should be kept", markers, mMapboxMap.getMarkers());
+    }
+
+    @Test
+    public void testLaterPointsWin() {
+        mClusterManager.setPoints(POINTS);
+        mClusterManager.setPoints(new double[]{-40, -100});
+        for (Runnable runnable : mBackground) {
+            runnable.run();
+        }
+        assertEquals("Main thread tasks should match", 2, mMainThread.size());
+
+        // the index of the first call arrives last and is dropped
+        mMainThread.get(1).run();
+        mMainThread.get(0).run();
+        assertEquals("Point count should match the last call", 1, mClusterManager.getPointCount());
+        assertEquals("Markers should match the last call", 1, mMapboxMap.getMarkers().size());
+    }
+
+    @Test
+    public void testClearDropsPendingPoints() {
+        mClusterManager.setPoints(POINTS);
+        mClusterManager.clear();
+        runTasks();
+        assertEquals("Point count should match", 0, mClusterManager.getPointCount());
+        assertTrue("Markers should not be added", mMapboxMap.getMarkers().isEmpty());
+    }
+
+    @Test
+    public void testClusterClickZoomsIn() {
+        mClusterManager.setPoints(POINTS);
+        runTasks();
+        Marker cluster = findMarker(2);
+
+        assertTrue("Cluster click should be handled", mClusterManager.onMarkerClick(cluster));
+        CameraPosition position = mMapboxMap.getCameraPosition();
+        assertEquals("Zoom should match the expansion zoom", mClusterManager.getExpansionZoom(cluster),
+                position.zoom, 0);
+        assertEquals("Latitude should match", cluster.getPosition().getLatitude(),
+                position.target.getLatitude(), 1e-6);
+        assertEquals("Longitude should match", cluster.getPosition().getLongitude(),
+                position.target.getLongitude(), 1e-6);
+
+        assertFalse("Point click should not be handled", mClusterManager.onMarkerClick(findMarker(1)));
+    }
+
+    private void runTasks() {
+        while (!mBackground.isEmpty() || !mMainThread.isEmpty()) {
+            if (!mBackground.isEmpty()) {
+                mBackground.remove(0).run();
+            } else {
+                mMainThread.remove(0).run();
+            }
+        }
+    }
+
+    private Marker findMarker(int pointCount) {
+        for (Marker marker : mMapboxMap.getMarkers()) {
+            if (mClusterManager.getPointCount(marker) == pointCount) {
+                return marker;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShapeSimplifierTest {
+
+    private static final int TRACK_SIZE = 200000;
+
+    @Test
+    public void testStraightLine() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(0, 1), new LatLng(0, 2), new LatLng(0, 3));
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(points, false);
+        assertEquals("Straight line should keep its ends", 2, ranking.count(0));
+        assertArrayEquals("Kept points should match", new double[]{0, 0, 0, 3}, ranking.getLatLngs(0), 0);
+        assertEquals("Negative tolerance should keep every point", 4, ranking.count(-1));
+    }
+
+    @Test
+    public void testTolerance() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(0, 1), new LatLng(0.001, 2),
+                new LatLng(0, 3), new LatLng(0, 4));
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(points, false);
+        double bump = squared(ClusterIndex.latY(0) - ClusterIndex.latY(0.001));
+        assertEquals("Points above a large tolerance should match", 2, ranking.count(bump * 2));
+        assertEquals("Points above a medium tolerance should match", 3, ranking.count(bump / 2));
+        assertEquals("Points above a small tolerance should match", 5, ranking.count(bump / 8));
+    }
+
+    @Test
+    public void testClosedRing() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(0, 1), new LatLng(1, 1),
+                new LatLng(1, 0), new LatLng(0, 0));
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(points, true);
+        double[] kept = ranking.getLatLngs(Double.MAX_VALUE);
+        Set<LatLng> distinct = new HashSet<>();
+        for (int i = 0; i < kept.length; i += 2) {
+            distinct.add(new LatLng(kept[i], kept[i + 1]));
+        }
+        assertEquals("Ring should keep at least 3 distinct points", 3, distinct.size());
+    }
+
+    @Test
+    public void testOpenRing() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(0, 1), new LatLng(0.5, 1.01),
+                new LatLng(1, 1), new LatLng(1, 0));
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(points, true);
+        assertTrue("Ring should keep at least 3 points", ranking.count(Double.MAX_VALUE) >= 3);
+    }
+
+    @Test
+    public void testMatches() {
+        List<LatLng> points = new ArrayList<>(Arrays.asList(new LatLng(0, 0), new LatLng(1, 1)));
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(new ArrayList<>(points), false);
+        assertTrue("Ranking should match its points", ranking.matches(points));
+        points.add(new LatLng(2, 2));
+        assertTrue("Ranking should not match changed points", !ranking.matches(points));
+    }
+
+    @Test
+    public void testLongTrack() {
+        // a random walk, like a recorded track
+        List<LatLng> points = new ArrayList<>(TRACK_SIZE);
+        double lat = 45;
+        double lng = 5;
+        Random random = new Random(42);
+        for (int i = 0; i < TRACK_SIZE; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.0002;
+            lng += (random.nextDouble() - 0.5) * 0.0002;
+            points.add(new LatLng(lat, lng));
+        }
+
+        ShapeSimplifier.Ranking ranking = ShapeSimplifier.rank(points, false);
+        assertEquals("Ranking should keep every point without tolerance", TRACK_SIZE, ranking.count(-1));
+
+        int previous = 0;
+        for (int level = 0; level <= 20; level += 4) {
+            double tolerance = 1 / (512 * Math.pow(2, level));
+            int count = ranking.count(tolerance * tolerance);
+            assertTrue("Points should grow with the zoom level", count >= previous);
+            previous = count;
+        }
+        assertTrue("Track should be simplified at low zoom levels",
+                ranking.count(Math.pow(1 / 512.0, 2)) < TRACK_SIZE / 100);
+    }
+
+    private static double squared(double value) {
+        return value * value;
+    }
+}
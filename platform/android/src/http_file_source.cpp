@@ -11,8 +11,91 @@
 #include <jni/jni.hpp>
 #include "attach_env.hpp"
 
+#include <atomic>
+#include <mutex>
+#include <unordered_map>
+
 namespace mbgl {
 
+namespace {
+
+// Mirrors the Java dispatcher limit, see com.mapbox.mapboxsdk.http.HttpClientManager.
+std::atomic<uint32_t> concurrentRequestLimit { 20 };
+
+void nativeSetMaximumConcurrentRequests(JNIEnv*, jni::jclass*, jni::jint maxRequests) {
+    if (maxRequests > 0) {
+        concurrentRequestLimit = maxRequests;
+    }
+}
+
+struct ByteBufferTag { static constexpr auto Name() { return "java/nio/ByteBuffer"; } };
+
+// Bodies of a known length are read by Java straight into strings allocated here, which become the
+// response data of every peer without another copy. Keyed by the address Java sees.
+std::mutex bodiesMutex;
+std::unordered_map<const void*, std::shared_ptr<std::string>> bodies;
+
+jni::jobject* nativeAllocateBody(JNIEnv* env, jni::jclass*, jni::jint length) {
+    if (length <= 0) {
+        return nullptr;
+    }
+
+    auto body = std::make_shared<std::string>(length, '\0');
+    void* address = &(*body)[0];
+    {
+        std::lock_guard<std::mutex> lock(bodiesMutex);
+        bodies.emplace(address, std::move(body));
+    }
+    return &jni::NewDirectByteBuffer(*env, address, length);
+}
+
+void nativeReleaseBody(JNIEnv* env, jni::jclass*, jni::jobject* body) {
+    const void* address = jni::GetDirectBufferAddress(*env, *body);
+    std::lock_guard<std::mutex> lock(bodiesMutex);
+    bodies.erase(address);
+}
+
+// Returns the string Java read a body into, or nullptr for a pooled buffer that must be copied.
+std::shared_ptr<std::string> adoptBody(const void* address, std::size_t length) {
+    std::lock_guard<std::mutex> lock(bodiesMutex);
+    auto it = bodies.find(address);
+    if (it == bodies.end() || it->second->size() != length) {
+        return nullptr;
+    }
+    return it->second;
+}
+
+// Priority classes, must match com.mapbox.mapboxsdk.http.RequestScheduler.
+enum class RequestPriority : jni::jint {
+    Critical = 0,
+    Viewport = 1,
+    Asset = 2,
+    Prefetch = 3,
+    Offline = 4
+};
+
+RequestPriority requestPriority(const Resource& resource) {
+    if (resource.usage == Resource::Offline) {
+        return RequestPriority::Offline;
+    }
+
+    switch (resource.kind) {
+        case Resource::Kind::Style:
+        case Resource::Kind::Source:
+        case Resource::Kind::SpriteJSON:
+            return RequestPriority::Critical;
+        case Resource::Kind::Tile:
+            return resource.necessity == Resource::Required ? RequestPriority::Viewport : RequestPriority::Prefetch;
+        case Resource::Kind::Glyphs:
+        case Resource::Kind::SpriteImage:
+            return RequestPriority::Asset;
+        default:
+            return RequestPriority::Prefetch;
+    }
+}
+
+} // namespace
+
 class HTTPFileSource::Impl {
 public:
     android::UniqueEnv env { android::AttachEnv() };
@@ -30,7 +113,7 @@ public:
                     jni::String etag, jni::String modified,
                     jni::String cacheControl, jni::String expires,
                     jni::String retryAfter, jni::String xRateLimitReset,
-                    jni::Array<jni::jbyte> body);
+                    jni::Object<ByteBufferTag> body, jni::jint bodyLength);
 
     static jni::Class<HTTPRequest> javaClass;
     jni::UniqueObject<HTTPRequest> javaRequest;
@@ -64,6 +147,13 @@ void RegisterNativeHTTPRequest(jni::JNIEnv& env) {
     jni::RegisterNativePeer<HTTPRequest>(env, HTTPRequest::javaClass, "mNativePtr",
         METHOD(&HTTPRequest::onFailure, "nativeOnFailure"),
         METHOD(&HTTPRequest::onResponse, "nativeOnResponse"));
+
+    jni::RegisterNatives(env, *HTTPRequest::javaClass,
+        jni::MakeNativeMethod<decltype(&nativeAllocateBody), &nativeAllocateBody>("nativeAllocateBody", "(I)Ljava/nio/ByteBuffer;"),
+        jni::MakeNativeMethod<decltype(&nativeReleaseBody), &nativeReleaseBody>("nativeReleaseBody", "(Ljava/nio/ByteBuffer;)V"));
+
+    jni::RegisterNatives(env, jni::FindClass(env, "com/mapbox/mapboxsdk/http/HttpClientManager"),
+        jni::MakeNativeMethod<decltype(&nativeSetMaximumConcurrentRequests), &nativeSetMaximumConcurrentRequests>("nativeSetMaximumConcurrentRequests", "(I)V"));
 }
 
 } // namespace android
@@ -83,13 +173,16 @@ HTTPRequest::HTTPRequest(jni::JNIEnv& env, const Resource& resource_, FileSource
     jni::UniqueLocalFrame frame = jni::PushLocalFrame(env, 10);
 
     static auto constructor =
-        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String>(env);
+        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String, jni::jint, jni::jint, jni::jint>(env);
 
     javaRequest = javaClass.New(env, constructor,
         reinterpret_cast<jlong>(this),
         jni::Make<jni::String>(env, resource.url),
         jni::Make<jni::String>(env, etagStr),
-        jni::Make<jni::String>(env, modifiedStr)).NewGlobalRef(env);
+        jni::Make<jni::String>(env, modifiedStr),
+        static_cast<jni::jint>(resource.kind),
+        static_cast<jni::jint>(requestPriority(resource)),
+        static_cast<jni::jint>(resource.tileData ? resource.tileData->pixelRatio : 1)).NewGlobalRef(env);
 }
 
 HTTPRequest::~HTTPRequest() {
@@ -104,7 +197,7 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
                              jni::String etag, jni::String modified,
                              jni::String cacheControl, jni::String expires,
                              jni::String jRetryAfter, jni::String jXRateLimitReset,
-                             jni::Array<jni::jbyte> body) {
+                             jni::Object<ByteBufferTag> body, jni::jint bodyLength) {
 
     using Error = Response::Error;
 
@@ -126,9 +219,15 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
 
     if (code == 200) {
         if (body) {
-            auto data = std::make_shared<std::string>(body.Length(env), char());
-            jni::GetArrayRegion(env, *body, 0, data->size(), reinterpret_cast<jbyte*>(&(*data)[0]));
-            response.data = data;
+            // Bodies allocated by nativeAllocateBody are shared as they are. Anything else is a pooled
+            // buffer owned by Java and only valid for the duration of this call, so copy it.
+            const char* address = reinterpret_cast<const char*>(jni::GetDirectBufferAddress(env, *body));
+            auto data = adoptBody(address, bodyLength);
+            if (data) {
+                response.data = std::move(data);
+            } else {
+                response.data = std::make_shared<std::string>(address, bodyLength);
+            }
         } else {
             response.data = std::make_shared<std::string>();
         }
@@ -187,7 +286,7 @@ std::unique_ptr<AsyncRequest> HTTPFileSource::request(const Resource& resource,
 }
 
 uint32_t HTTPFileSource::maximumConcurrentRequests() {
-    return 20;
+    return concurrentRequestLimit;
 }
 
 } // namespace mbgl
@@ -3,6 +3,8 @@
 #include <cassert>
 #include <string>
 #include <array>
+#include <algorithm>
+#include <map>
 #include <vector>
 
 #include <android/native_window_jni.h>
@@ -72,21 +74,17 @@ jni::jclass* iconClass = nullptr;
 jni::jfieldID* iconIdId = nullptr;
 
 jni::jclass* markerClass = nullptr;
-jni::jfieldID* markerPositionId = nullptr;
-jni::jfieldID* markerIconId = nullptr;
 jni::jfieldID* markerIdId = nullptr;
 
 jni::jclass* polylineClass = nullptr;
 jni::jfieldID* polylineAlphaId = nullptr;
 jni::jfieldID* polylineColorId = nullptr;
 jni::jfieldID* polylineWidthId = nullptr;
-jni::jfieldID* polylinePointsId = nullptr;
 
 jni::jclass* polygonClass = nullptr;
 jni::jfieldID* polygonAlphaId = nullptr;
 jni::jfieldID* polygonFillColorId = nullptr;
 jni::jfieldID* polygonStrokeColorId = nullptr;
-jni::jfieldID* polygonPointsId = nullptr;
 
 jni::jmethodID* listToArrayId = nullptr;
 
@@ -234,6 +232,22 @@ std::vector<std::string> std_vector_string_from_jobject(JNIEnv *env, jni::jobjec
     return vector;
 }
 
+std::vector<std::string> std_vector_string_from_jarray(JNIEnv *env, jni::jarray<jni::jobject>* jarray) {
+    std::vector<std::string> vector;
+
+    jni::NullCheck(*env, jarray);
+    std::size_t len = jni::GetArrayLength(*env, *jarray);
+    vector.reserve(len);
+
+    for (std::size_t i = 0; i < len; i++) {
+        jni::jstring* jstr = reinterpret_cast<jni::jstring*>(jni::GetObjectArrayElement(*env, *jarray, i));
+        vector.push_back(std_string_from_jstring(env, jstr));
+        jni::DeleteLocalRef(*env, jstr);
+    }
+
+    return vector;
+}
+
 jni::jobject* std_vector_string_to_jobject(JNIEnv *env, std::vector<std::string> vector) {
     jni::jobject* jlist = &jni::NewObject(*env, *arrayListClass, *arrayListConstructorId);
 
@@ -676,35 +690,98 @@ void nativeUpdateMarker(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
     nativeMapView->getMap().updateAnnotation(markerId, mbgl::SymbolAnnotation { mbgl::Point<double>(lon, lat), iconId });
 }
 
-jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+// Throws and returns false unless every icon index refers to one of iconCount icon ids
+static bool checkIconIndices(JNIEnv *env, const jint* iconIndices, std::size_t len, std::size_t iconCount) {
+    for (std::size_t i = 0; i < len; i++) {
+        if (iconIndices[i] < 0 || std::size_t(iconIndices[i]) >= iconCount) {
+            jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+                "Icon index out of range");
+            return false;
+        }
+    }
+    return true;
+}
+
+void nativeUpdateMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jids,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdateMarkers");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jids);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jiconIndices);
+    NullCheck(*env, jiconIds);
+
+    // Icons are shared between markers, convert every distinct icon id once
+    std::vector<std::string> iconIds = std_vector_string_from_jarray(env, jiconIds);
+
+    std::size_t len = jni::GetArrayLength(*env, *jids);
+    if (jni::GetArrayLength(*env, *jlatLngs) != len * 2 || jni::GetArrayLength(*env, *jiconIndices) != len) {
+        jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+            "latLngs and iconIndices should hold a position and an icon index for every marker");
+        return;
+    }
+
+    auto idElements = jni::GetArrayElements(*env, *jids);
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    auto iconIndexElements = jni::GetArrayElements(*env, *jiconIndices);
+    jlong* ids = std::get<0>(idElements).get();
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    jint* iconIndices = std::get<0>(iconIndexElements).get();
+
+    if (!checkIconIndices(env, iconIndices, len, iconIds.size())) {
+        return;
+    }
+
+    for (std::size_t i = 0; i < len; i++) {
+        if (ids[i] == -1L) {
+            continue;
+        }
+        // Only flags the annotation data as changed, the annotation source is re-tiled once on the next frame
+        nativeMapView->getMap().updateAnnotation(ids[i], mbgl::SymbolAnnotation {
+            mbgl::Point<double>(latLngs[i * 2 + 1], latLngs[i * 2]),
+            iconIds[iconIndices[i]]
+        });
+    }
+}
+
+jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jdouble>* jlatLngs,
+        jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddMarkers");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    NullCheck(*env, jarray);
-    std::size_t len = jni::GetArrayLength(*env, *jarray);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jiconIndices);
+    NullCheck(*env, jiconIds);
+
+    std::vector<std::string> iconIds = std_vector_string_from_jarray(env, jiconIds);
+
+    std::size_t len = jni::GetArrayLength(*env, *jiconIndices);
+    if (jni::GetArrayLength(*env, *jlatLngs) != len * 2) {
+        jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+            "latLngs should hold a latitude, longitude pair for every marker");
+        return nullptr;
+    }
+
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    auto iconIndexElements = jni::GetArrayElements(*env, *jiconIndices);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    jint* iconIndices = std::get<0>(iconIndexElements).get();
 
     std::vector<mbgl::AnnotationID> ids;
     ids.reserve(len);
 
-    for (std::size_t i = 0; i < len; i++) {
-        jni::jobject* marker = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* position = jni::GetField<jni::jobject*>(*env, marker, *markerPositionId);
-        jni::jobject* icon = jni::GetField<jni::jobject*>(*env, marker, *markerIconId);
-        jni::jstring* jid = reinterpret_cast<jni::jstring*>(jni::GetField<jni::jobject*>(*env, icon, *iconIdId));
-
-        jdouble latitude = jni::GetField<jdouble>(*env, position, *latLngLatitudeId);
-        jdouble longitude = jni::GetField<jdouble>(*env, position, *latLngLongitudeId);
+    if (!checkIconIndices(env, iconIndices, len, iconIds.size())) {
+        return nullptr;
+    }
 
+    for (std::size_t i = 0; i < len; i++) {
         ids.push_back(nativeMapView->getMap().addAnnotation(mbgl::SymbolAnnotation {
-            mbgl::Point<double>(longitude, latitude),
-            std_string_from_jstring(env, jid)
+            mbgl::Point<double>(latLngs[i * 2 + 1], latLngs[i * 2]),
+            iconIds[iconIndices[i]]
         }));
-
-        jni::DeleteLocalRef(*env, position);
-        jni::DeleteLocalRef(*env, jid);
-        jni::DeleteLocalRef(*env, icon);
-        jni::DeleteLocalRef(*env, marker);
     }
 
     return std_vector_uint_to_jobject(env, ids);
@@ -718,109 +795,170 @@ static mbgl::Color toColor(jint color) {
     return { r / 255.0f, g / 255.0f, b / 255.0f, a / 255.0f };
 }
 
-template <class Geometry>
-Geometry toGeometry(JNIEnv *env, jni::jobject* jlist) {
-    NullCheck(*env, jlist);
-    jni::jarray<jni::jobject>* jarray =
-        reinterpret_cast<jni::jarray<jni::jobject>*>(jni::CallMethod<jni::jobject*>(*env, jlist, *listToArrayId));
-    NullCheck(*env, jarray);
-
-    std::size_t size = jni::GetArrayLength(*env, *jarray);
+// Throws and returns false unless the point counts are non-negative and add up to the latLngs pairs
+static bool checkPointCounts(JNIEnv *env, const jint* pointCounts, std::size_t len, std::size_t latLngCount) {
+    std::size_t total = 0;
+    for (std::size_t i = 0; i < len; i++) {
+        if (pointCounts[i] < 0) {
+            jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+                "Point counts should not be negative");
+            return false;
+        }
+        total += pointCounts[i];
+    }
+    if (total * 2 != latLngCount) {
+        jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+            "Point counts should add up to the latitude, longitude pairs in latLngs");
+        return false;
+    }
+    return true;
+}
 
+template <class Geometry>
+Geometry toGeometry(const jdouble* latLngs, std::size_t offset, std::size_t count) {
     Geometry geometry;
-    geometry.reserve(size);
-
-    for (std::size_t i = 0; i < size; i++) {
-        jni::jobject* latLng = reinterpret_cast<jni::jobject*>(jni::GetObjectArrayElement(*env, *jarray, i));
-        NullCheck(*env, latLng);
-
-        geometry.push_back(mbgl::Point<double>(
-            jni::GetField<jdouble>(*env, latLng, *latLngLongitudeId),
-            jni::GetField<jdouble>(*env, latLng, *latLngLatitudeId)));
+    geometry.reserve(count);
 
-        jni::DeleteLocalRef(*env, latLng);
+    for (std::size_t i = offset; i < offset + count; i++) {
+        geometry.push_back(mbgl::Point<double>(latLngs[i * 2 + 1], latLngs[i * 2]));
     }
 
-    jni::DeleteLocalRef(*env, jarray);
-    jni::DeleteLocalRef(*env, jlist);
-
     return geometry;
 }
 
-jni::jarray<jlong>* nativeAddPolylines(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+jni::jarray<jlong>* nativeAddPolylines(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jdouble>* jlatLngs,
+        jni::jarray<jint>* jpointCounts, jni::jarray<jfloat>* jalphas, jni::jarray<jint>* jcolors, jni::jarray<jfloat>* jwidths) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddPolylines");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    NullCheck(*env, jarray);
-    std::size_t len = jni::GetArrayLength(*env, *jarray);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jpointCounts);
+    NullCheck(*env, jalphas);
+    NullCheck(*env, jcolors);
+    NullCheck(*env, jwidths);
+
+    std::size_t len = jni::GetArrayLength(*env, *jpointCounts);
+    if (jni::GetArrayLength(*env, *jalphas) != len || jni::GetArrayLength(*env, *jcolors) != len
+            || jni::GetArrayLength(*env, *jwidths) != len) {
+        jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+            "alphas, colors and widths should hold a value for every polyline");
+        return nullptr;
+    }
+
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    auto pointCountElements = jni::GetArrayElements(*env, *jpointCounts);
+    auto alphaElements = jni::GetArrayElements(*env, *jalphas);
+    auto colorElements = jni::GetArrayElements(*env, *jcolors);
+    auto widthElements = jni::GetArrayElements(*env, *jwidths);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    jint* pointCounts = std::get<0>(pointCountElements).get();
+    jfloat* alphas = std::get<0>(alphaElements).get();
+    jint* colors = std::get<0>(colorElements).get();
+    jfloat* widths = std::get<0>(widthElements).get();
+
+    if (!checkPointCounts(env, pointCounts, len, jni::GetArrayLength(*env, *jlatLngs))) {
+        return nullptr;
+    }
 
     std::vector<mbgl::AnnotationID> ids;
     ids.reserve(len);
 
+    std::size_t offset = 0;
     for (std::size_t i = 0; i < len; i++) {
-        jni::jobject* polyline = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polyline, *polylinePointsId);
-
-        mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, points) };
-        annotation.opacity = { jni::GetField<jfloat>(*env, polyline, *polylineAlphaId) };
-        annotation.color = { toColor(jni::GetField<jint>(*env, polyline, *polylineColorId)) };
-        annotation.width = { jni::GetField<jfloat>(*env, polyline, *polylineWidthId) };
+        mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(latLngs, offset, pointCounts[i]) };
+        annotation.opacity = { alphas[i] };
+        annotation.color = { toColor(colors[i]) };
+        annotation.width = { widths[i] };
         ids.push_back(nativeMapView->getMap().addAnnotation(annotation));
-
-        jni::DeleteLocalRef(*env, polyline);
+        offset += pointCounts[i];
     }
 
     return std_vector_uint_to_jobject(env, ids);
 }
 
-jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jdouble>* jlatLngs,
+        jni::jarray<jint>* jpointCounts, jni::jarray<jfloat>* jalphas, jni::jarray<jint>* jfillColors,
+        jni::jarray<jint>* jstrokeColors) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddPolygons");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    NullCheck(*env, jarray);
-    std::size_t len = jni::GetArrayLength(*env, *jarray);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jpointCounts);
+    NullCheck(*env, jalphas);
+    NullCheck(*env, jfillColors);
+    NullCheck(*env, jstrokeColors);
+
+    std::size_t len = jni::GetArrayLength(*env, *jpointCounts);
+    if (jni::GetArrayLength(*env, *jalphas) != len || jni::GetArrayLength(*env, *jfillColors) != len
+            || jni::GetArrayLength(*env, *jstrokeColors) != len) {
+        jni::ThrowNew(*env, jni::FindClass(*env, "java/lang/IllegalArgumentException"),
+            "alphas, fillColors and strokeColors should hold a value for every polygon");
+        return nullptr;
+    }
+
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    auto pointCountElements = jni::GetArrayElements(*env, *jpointCounts);
+    auto alphaElements = jni::GetArrayElements(*env, *jalphas);
+    auto fillColorElements = jni::GetArrayElements(*env, *jfillColors);
+    auto strokeColorElements = jni::GetArrayElements(*env, *jstrokeColors);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    jint* pointCounts = std::get<0>(pointCountElements).get();
+    jfloat* alphas = std::get<0>(alphaElements).get();
+    jint* fillColors = std::get<0>(fillColorElements).get();
+    jint* strokeColors = std::get<0>(strokeColorElements).get();
+
+    if (!checkPointCounts(env, pointCounts, len, jni::GetArrayLength(*env, *jlatLngs))) {
+        return nullptr;
+    }
 
     std::vector<mbgl::AnnotationID> ids;
     ids.reserve(len);
 
+    std::size_t offset = 0;
     for (std::size_t i = 0; i < len; i++) {
-        jni::jobject* polygon = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polygon, *polygonPointsId);
-
-        mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, points) } };
-        annotation.opacity = { jni::GetField<jfloat>(*env, polygon, *polygonAlphaId) };
-        annotation.outlineColor = { toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId)) };
-        annotation.color = { toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId)) };
+        mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(latLngs, offset, pointCounts[i]) } };
+        annotation.opacity = { alphas[i] };
+        annotation.outlineColor = { toColor(strokeColors[i]) };
+        annotation.color = { toColor(fillColors[i]) };
         ids.push_back(nativeMapView->getMap().addAnnotation(annotation));
-
-        jni::DeleteLocalRef(*env, polygon);
+        offset += pointCounts[i];
     }
 
     return std_vector_uint_to_jobject(env, ids);
 }
 
-void nativeUpdatePolygon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polygonId, jni::jobject* polygon) {
+void nativeUpdatePolygon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polygonId, jni::jobject* polygon,
+        jni::jarray<jdouble>* jlatLngs) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdatePolygon");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
-    jni::jobject* points = jni::GetField<jni::jobject*>(*env, polygon, *polygonPointsId);
 
-    mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, points) } };
+    NullCheck(*env, jlatLngs);
+    std::size_t count = jni::GetArrayLength(*env, *jlatLngs) / 2;
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+
+    mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(latLngs, 0, count) } };
     annotation.opacity = { jni::GetField<jfloat>(*env, polygon, *polygonAlphaId) };
     annotation.outlineColor = { toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId)) };
     annotation.color = { toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId)) };
     nativeMapView->getMap().updateAnnotation(polygonId, annotation);
 }
 
-void nativeUpdatePolyline(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polylineId, jni::jobject* polyline) {
+void nativeUpdatePolyline(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polylineId, jni::jobject* polyline,
+        jni::jarray<jdouble>* jlatLngs) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdatePolyline");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
-    jni::jobject* points = jni::GetField<jni::jobject*>(*env, polyline, *polylinePointsId);
 
-    mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, points) };
+    NullCheck(*env, jlatLngs);
+    std::size_t count = jni::GetArrayLength(*env, *jlatLngs) / 2;
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+
+    mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(latLngs, 0, count) };
     annotation.opacity = { jni::GetField<jfloat>(*env, polyline, *polylineAlphaId) };
     annotation.color = { toColor(jni::GetField<jint>(*env, polyline, *polylineColorId)) };
     annotation.width = { jni::GetField<jfloat>(*env, polyline, *polylineWidthId) };
@@ -866,29 +1004,45 @@ jni::jarray<jlong>* nativeQueryPointAnnotations(JNIEnv *env, jni::jobject* obj,
     return std_vector_uint_to_jobject(env, annotations);
 }
 
-void nativeAddAnnotationIcon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
-        jni::jstring* symbol, jint width, jint height, jfloat scale, jni::jarray<jbyte>* jpixels) {
-    mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddAnnotationIcon");
+void nativeAddAnnotationIcons(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jsymbols,
+        jni::jarray<jint>* jwidths, jni::jarray<jint>* jheights, jni::jarray<jfloat>* jscales, jni::jarray<jint>* joffsets,
+        jni::jobject* jpage) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddAnnotationIcons");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    const std::string symbolName = std_string_from_jstring(env, symbol);
+    NullCheck(*env, jwidths);
+    NullCheck(*env, jheights);
+    NullCheck(*env, jscales);
+    NullCheck(*env, joffsets);
+    NullCheck(*env, jpage);
 
-    NullCheck(*env, jpixels);
-    std::size_t size = jni::GetArrayLength(*env, *jpixels);
-    mbgl::PremultipliedImage premultipliedImage(width, height);
+    std::vector<std::string> symbols = std_vector_string_from_jarray(env, jsymbols);
+    auto widthElements = jni::GetArrayElements(*env, *jwidths);
+    auto heightElements = jni::GetArrayElements(*env, *jheights);
+    auto scaleElements = jni::GetArrayElements(*env, *jscales);
+    auto offsetElements = jni::GetArrayElements(*env, *joffsets);
+    jint* widths = std::get<0>(widthElements).get();
+    jint* heights = std::get<0>(heightElements).get();
+    jfloat* scales = std::get<0>(scaleElements).get();
+    jint* offsets = std::get<0>(offsetElements).get();
 
-    if (premultipliedImage.size() != uint32_t(size)) {
-        throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
-    }
+    // The page is a direct buffer owned by Java and reused between uploads, copy the icons out of it
+    const uint8_t* page = reinterpret_cast<const uint8_t*>(jni::GetDirectBufferAddress(*env, *jpage));
+    std::size_t pageSize = jni::GetDirectBufferCapacity(*env, *jpage);
 
-    jni::GetArrayRegion(*env, *jpixels, 0, size, reinterpret_cast<jbyte*>(premultipliedImage.data.get()));
+    std::map<std::string, std::shared_ptr<const mbgl::SpriteImage>> sprites;
+    for (std::size_t i = 0; i < symbols.size(); i++) {
+        mbgl::PremultipliedImage premultipliedImage(widths[i], heights[i]);
+        if (std::size_t(offsets[i]) + premultipliedImage.size() > pageSize) {
+            throw mbgl::util::SpriteImageException("Sprite image exceeds the icon page");
+        }
 
-    auto iconImage = std::make_shared<mbgl::SpriteImage>(
-        std::move(premultipliedImage),
-        float(scale));
+        std::copy(page + offsets[i], page + offsets[i] + premultipliedImage.size(), premultipliedImage.data.get());
+        sprites.emplace(symbols[i], std::make_shared<mbgl::SpriteImage>(std::move(premultipliedImage), float(scales[i])));
+    }
 
-    nativeMapView->getMap().addAnnotationIcon(symbolName, iconImage);
+    nativeMapView->getMap().addAnnotationIcons(sprites);
 }
 
 void nativeSetVisibleCoordinateBounds(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
@@ -1040,6 +1194,28 @@ jni::jobject* nativePixelForLatLng(JNIEnv *env, jni::jobject* obj, jlong nativeM
     return &jni::NewObject(*env, *pointFClass, *pointFConstructorId, static_cast<jfloat>(pixel.x), static_cast<jfloat>(pixel.y));
 }
 
+void nativePixelsForLatLngs(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jdouble>* jlatLngs,
+        jni::jarray<jfloat>* jpixels) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jpixels);
+    std::size_t count = jni::GetArrayLength(*env, *jlatLngs) / 2;
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+
+    std::vector<jfloat> pixels;
+    pixels.reserve(count * 2);
+    for (std::size_t i = 0; i < count; i++) {
+        mbgl::ScreenCoordinate pixel = nativeMapView->getMap().pixelForLatLng(mbgl::LatLng(latLngs[i * 2], latLngs[i * 2 + 1]));
+        pixels.push_back(static_cast<jfloat>(pixel.x));
+        pixels.push_back(static_cast<jfloat>(pixel.y));
+    }
+
+    jni::SetArrayRegion(*env, *jpixels, 0, pixels);
+}
+
 jni::jobject* nativeLatLngForPixel(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jfloat x, jfloat y) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
@@ -1784,8 +1960,6 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
 
     markerClass = &jni::FindClass(env, "com/mapbox/mapboxsdk/annotations/Marker");
     markerClass = jni::NewGlobalRef(env, markerClass).release();
-    markerPositionId = &jni::GetFieldID(env, *markerClass, "position", "Lcom/mapbox/mapboxsdk/geometry/LatLng;");
-    markerIconId = &jni::GetFieldID(env, *markerClass, "icon", "Lcom/mapbox/mapboxsdk/annotations/Icon;");
     markerIdId = &jni::GetFieldID(env, *markerClass, "id", "J");
 
     polylineClass = &jni::FindClass(env, "com/mapbox/mapboxsdk/annotations/Polyline");
@@ -1793,14 +1967,12 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
     polylineAlphaId = &jni::GetFieldID(env, *polylineClass, "alpha", "F");
     polylineColorId = &jni::GetFieldID(env, *polylineClass, "color", "I");
     polylineWidthId = &jni::GetFieldID(env, *polylineClass, "width", "F");
-    polylinePointsId = &jni::GetFieldID(env, *polylineClass, "points", "Ljava/util/List;");
 
     polygonClass = &jni::FindClass(env, "com/mapbox/mapboxsdk/annotations/Polygon");
     polygonClass = jni::NewGlobalRef(env, polygonClass).release();
     polygonAlphaId = &jni::GetFieldID(env, *polygonClass, "alpha", "F");
     polygonFillColorId = &jni::GetFieldID(env, *polygonClass, "fillColor", "I");
     polygonStrokeColorId = &jni::GetFieldID(env, *polygonClass, "strokeColor", "I");
-    polygonPointsId = &jni::GetFieldID(env, *polygonClass, "points", "Ljava/util/List;");
 
     jni::jclass* listClass = &jni::FindClass(env, "java/util/List");
     listToArrayId = &jni::GetMethodID(env, *listClass, "toArray", "()[Ljava/lang/Object;");
@@ -1886,15 +2058,16 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
         MAKE_NATIVE_METHOD(nativeSetBearingXY, "(JDDD)V"),
         MAKE_NATIVE_METHOD(nativeGetBearing, "(J)D"),
         MAKE_NATIVE_METHOD(nativeResetNorth, "(J)V"),
-        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[Lcom/mapbox/mapboxsdk/annotations/Marker;)[J"),
-        MAKE_NATIVE_METHOD(nativeAddPolylines, "(J[Lcom/mapbox/mapboxsdk/annotations/Polyline;)[J"),
-        MAKE_NATIVE_METHOD(nativeAddPolygons, "(J[Lcom/mapbox/mapboxsdk/annotations/Polygon;)[J"),
+        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[D[I[Ljava/lang/String;)[J"),
+        MAKE_NATIVE_METHOD(nativeAddPolylines, "(J[D[I[F[I[F)[J"),
+        MAKE_NATIVE_METHOD(nativeAddPolygons, "(J[D[I[F[I[I)[J"),
         MAKE_NATIVE_METHOD(nativeUpdateMarker, "(JJDDLjava/lang/String;)V"),
-        MAKE_NATIVE_METHOD(nativeUpdatePolygon, "(JJLcom/mapbox/mapboxsdk/annotations/Polygon;)V"),
-        MAKE_NATIVE_METHOD(nativeUpdatePolyline, "(JJLcom/mapbox/mapboxsdk/annotations/Polyline;)V"),
+        MAKE_NATIVE_METHOD(nativeUpdateMarkers, "(J[J[D[I[Ljava/lang/String;)V"),
+        MAKE_NATIVE_METHOD(nativeUpdatePolygon, "(JJLcom/mapbox/mapboxsdk/annotations/Polygon;[D)V"),
+        MAKE_NATIVE_METHOD(nativeUpdatePolyline, "(JJLcom/mapbox/mapboxsdk/annotations/Polyline;[D)V"),
         MAKE_NATIVE_METHOD(nativeRemoveAnnotations, "(J[J)V"),
         MAKE_NATIVE_METHOD(nativeQueryPointAnnotations, "(JLandroid/graphics/RectF;)[J"),
-        MAKE_NATIVE_METHOD(nativeAddAnnotationIcon, "(JLjava/lang/String;IIF[B)V"),
+        MAKE_NATIVE_METHOD(nativeAddAnnotationIcons, "(J[Ljava/lang/String;[I[I[F[ILjava/nio/ByteBuffer;)V"),
         MAKE_NATIVE_METHOD(nativeSetVisibleCoordinateBounds, "(J[Lcom/mapbox/mapboxsdk/geometry/LatLng;Landroid/graphics/RectF;DJ)V"),
         MAKE_NATIVE_METHOD(nativeOnLowMemory, "(J)V"),
         MAKE_NATIVE_METHOD(nativeSetDebug, "(JZ)V"),
@@ -1906,6 +2079,7 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
         MAKE_NATIVE_METHOD(nativeProjectedMetersForLatLng, "(JDD)Lcom/mapbox/mapboxsdk/geometry/ProjectedMeters;"),
         MAKE_NATIVE_METHOD(nativeLatLngForProjectedMeters, "(JDD)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativePixelForLatLng, "(JDD)Landroid/graphics/PointF;"),
+        MAKE_NATIVE_METHOD(nativePixelsForLatLngs, "(J[D[F)V"),
         MAKE_NATIVE_METHOD(nativeLatLngForPixel, "(JFF)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativeGetTopOffsetPixelsForAnnotationSymbol, "(JLjava/lang/String;)D"),
         MAKE_NATIVE_METHOD(nativeJumpTo, "(JDDDDD)V"),
@@ -276,8 +276,12 @@ void OfflineDownload::ensureResource(const Resource& resource,
             return;
         }
 
+        // Lets the network layer schedule region downloads behind interactive requests.
+        Resource offlineResource = resource;
+        offlineResource.usage = Resource::Offline;
+
         auto fileRequestsIt = requests.insert(requests.begin(), nullptr);
-        *fileRequestsIt = onlineFileSource.request(resource, [=](Response onlineResponse) {
+        *fileRequestsIt = onlineFileSource.request(offlineResource, [=](Response onlineResponse) {
             if (onlineResponse.error) {
                 observer->responseError(*onlineResponse.error);
                 return;
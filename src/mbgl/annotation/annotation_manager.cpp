@@ -224,6 +224,11 @@ void AnnotationManager::addIcon(const std::string& name, std::shared_ptr<const S
     spriteAtlas.updateDirty();
 }
 
+void AnnotationManager::addIcons(const SpriteAtlas::Sprites& sprites) {
+    spriteAtlas.setSprites(sprites);
+    spriteAtlas.updateDirty();
+}
+
 void AnnotationManager::removeIcon(const std::string& name) {
     spriteAtlas.removeSprite(name);
     spriteAtlas.updateDirty();
@@ -33,6 +33,7 @@ public:
     void removeAnnotation(const AnnotationID&);
 
     void addIcon(const std::string& name, std::shared_ptr<const SpriteImage>);
+    void addIcons(const SpriteAtlas::Sprites&);
     void removeIcon(const std::string& name);
     double getTopOffsetPixelsForIcon(const std::string& name);
     SpriteAtlas& getSpriteAtlas() { return spriteAtlas; }
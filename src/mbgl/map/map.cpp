@@ -696,6 +696,10 @@ void Map::addAnnotationIcon(const std::string& name, std::shared_ptr<const Sprit
     impl->annotationManager->addIcon(name, sprite);
 }
 
+void Map::addAnnotationIcons(const std::map<std::string, std::shared_ptr<const SpriteImage>>& sprites) {
+    impl->annotationManager->addIcons(sprites);
+}
+
 void Map::removeAnnotationIcon(const std::string& name) {
     impl->annotationManager->removeIcon(name);
 }